@@ -0,0 +1,20 @@
+package com.example.financery.aspect;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Повторяет транзакционный метод, если его транзакция не смогла зафиксироваться
+ * из-за параллельного изменения тех же строк (оптимистическая блокировка).
+ *
+ * <p>Метод должен быть идемпотентным до фиксации: каждая попытка выполняется
+ * в новой транзакции с заново прочитанными данными.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
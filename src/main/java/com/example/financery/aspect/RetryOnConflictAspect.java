@@ -0,0 +1,77 @@
+package com.example.financery.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Обработка {@link RetryOnConflict}.
+ *
+ * <p>Аспект выполняется раньше транзакционного прокси, поэтому каждая попытка
+ * открывает и фиксирует собственную транзакцию. Между попытками выдерживается
+ * случайная пауза, растущая с номером попытки, чтобы конкурирующие писатели
+ * не сталкивались повторно.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RetryOnConflictAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryOnConflictAspect.class);
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final AtomicLong retries = new AtomicLong();
+
+    public RetryOnConflictAspect(
+            @Value("${app.retry.max-attempts:10}") int maxAttempts,
+            @Value("${app.retry.backoff-ms:5}") long backoffMs) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+
+    @Around("@annotation(com.example.financery.aspect.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Внутри чужой транзакции повтор ничего не даст: её всё равно откатят
+            return joinPoint.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    logger.warn("Конфликт параллельного изменения в {} после {} попыток",
+                            joinPoint.getSignature().toShortString(), attempt);
+                    throw e;
+                }
+                retries.incrementAndGet();
+                logger.debug("Конфликт параллельного изменения в {}, попытка {}",
+                        joinPoint.getSignature().toShortString(), attempt);
+                pause(attempt);
+            }
+        }
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    private void pause(int attempt) throws InterruptedException {
+        long bound = backoffMs * attempt;
+        if (bound > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        }
+    }
+}
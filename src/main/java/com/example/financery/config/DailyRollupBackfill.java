@@ -0,0 +1,34 @@
+package com.example.financery.config;
+
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.TransactionRepository;
+import com.example.financery.service.DailyRollupService;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Заполняет дневные итоги для транзакций, созданных до появления таблицы итогов.
+ */
+@Component
+@AllArgsConstructor
+public class DailyRollupBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRollupBackfill.class);
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final DailyRollupService dailyRollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (dailyRollupRepository.count() > 0 || transactionRepository.count() == 0) {
+            return;
+        }
+        log.info("Таблица дневных итогов пуста, выполняется первичное заполнение");
+        dailyRollupService.rebuild();
+    }
+}
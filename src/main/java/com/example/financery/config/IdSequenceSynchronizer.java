@@ -0,0 +1,45 @@
+package com.example.financery.config;
+
+import com.example.financery.model.IdSequences;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Подтягивает последовательности id к уже существующим данным.
+ *
+ * <p>До перехода на последовательности id выдавались столбцами IDENTITY, и
+ * в существующей базе новые последовательности начинаются с 1. Без сдвига
+ * первые же вставки упёрлись бы в занятые id.
+ */
+@Component
+@AllArgsConstructor
+public class IdSequenceSynchronizer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceSynchronizer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        IdSequences.TABLES.forEach((sequence, table) -> {
+            Long value = jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequence + "', GREATEST("
+                            + "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + "
+                            + IdSequences.ALLOCATION_SIZE + ", "
+                            + "(SELECT last_value FROM " + sequence + ")))",
+                    Long.class);
+            log.info("Последовательность {} синхронизирована: {}", sequence, value);
+        });
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.financery.controller;
 
+import com.example.financery.dto.BalancePointDto;
 import com.example.financery.dto.BillDtoRequest;
 import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.TransactionPageDto;
+import com.example.financery.exception.InvalidInputException;
 import com.example.financery.service.BillService;
+import com.example.financery.service.TransactionService;
+import java.time.LocalDate;
 import java.util.List;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +17,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,14 +29,18 @@ import org.springframework.web.bind.annotation.*;
 public class BillController {
 
     private final BillService billService;
+    private final TransactionService transactionService;
 
     @Operation(
             summary = "Получение всех существующих счетов",
             description = "Возвращает список всех счетов, доступных в системе."
+                    + " С view=summary счета возвращаются без транзакций."
     )
     @GetMapping("/get-all-bills")
-    public List<BillDtoResponse> getAllBills() {
-        return billService.getAllBills();
+    public List<?> getAllBills(
+            @Parameter(description = "Представление: full или summary", example = "summary")
+            @RequestParam(defaultValue = "full") String view) {
+        return isSummary(view) ? billService.getAllBillSummaries() : billService.getAllBills();
     }
 
     @Operation(
@@ -38,27 +48,71 @@ public class BillController {
             description =
                     "Возвращает список всех счетов,"
                             + " принадлежащих пользователю с указанным ID."
+                            + " С view=summary счета возвращаются без транзакций."
     )
     @GetMapping("/get-all-user-bills/{userId}")
-    public List<BillDtoResponse> getAllUserBills(
+    public List<?> getAllUserBills(
             @Parameter(description =
                     "ID пользователя, чьи счета необходимо получить",
                     required = true, example = "1")
-            @PathVariable long userId) {
-        return billService.getBillsByUserId(userId);
+            @PathVariable long userId,
+            @Parameter(description = "Представление: full или summary", example = "summary")
+            @RequestParam(defaultValue = "full") String view) {
+        return isSummary(view)
+                ? billService.getBillSummariesByUserId(userId)
+                : billService.getBillsByUserId(userId);
     }
 
     @Operation(
             summary = "Получение счета по ID",
             description = "Возвращает информацию о счете с указанным ID."
+                    + " С view=summary счет возвращается без транзакций."
     )
     @GetMapping("/get-bill-by-id/{billId}")
-    public ResponseEntity<BillDtoResponse> getBillById(
+    public ResponseEntity<?> getBillById(
             @Parameter(description =
                     "ID счета, который необходимо получить",
                     required = true, example = "1")
-            @PathVariable long billId) {
-        return ResponseEntity.ok(billService.getBillById(billId));
+            @PathVariable long billId,
+            @Parameter(description = "Представление: full или summary", example = "summary")
+            @RequestParam(defaultValue = "full") String view) {
+        return ResponseEntity.ok(isSummary(view)
+                ? billService.getBillSummaryById(billId)
+                : billService.getBillById(billId));
+    }
+
+    @Operation(
+            summary = "Постраничное получение транзакций счета",
+            description = "Возвращает страницу транзакций счета, упорядоченных"
+                    + " по дате и ID, и курсор для запроса следующей страницы."
+    )
+    @GetMapping("/{billId}/transactions")
+    public TransactionPageDto getBillTransactionsPage(
+            @Parameter(description = "ID счета", required = true, example = "1")
+            @PathVariable long billId,
+            @Parameter(description = "Курсор из предыдущей страницы, пусто для первой")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Количество транзакций на странице", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return transactionService.getTransactionsPageByBillId(billId, cursor, limit);
+    }
+
+    @Operation(
+            summary = "История баланса счета",
+            description = "Возвращает баланс счета на конец дня для каждой точки периода"
+                    + " с указанным шагом, последняя точка всегда приходится на конец периода."
+    )
+    @GetMapping("/{billId}/balance-timeline")
+    public List<BalancePointDto> getBalanceTimeline(
+            @Parameter(description = "ID счета", required = true, example = "1")
+            @PathVariable long billId,
+            @Parameter(description = "Начало периода включительно", example = "01.01.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate from,
+            @Parameter(description = "Конец периода включительно", example = "31.12.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate to,
+            @Parameter(description = "Шаг: day, week или month", example = "day")
+            @RequestParam(defaultValue = "day") String step) {
+        return billService.getBalanceTimeline(billId, from, to, step);
     }
 
     @Operation(
@@ -101,4 +155,13 @@ public class BillController {
         billService.deleteBill(billId);
         return ResponseEntity.ok(1);
     }
+
+    private static boolean isSummary(String view) {
+        return switch (view) {
+            case "summary" -> true;
+            case "full" -> false;
+            default -> throw new InvalidInputException(
+                    "Неизвестное представление: " + view + ", используй full или summary");
+        };
+    }
 }
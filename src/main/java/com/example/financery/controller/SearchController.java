@@ -0,0 +1,39 @@
+package com.example.financery.controller;
+
+import com.example.financery.dto.AutocompleteItemDto;
+import com.example.financery.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+@AllArgsConstructor
+@Tag(name = "Поиск", description = "Поиск по данным пользователя")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @Operation(
+            summary = "Автодополнение названий",
+            description = "Возвращает названия тегов и прошлых транзакций пользователя,"
+                    + " начинающиеся с указанного префикса без учёта регистра."
+    )
+    @GetMapping("/autocomplete")
+    public List<AutocompleteItemDto> autocomplete(
+            @Parameter(description = "ID пользователя", required = true, example = "1")
+            @RequestParam long userId,
+            @Parameter(description = "Начало названия", required = true, example = "Прод")
+            @RequestParam String prefix,
+            @Parameter(description = "Количество подсказок", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        return searchService.autocomplete(userId, prefix, limit);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.financery.controller;
 
 import com.example.financery.dto.TagDtoRequest;
 import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TagSuggestionDto;
 import com.example.financery.mapper.TagMapper;
 import com.example.financery.model.Tag;
 import com.example.financery.service.TagService;
@@ -71,6 +72,24 @@ public class TagController {
         return tagService.getTagsByTransactionId(transactionId);
     }
 
+    @Operation(
+            summary = "Подсказка тегов для новой транзакции",
+            description = "Возвращает теги, которые пользователь чаще всего ставил транзакциям"
+                    + " с такими же словами в названии и вместе с уже выбранными тегами."
+    )
+    @GetMapping("/suggest")
+    public List<TagSuggestionDto> suggestTags(
+            @Parameter(description = "ID пользователя", required = true, example = "1")
+            @RequestParam long userId,
+            @Parameter(description = "Название транзакции", example = "Продукты в магазине")
+            @RequestParam(required = false) String name,
+            @Parameter(description = "Уже выбранные теги", example = "1,2")
+            @RequestParam(required = false) List<Long> tagIds,
+            @Parameter(description = "Количество подсказок", example = "5")
+            @RequestParam(defaultValue = "5") int limit) {
+        return tagService.suggestTags(userId, name, tagIds, limit);
+    }
+
     @PostMapping("/add-many")
     @Operation(summary = "Создаёт большое количество категорий",
             description = "Создаёт категории из передаваемого множества")
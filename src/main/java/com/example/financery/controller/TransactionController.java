@@ -1,17 +1,31 @@
 package com.example.financery.controller;
 
+import com.example.financery.dto.BillLockStatsDto;
+import com.example.financery.dto.DailyRollupReportDto;
+import com.example.financery.dto.CacheStatsDto;
+import com.example.financery.dto.TransactionAnalyticsDto;
 import com.example.financery.dto.TransactionDtoRequest;
 import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionPageDto;
+import com.example.financery.dto.TransactionSummaryDto;
+import com.example.financery.service.DailyRollupService;
+import com.example.financery.service.TransactionExportService;
 import com.example.financery.service.TransactionService;
+import com.example.financery.utils.BillLockManager;
 import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TransactionColumnStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,7 +36,14 @@ public class TransactionController {
 
     private final TransactionService transactionService;
 
+    private final TransactionExportService transactionExportService;
+
+    private final DailyRollupService dailyRollupService;
+
     private final InMemoryCache cache;
+    private final TransactionColumnStore columnStore;
+
+    private final BillLockManager billLockManager;
 
     @Operation(
             summary = "Получение всех существующих транзакций",
@@ -45,6 +66,42 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getTransactionById(transactionId));
     }
 
+    @Operation(
+            summary = "Итоги транзакций пользователя",
+            description = "Возвращает суммы доходов, расходов и количество транзакций"
+                    + " за период, сгруппированные по месяцам, неделям, тегам или счетам."
+                    + " Транзакция с несколькими тегами учитывается в каждом из них."
+    )
+    @GetMapping("/summary/{userId}")
+    public List<TransactionSummaryDto> getSummary(
+            @Parameter(description = "ID пользователя", required = true, example = "1")
+            @PathVariable long userId,
+            @Parameter(description = "Начало периода включительно", example = "01.01.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate from,
+            @Parameter(description = "Конец периода включительно", example = "31.12.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate to,
+            @Parameter(description = "Группировка: month, week, tag или bill", example = "month")
+            @RequestParam(defaultValue = "month") String groupBy) {
+        return transactionService.getSummary(userId, from, to, groupBy);
+    }
+
+    @Operation(
+            summary = "Аналитика транзакций пользователя",
+            description = "Возвращает итоги за период, итоги по тегам и накопленный итог"
+                    + " доходов за вычетом расходов на конец каждого дня с транзакциями."
+                    + " Считается по колоночному представлению транзакций пользователя."
+    )
+    @GetMapping("/analytics/{userId}")
+    public TransactionAnalyticsDto getAnalytics(
+            @Parameter(description = "ID пользователя", required = true, example = "1")
+            @PathVariable long userId,
+            @Parameter(description = "Начало периода включительно", example = "01.01.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate from,
+            @Parameter(description = "Конец периода включительно", example = "31.12.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate to) {
+        return transactionService.getAnalytics(userId, from, to);
+    }
+
     @Operation(
             summary = "Получение всех транзакций пользователя",
             description = "Возвращает список всех транзакций,"
@@ -58,6 +115,78 @@ public class TransactionController {
         return transactionService.getTransactionsByUserId(userId);
     }
 
+    @Operation(
+            summary = "Выгрузка всех транзакций",
+            description = "Потоково выгружает все транзакции в формате NDJSON:"
+                    + " по одной транзакции в JSON на строку."
+    )
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTransactions() {
+        StreamingResponseBody body = transactionExportService::exportAll;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Постраничное получение всех транзакций",
+            description = "Возвращает страницу транзакций, упорядоченных по дате и ID,"
+                    + " и курсор для запроса следующей страницы."
+    )
+    @GetMapping("/get-transactions-page")
+    public TransactionPageDto getTransactionsPage(
+            @Parameter(description = "Курсор из предыдущей страницы, пусто для первой")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Количество транзакций на странице", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return transactionService.getTransactionsPage(cursor, limit);
+    }
+
+    @Operation(
+            summary = "Постраничное получение транзакций пользователя",
+            description = "Возвращает страницу транзакций пользователя, упорядоченных"
+                    + " по дате и ID, и курсор для запроса следующей страницы."
+    )
+    @GetMapping("/get-user-transactions-page/{userId}")
+    public TransactionPageDto getUserTransactionsPage(
+            @Parameter(description = "ID пользователя, чьи транзакции необходимо получить",
+                    required = true, example = "1")
+            @PathVariable long userId,
+            @Parameter(description = "Курсор из предыдущей страницы, пусто для первой")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Количество транзакций на странице", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return transactionService.getTransactionsPageByUserId(userId, cursor, limit);
+    }
+
+    @Operation(
+            summary = "Постраничный отбор транзакций пользователя по тегам",
+            description = "Возвращает страницу транзакций периода, у которых есть все теги"
+                    + " из all, хотя бы один из any и нет ни одного из none,"
+                    + " и курсор для запроса следующей страницы."
+    )
+    @GetMapping("/by-tags/{userId}")
+    public TransactionPageDto getTransactionsByTags(
+            @Parameter(description = "ID пользователя", required = true, example = "1")
+            @PathVariable long userId,
+            @Parameter(description = "Обязательные теги", example = "1,2")
+            @RequestParam(required = false) List<Long> all,
+            @Parameter(description = "Теги, из которых нужен хотя бы один", example = "3")
+            @RequestParam(required = false) List<Long> any,
+            @Parameter(description = "Исключаемые теги", example = "4")
+            @RequestParam(required = false) List<Long> none,
+            @Parameter(description = "Начало периода включительно", example = "01.01.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate from,
+            @Parameter(description = "Конец периода включительно", example = "31.12.2025")
+            @RequestParam @DateTimeFormat(pattern = "dd.MM.yyyy") LocalDate to,
+            @Parameter(description = "Курсор из предыдущей страницы, пусто для первой")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Количество транзакций на странице", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return transactionService.getTransactionsPageByTags(
+                userId, all, any, none, from, to, cursor, limit);
+    }
+
     @Operation(
             summary = "Получение всех транзакций по счету",
             description = "Возвращает список всех транзакций,"
@@ -82,6 +211,19 @@ public class TransactionController {
         return transactionService.createTransaction(transactionDto);
     }
 
+    @Operation(
+            summary = "Пакетное создание транзакций",
+            description = "Создает все переданные транзакции в одной транзакции БД"
+                    + " с одним изменением баланса на каждый счет. Не более 1000 транзакций"
+                    + " за запрос."
+    )
+    @PostMapping("/bulk")
+    public List<TransactionDtoResponse> createTransactions(
+            @Parameter(description = "Данные для создания транзакций", required = true)
+            @RequestBody @Valid List<TransactionDtoRequest> transactionDtos) {
+        return transactionService.createTransactions(transactionDtos);
+    }
+
     @Operation(
             summary = "Обновление транзакции по ID",
             description = "Обновляет данные транзакции с указанным ID на основе переданных данных."
@@ -109,6 +251,46 @@ public class TransactionController {
         return ResponseEntity.ok(1);
     }
 
+    @Operation(
+            summary = "Состояние кэша",
+            description = "Возвращает количество пользователей в кэше,"
+                    + " его текущий оценочный объём и допустимый предел."
+    )
+    @GetMapping("/cache/stats")
+    public CacheStatsDto getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Operation(
+            summary = "Статистика блокировок счетов",
+            description = "Возвращает режим записи по счетам, количество захватов блокировок,"
+                    + " сколько из них ждали освобождения и время ожидания."
+    )
+    @GetMapping("/locks/stats")
+    public BillLockStatsDto getBillLockStats() {
+        return billLockManager.getStats();
+    }
+
+    @Operation(
+            summary = "Пересчёт дневных итогов",
+            description = "Заново считает дневные итоги всех пользователей по их транзакциям."
+                    + " Пользователи обрабатываются параллельно."
+    )
+    @PostMapping("/rollups/rebuild")
+    public DailyRollupReportDto rebuildRollups() {
+        return dailyRollupService.rebuild();
+    }
+
+    @Operation(
+            summary = "Сверка дневных итогов",
+            description = "Сравнивает дневные итоги с транзакциями и возвращает пользователей,"
+                    + " у которых они расходятся."
+    )
+    @GetMapping("/rollups/verify")
+    public DailyRollupReportDto verifyRollups() {
+        return dailyRollupService.verify();
+    }
+
     @Operation(
             summary = "Очистка всего кэша",
             description = "Удаляет все данные из кэша транзакций."
@@ -116,6 +298,7 @@ public class TransactionController {
     @DeleteMapping("/cache/clear")
     public ResponseEntity<String> clearCache() {
         cache.clear();
+        columnStore.clear();
         return ResponseEntity.ok("Cache cleared successfully");
     }
 
@@ -129,6 +312,7 @@ public class TransactionController {
                     required = true, example = "1")
             @PathVariable long userId) {
         cache.clearForUser(userId);
+        columnStore.clearForUser(userId);
         return ResponseEntity.ok("Cache cleared for userId: " + userId);
     }
 }
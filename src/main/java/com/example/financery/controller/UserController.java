@@ -3,12 +3,14 @@ package com.example.financery.controller;
 
 import com.example.financery.dto.UserDtoRequest;
 import com.example.financery.dto.UserDtoResponse;
+import com.example.financery.dto.UserPageDto;
 import com.example.financery.model.User;
 import com.example.financery.service.UserService;
 import java.util.List;
 
 import com.example.financery.service.VisitCounterService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -35,6 +37,23 @@ public class UserController {
         return userService.getAllUsers();
     }
 
+    @Operation(
+            summary = "Постраничный вывод пользователей",
+            description = "Выводит пользователей с количеством счетов, упорядоченных по id,"
+                    + " и курсор для запроса следующей страницы. Счета и их транзакции"
+                    + " добавляются только через expand"
+    )
+    @GetMapping("/get-users-page")
+    public UserPageDto getUsersPage(
+            @Parameter(description = "Курсор из предыдущей страницы, пусто для первой")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Количество пользователей на странице", example = "50")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Вложенные данные: bills или bills.transactions")
+            @RequestParam(required = false) String expand) {
+        return userService.getUsersPage(cursor, limit, expand);
+    }
+
     @Operation(
             summary = "Поиск пользователя по id",
             description = "Выводит пользователя заданного id"
@@ -0,0 +1,16 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AutocompleteItemDto {
+
+    public static final String TAG = "tag";
+    public static final String TRANSACTION = "transaction";
+
+    private String text;
+    // tag - название тега, transaction - название прошлой транзакции
+    private String type;
+}
@@ -0,0 +1,20 @@
+package com.example.financery.dto;
+
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class BalancePointDto {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd.MM.yyyy")
+    private LocalDate date;
+    // Накопленный итог на конец дня
+    @JsonSerialize(using = Money.Serializer.class)
+    private long balance;
+}
@@ -1,5 +1,8 @@
 package com.example.financery.dto;
 
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -14,7 +17,9 @@ public class BillDtoRequest {
     private String name;
     @Min(value = 0, message = "Баланс не может быть меньше 0")
     @NotNull(message = "Баланс счета должен быть указан")
-    private double balance;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long balance;
     @Min(value = 1, message = "Id не может быть меньше 1")
     @NotNull(message = "Id пользователя должен быть указан")
     private long userId;
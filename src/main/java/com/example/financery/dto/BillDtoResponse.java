@@ -1,5 +1,9 @@
 package com.example.financery.dto;
 
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 import java.util.List;
@@ -9,8 +13,12 @@ public class BillDtoResponse {
 
     private long id;
     private String name;
-    private double balance;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long balance;
     private long userId;
 
+    // null, если транзакции не запрашивались
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<TransactionDtoResponse> transactions;
 }
@@ -0,0 +1,16 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BillLockStatsDto {
+
+    private String mode;
+    private int stripes;
+    private long acquisitions;
+    private long contended;
+    private double totalWaitMs;
+    private double maxWaitMs;
+}
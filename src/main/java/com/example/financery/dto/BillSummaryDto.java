@@ -0,0 +1,20 @@
+package com.example.financery.dto;
+
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Счёт без транзакций, выбирается проекцией прямо из таблицы счетов.
+ */
+@Data
+@AllArgsConstructor
+public class BillSummaryDto {
+
+    private long id;
+    private String name;
+    @JsonSerialize(using = Money.Serializer.class)
+    private long balance;
+    private long userId;
+}
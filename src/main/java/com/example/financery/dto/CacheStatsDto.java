@@ -0,0 +1,14 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheStatsDto {
+
+    private int users;
+    private long weightBytes;
+    private long maxWeightBytes;
+    private long evictions;
+}
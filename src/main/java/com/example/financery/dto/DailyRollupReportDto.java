@@ -0,0 +1,18 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class DailyRollupReportDto {
+
+    private int users;
+    // Сколько строк итогов пересчитано или сверено
+    private long rows;
+    // Пользователи, у которых итоги расходятся с транзакциями
+    private List<Long> mismatchedUserIds;
+    private long elapsedMs;
+}
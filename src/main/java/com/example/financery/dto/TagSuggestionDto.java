@@ -0,0 +1,14 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TagSuggestionDto {
+
+    private long id;
+    private String title;
+    // Чем больше, тем вероятнее тег подходит транзакции
+    private double score;
+}
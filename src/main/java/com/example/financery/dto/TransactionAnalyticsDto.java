@@ -0,0 +1,15 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionAnalyticsDto {
+
+    private TransactionSummaryDto totals;
+    private List<TransactionSummaryDto> tags;
+    private List<BalancePointDto> balance;
+}
@@ -1,6 +1,9 @@
 package com.example.financery.dto;
 
+import com.example.financery.utils.Money;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -22,7 +25,9 @@ public class TransactionDtoRequest {
     private boolean type;
     @Min(value = 0, message = "Значение транзакции не может быть меньше 0")
     @NotNull(message = "Значение транзакции должено быть указано")
-    private double amount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long amount;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd.MM.yyyy")
     private LocalDate date;
 
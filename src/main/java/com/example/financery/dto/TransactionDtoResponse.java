@@ -1,6 +1,9 @@
 package com.example.financery.dto;
 
+import com.example.financery.utils.Money;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -15,7 +18,9 @@ public class TransactionDtoResponse {
     private String description;
     private List<TagDtoResponse> tags;
     private boolean type;
-    private double amount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long amount;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd.MM.yyyy")
     private LocalDate date;
 
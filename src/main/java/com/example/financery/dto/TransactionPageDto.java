@@ -0,0 +1,15 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionPageDto {
+
+    private List<TransactionDtoResponse> items;
+    // null, если страница последняя
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.example.financery.dto;
+
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TransactionSummaryDto {
+
+    // Начало месяца или недели (yyyy-MM-dd), id тега или id счёта
+    private String key;
+    // Название тега или счёта, для периодов совпадает с key
+    private String name;
+    @JsonSerialize(using = Money.Serializer.class)
+    private long income;
+    @JsonSerialize(using = Money.Serializer.class)
+    private long expense;
+    private long count;
+}
@@ -1,5 +1,8 @@
 package com.example.financery.dto;
 
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 
@@ -15,5 +18,7 @@ public class UserDtoRequest {
     private String email;
     @Min(value = 0, message = "Баланс не может быть меньше 0")
     @NotNull(message = "Баланс счета должен быть указан")
-    private double balance;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long balance;
 }
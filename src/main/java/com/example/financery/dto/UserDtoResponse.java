@@ -1,5 +1,8 @@
 package com.example.financery.dto;
 
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 import java.util.List;
@@ -12,7 +15,9 @@ public class UserDtoResponse {
     private String name;
     private String email;
 
-    private double balance;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long balance;
 
     private List<BillDtoResponse> bills;
 }
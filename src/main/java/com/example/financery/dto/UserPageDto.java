@@ -0,0 +1,15 @@
+package com.example.financery.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserPageDto {
+
+    private List<UserSummaryDto> items;
+    // null, если страница последняя
+    private String nextCursor;
+}
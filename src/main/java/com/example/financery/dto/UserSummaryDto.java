@@ -0,0 +1,35 @@
+package com.example.financery.dto;
+
+import com.example.financery.utils.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Пользователь без вложенных счетов, выбирается проекцией вместе с числом счетов.
+ * Счета заполняются только по явному запросу expand.
+ */
+@Data
+public class UserSummaryDto {
+
+    private long id;
+    private String name;
+    private String email;
+    // Суммарный баланс всех счетов пользователя
+    @JsonSerialize(using = Money.Serializer.class)
+    private long balance;
+    private long billCount;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<BillDtoResponse> bills;
+
+    public UserSummaryDto(long id, String name, String email, long balance, long billCount) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.balance = balance;
+        this.billCount = billCount;
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.financery.model;
 
-import com.example.financery.exception.InvalidInputException;
+import com.example.financery.utils.Money;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,14 +14,23 @@ import java.util.List;
 public class Bill {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_table_seq")
+    @SequenceGenerator(name = "bill_table_seq", sequenceName = "bill_table_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
+    // Защищает баланс от потерянных обновлений при параллельной записи
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     @Column(nullable = false, length = 50)
     private String name;
 
-    @Column(nullable = false)
-    private double balance = 0.0;
+    // Копейки
+    @Convert(converter = MoneyConverter.class)
+    @Column(nullable = false, precision = 19, scale = Money.SCALE)
+    private long balance = 0;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "userId", nullable = false)
@@ -33,24 +43,6 @@ public class Bill {
             fetch = FetchType.LAZY)
     private List<Transaction> transactions = new ArrayList<>();
 
-    public void addAmount(double amount) {
-        this.balance += amount;
-        if (user != null) {
-            user.setBalance(user.getBalance() + amount);
-        }
-    }
-
-    public void subtractAmount(double amount) {
-        if (this.balance >= amount) {
-            this.balance -= amount;
-            if (user != null) {
-                user.setBalance(user.getBalance() - amount);
-            }
-        } else {
-            throw new InvalidInputException("Недостаточный остаток на счету");
-        }
-    }
-
     @Override
     public String toString() {
         return "Bill{"
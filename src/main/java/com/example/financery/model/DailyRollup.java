@@ -0,0 +1,34 @@
+package com.example.financery.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Итоги транзакций одного счёта за один день.
+ *
+ * <p>Строки меняются в той же транзакции БД, что и сами транзакции, поэтому
+ * итоги за период читаются по числу дней, а не по числу транзакций.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "DailyRollup", indexes = {
+        @Index(name = "idx_daily_rollup_user_day", columnList = "userId, day")
+})
+public class DailyRollup {
+
+    @EmbeddedId
+    private DailyRollupId id;
+
+    @Column(nullable = false)
+    private long incomeCents;
+
+    @Column(nullable = false)
+    private long expenseCents;
+
+    @Column(nullable = false)
+    private long count;
+}
@@ -0,0 +1,20 @@
+package com.example.financery.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRollupId implements Serializable {
+
+    private Long userId;
+    private Long billId;
+    private LocalDate day;
+}
@@ -0,0 +1,25 @@
+package com.example.financery.model;
+
+import java.util.Map;
+
+/**
+ * Последовательности, из которых выдаются id сущностей.
+ *
+ * <p>Hibernate резервирует id блоками по {@link #ALLOCATION_SIZE} за одно
+ * обращение к последовательности, благодаря чему вставки можно объединять
+ * в JDBC-пакеты.
+ */
+public final class IdSequences {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Последовательность -> таблица, id которой она выдаёт
+    public static final Map<String, String> TABLES = Map.of(
+            "user_table_seq", "user_table",
+            "bill_table_seq", "bill_table",
+            "tag_table_seq", "tag_table",
+            "transaction_table_seq", "transaction_table");
+
+    private IdSequences() {
+    }
+}
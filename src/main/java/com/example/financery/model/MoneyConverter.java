@@ -0,0 +1,25 @@
+package com.example.financery.model;
+
+import com.example.financery.utils.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Хранит суммы в копейках как {@code numeric(19, 2)} в рублях, чтобы данные
+ * в БД оставались в привычных единицах.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long cents) {
+        return cents == null ? null : Money.toDecimal(cents);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.toCents(value);
+    }
+}
@@ -12,7 +12,9 @@ import java.util.List;
 @Table(name = "TagTable")
 public class Tag {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tag_table_seq")
+    @SequenceGenerator(name = "tag_table_seq", sequenceName = "tag_table_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, length = 15)
@@ -2,6 +2,7 @@ package com.example.financery.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.example.financery.utils.Money;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -12,11 +13,17 @@ import java.util.stream.Collectors;
 
 @Data
 @Entity
-@Table(name = "TransactionTable")
+@Table(name = "TransactionTable", indexes = {
+        @Index(name = "idx_transaction_user_date_id", columnList = "userId, date, id"),
+        @Index(name = "idx_transaction_bill_date_id", columnList = "billId, date, id"),
+        @Index(name = "idx_transaction_date_id", columnList = "date, id")
+})
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_table_seq")
+    @SequenceGenerator(name = "transaction_table_seq", sequenceName = "transaction_table_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, length = 50)
@@ -27,8 +34,10 @@ public class Transaction {
     @Column(nullable = false)
     private boolean type;
 
-    @Column(nullable = false)
-    private double amount;
+    // Копейки
+    @Convert(converter = MoneyConverter.class)
+    @Column(nullable = false, precision = 19, scale = Money.SCALE)
+    private long amount;
 
     @Column(nullable = false)
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd.MM.yyyy")
@@ -1,7 +1,9 @@
 package com.example.financery.model;
 
+import com.example.financery.utils.Money;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,17 +16,26 @@ import lombok.Data;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_table_seq")
+    @SequenceGenerator(name = "user_table_seq", sequenceName = "user_table_seq",
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
+    // Защищает баланс от потерянных обновлений при параллельной записи
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     @Column(nullable = false, length = 50)
     private String name;
 
     @Column(unique = true, nullable = false)
     private String email;
 
-    @Column(nullable = false)
-    private double balance = 0;
+    // Копейки
+    @Convert(converter = MoneyConverter.class)
+    @Column(nullable = false, precision = 19, scale = Money.SCALE)
+    private long balance = 0;
 
     @OneToMany(mappedBy = "user",
             cascade = CascadeType.ALL,
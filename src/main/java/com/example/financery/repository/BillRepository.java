@@ -1,19 +1,60 @@
 package com.example.financery.repository;
 
+import com.example.financery.dto.BillSummaryDto;
 import com.example.financery.model.Bill;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 
 public interface BillRepository extends JpaRepository<Bill, Long> {
 
+    String SUMMARY = "new com.example.financery.dto.BillSummaryDto("
+            + "b.id, b.name, b.balance, b.user.id)";
+
     @Query(value = "SELECT * FROM bill_table WHERE user_id = ?1", nativeQuery = true)
     List<Bill> findByUser(long userId);
 
+    // Проекции читают только колонки счёта, транзакции не загружаются
+    @Query("SELECT " + SUMMARY + " FROM Bill b ORDER BY b.id")
+    List<BillSummaryDto> findAllSummaries();
+
+    @Query("SELECT " + SUMMARY + " FROM Bill b WHERE b.user.id = :userId ORDER BY b.id")
+    List<BillSummaryDto> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT " + SUMMARY + " FROM Bill b WHERE b.user.id IN :userIds ORDER BY b.id")
+    List<BillSummaryDto> findSummariesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT " + SUMMARY + " FROM Bill b WHERE b.id = :billId")
+    Optional<BillSummaryDto> findSummaryById(@Param("billId") Long billId);
+
     @Query("SELECT b FROM Bill b WHERE b.id = :billId AND b.user.id = :userId")
     Optional<Bill> findByIdAndUserId(@Param("billId") Long billId, @Param("userId") Long userId);
+
+    /**
+     * Атомарно меняет баланс счёта на {@code delta} копеек, если он не станет отрицательным.
+     *
+     * @return 1, если баланс изменён, и 0, если счёта нет или на нём недостаточно средств
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Bill b SET b.balance = b.balance + :delta, b.version = b.version + 1 "
+            + "WHERE b.id = :billId AND b.balance + :delta >= 0")
+    int addToBalance(@Param("billId") Long billId, @Param("delta") long delta);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Bill b WHERE b.id = :billId")
+    Optional<Bill> lockById(@Param("billId") Long billId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Bill b WHERE b.user.id = :userId")
+    List<Bill> lockByUserId(@Param("userId") Long userId);
 }
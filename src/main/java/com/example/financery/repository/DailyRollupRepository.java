@@ -0,0 +1,95 @@
+package com.example.financery.repository;
+
+import com.example.financery.model.DailyRollup;
+import com.example.financery.model.DailyRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, DailyRollupId> {
+
+    // Итоги пользователя по счетам и дням, посчитанные заново по транзакциям
+    String AGGREGATE_BY_DAY = "SELECT t.user_id, t.bill_id, t.date, "
+            + "CAST(ROUND(SUM(CASE WHEN t.type THEN t.amount ELSE 0 END) * 100) AS bigint), "
+            + "CAST(ROUND(SUM(CASE WHEN t.type THEN 0 ELSE t.amount END) * 100) AS bigint), "
+            + "COUNT(*) "
+            + "FROM transaction_table t WHERE t.user_id = :userId "
+            + "GROUP BY t.user_id, t.bill_id, t.date";
+    String SUMMARY_TOTALS = "SUM(r.income_cents), SUM(r.expense_cents), SUM(r.count) ";
+    String SUMMARY_FILTER = "WHERE r.user_id = :userId AND r.day BETWEEN :from AND :to ";
+    // Понедельник ISO-недели: date_trunc('week') в H2 зависит от локали
+    String WEEK_START = "r.day - CAST(EXTRACT(ISODOW FROM r.day) AS int) + 1";
+
+    /**
+     * Прибавляет изменения к итогам дня.
+     *
+     * @return 1, если строка за этот день уже была, иначе 0
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE DailyRollup r SET r.incomeCents = r.incomeCents + :income, "
+            + "r.expenseCents = r.expenseCents + :expense, r.count = r.count + :count "
+            + "WHERE r.id.userId = :userId AND r.id.billId = :billId AND r.id.day = :day")
+    int addToDay(@Param("userId") long userId, @Param("billId") long billId,
+                 @Param("day") LocalDate day, @Param("income") long income,
+                 @Param("expense") long expense, @Param("count") long count);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO daily_rollup "
+            + "(user_id, bill_id, day, income_cents, expense_cents, count) "
+            + "VALUES (:userId, :billId, :day, :income, :expense, :count)", nativeQuery = true)
+    void insertDay(@Param("userId") long userId, @Param("billId") long billId,
+                   @Param("day") LocalDate day, @Param("income") long income,
+                   @Param("expense") long expense, @Param("count") long count);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO daily_rollup "
+            + "(user_id, bill_id, day, income_cents, expense_cents, count) "
+            + AGGREGATE_BY_DAY, nativeQuery = true)
+    int rebuildForUser(@Param("userId") long userId);
+
+    @Query(value = AGGREGATE_BY_DAY, nativeQuery = true)
+    List<Object[]> aggregateForUser(@Param("userId") long userId);
+
+    @Query("SELECT r FROM DailyRollup r WHERE r.id.userId = :userId")
+    List<DailyRollup> findByUserId(@Param("userId") long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DailyRollup r WHERE r.id.userId = :userId")
+    int deleteByUserId(@Param("userId") long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DailyRollup r WHERE r.id.billId = :billId")
+    int deleteByBillId(@Param("billId") long billId);
+
+    @Query(value = "SELECT CAST(date_trunc('month', r.day) AS date), " + SUMMARY_TOTALS
+            + "FROM daily_rollup r " + SUMMARY_FILTER
+            + "GROUP BY CAST(date_trunc('month', r.day) AS date) ORDER BY 1", nativeQuery = true)
+    List<Object[]> summarizeByMonth(@Param("userId") long userId,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    @Query(value = "SELECT " + WEEK_START + ", " + SUMMARY_TOTALS
+            + "FROM daily_rollup r " + SUMMARY_FILTER
+            + "GROUP BY " + WEEK_START + " ORDER BY 1", nativeQuery = true)
+    List<Object[]> summarizeByWeek(@Param("userId") long userId,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query(value = "SELECT b.id, b.name, " + SUMMARY_TOTALS
+            + "FROM daily_rollup r "
+            + "JOIN bill_table b ON b.id = r.bill_id " + SUMMARY_FILTER
+            + "GROUP BY b.id, b.name ORDER BY b.id", nativeQuery = true)
+    List<Object[]> summarizeByBill(@Param("userId") long userId,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+}
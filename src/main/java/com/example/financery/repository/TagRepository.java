@@ -2,12 +2,14 @@ package com.example.financery.repository;
 
 import com.example.financery.model.Tag;
 import com.example.financery.model.Transaction;
+import com.example.financery.utils.TagUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
 
@@ -22,8 +24,22 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
     @Query("SELECT t FROM Transaction t JOIN t.tags tag WHERE tag.id = :tagId")
     List<Transaction> findTransactionsByTag(@Param("tagId") Long tagId);
 
+    // История тегов пользователя для подсказок: по строке на каждую пару транзакция-тег
+    @Query("SELECT new com.example.financery.utils.TagUsage(t.id, t.name, tag.id, tag.title) "
+            + "FROM Transaction t JOIN t.tags tag "
+            + "WHERE t.user.id = :userId "
+            + "ORDER BY t.id")
+    List<TagUsage> findUsagesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT t.user.id FROM Tag t WHERE t.id = :tagId")
+    Optional<Long> findUserIdById(@Param("tagId") Long tagId);
+
     @Modifying
     @Query(value = "DELETE FROM transaction_tag WHERE tag_id = :tagId", nativeQuery = true)
-    void removeTagFromTransactions(Long tagId);
+    int removeTagFromTransactions(@Param("tagId") Long tagId);
+
+    @Modifying
+    @Query(value = "DELETE FROM tag_table WHERE id = :tagId", nativeQuery = true)
+    int deleteTagById(@Param("tagId") Long tagId);
 
 }
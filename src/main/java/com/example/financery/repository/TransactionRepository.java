@@ -1,14 +1,31 @@
 package com.example.financery.repository;
 
 import com.example.financery.model.Transaction;
+import com.example.financery.utils.TransactionCursor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    String PAGE_KEY = "new com.example.financery.utils.TransactionCursor(t.date, t.id)";
+
+    // Ключ (date, id) после курсора. Лишнее условие t.date >= :date задаёт начало
+    // диапазона по индексу, без него OR заставляет читать индекс с самого начала
+    String AFTER_CURSOR = "t.date >= :date AND (t.date > :date OR t.id > :id)";
+
+    // Итоги считает БД: доходы, расходы (в копейках) и количество транзакций группы
+    String SUMMARY_TOTALS = ""
+            + "CAST(ROUND(SUM(CASE WHEN t.type THEN t.amount ELSE 0 END) * 100) AS bigint), "
+            + "CAST(ROUND(SUM(CASE WHEN t.type THEN 0 ELSE t.amount END) * 100) AS bigint), "
+            + "COUNT(*) ";
+    String SUMMARY_FILTER = "WHERE t.user_id = :userId AND t.date BETWEEN :from AND :to ";
+
     @Query(""
             + "SELECT t "
             + "FROM Transaction t "
@@ -25,4 +42,86 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query(value = "SELECT * FROM transaction_table WHERE bill_id = ?1", nativeQuery = true)
     List<Transaction> findByBill(long billId);
+
+    @Query("SELECT DISTINCT t FROM Transaction t "
+            + "LEFT JOIN FETCH t.tags "
+            + "WHERE t.bill.id = :billId")
+    List<Transaction> findByBillIdWithTags(@Param("billId") Long billId);
+
+    @Query("SELECT DISTINCT t FROM Transaction t "
+            + "LEFT JOIN FETCH t.tags "
+            + "WHERE t.bill.id IN :billIds "
+            + "ORDER BY t.date, t.id")
+    List<Transaction> findByBillIdInWithTags(@Param("billIds") Collection<Long> billIds);
+
+    // Различные названия транзакций пользователя и сколько раз каждое встречается
+    @Query("SELECT t.name, COUNT(t) FROM Transaction t "
+            + "WHERE t.user.id = :userId AND t.name IS NOT NULL "
+            + "GROUP BY t.name")
+    List<Object[]> countNamesByUserId(@Param("userId") Long userId);
+
+    // Изменение баланса счёта за каждый день с транзакциями, в копейках
+    @Query(value = "SELECT t.date, "
+            + "CAST(ROUND(SUM(CASE WHEN t.type THEN t.amount ELSE -t.amount END) * 100) "
+            + "AS bigint) "
+            + "FROM transaction_table t WHERE t.bill_id = :billId "
+            + "GROUP BY t.date", nativeQuery = true)
+    List<Object[]> sumByDayForBill(@Param("billId") long billId);
+
+    // Постраничная выдача по ключу (date, id): сначала выбираем только ключи
+    // страницы по индексу, затем догружаем сами транзакции с тегами
+    @Query("SELECT " + PAGE_KEY + " FROM Transaction t "
+            + "WHERE t.user.id = :userId "
+            + "ORDER BY t.date, t.id")
+    List<TransactionCursor> findFirstPageKeysByUserId(@Param("userId") Long userId,
+                                                      Pageable pageable);
+
+    @Query("SELECT " + PAGE_KEY + " FROM Transaction t "
+            + "WHERE t.user.id = :userId "
+            + "AND " + AFTER_CURSOR + " "
+            + "ORDER BY t.date, t.id")
+    List<TransactionCursor> findPageKeysByUserIdAfter(@Param("userId") Long userId,
+                                                      @Param("date") LocalDate date,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    @Query("SELECT " + PAGE_KEY + " FROM Transaction t "
+            + "WHERE t.bill.id = :billId "
+            + "ORDER BY t.date, t.id")
+    List<TransactionCursor> findFirstPageKeysByBillId(@Param("billId") Long billId,
+                                                      Pageable pageable);
+
+    @Query("SELECT " + PAGE_KEY + " FROM Transaction t "
+            + "WHERE t.bill.id = :billId "
+            + "AND " + AFTER_CURSOR + " "
+            + "ORDER BY t.date, t.id")
+    List<TransactionCursor> findPageKeysByBillIdAfter(@Param("billId") Long billId,
+                                                      @Param("date") LocalDate date,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    @Query("SELECT " + PAGE_KEY + " FROM Transaction t ORDER BY t.date, t.id")
+    List<TransactionCursor> findFirstPageKeys(Pageable pageable);
+
+    @Query("SELECT " + PAGE_KEY + " FROM Transaction t "
+            + "WHERE " + AFTER_CURSOR + " "
+            + "ORDER BY t.date, t.id")
+    List<TransactionCursor> findPageKeysAfter(@Param("date") LocalDate date,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t "
+            + "LEFT JOIN FETCH t.tags "
+            + "WHERE t.id IN :ids "
+            + "ORDER BY t.date, t.id")
+    List<Transaction> findAllWithTagsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT tg.id, tg.title, " + SUMMARY_TOTALS
+            + "FROM transaction_table t "
+            + "JOIN transaction_tag tt ON tt.transaction_id = t.id "
+            + "JOIN tag_table tg ON tg.id = tt.tag_id " + SUMMARY_FILTER
+            + "GROUP BY tg.id, tg.title ORDER BY tg.id", nativeQuery = true)
+    List<Object[]> summarizeByTag(@Param("userId") long userId,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
 }
@@ -1,11 +1,41 @@
 package com.example.financery.repository;
 
+import com.example.financery.dto.UserSummaryDto;
 import com.example.financery.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    String SUMMARY = "new com.example.financery.dto.UserSummaryDto("
+            + "u.id, u.name, u.email, u.balance, COUNT(b))";
+
     boolean existsById(Long id);
 
     User findByEmail(String email);
+
+    /**
+     * Атомарно меняет суммарный баланс пользователя на {@code delta} копеек.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.balance = u.balance + :delta, u.version = u.version + 1 "
+            + "WHERE u.id = :userId")
+    int addToBalance(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<Long> findAllIds();
+
+    // Постраничная выдача по id, счета только подсчитываются
+    @Query("SELECT " + SUMMARY + " FROM User u LEFT JOIN u.bills b "
+            + "WHERE u.id > :afterId "
+            + "GROUP BY u.id, u.name, u.email, u.balance "
+            + "ORDER BY u.id")
+    List<UserSummaryDto> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -1,7 +1,10 @@
 package com.example.financery.service;
 
 import com.example.financery.dto.BillDtoRequest;
+import com.example.financery.dto.BalancePointDto;
 import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.BillSummaryDto;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface BillService {
@@ -12,6 +15,15 @@ public interface BillService {
 
     BillDtoResponse getBillById(long id);
 
+    List<BillSummaryDto> getAllBillSummaries();
+
+    List<BillSummaryDto> getBillSummariesByUserId(long userId);
+
+    BillSummaryDto getBillSummaryById(long id);
+
+    List<BalancePointDto> getBalanceTimeline(
+            long billId, LocalDate from, LocalDate to, String step);
+
     BillDtoResponse createBill(BillDtoRequest billDto);
 
     BillDtoResponse updateBill(long billId, BillDtoRequest billDto);
@@ -0,0 +1,19 @@
+package com.example.financery.service;
+
+import com.example.financery.dto.DailyRollupReportDto;
+import com.example.financery.model.Transaction;
+
+import java.util.Collection;
+
+public interface DailyRollupService {
+
+    void add(Transaction transaction);
+
+    void addAll(Collection<Transaction> transactions);
+
+    void remove(Transaction transaction);
+
+    DailyRollupReportDto rebuild();
+
+    DailyRollupReportDto verify();
+}
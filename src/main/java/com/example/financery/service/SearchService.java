@@ -0,0 +1,10 @@
+package com.example.financery.service;
+
+import com.example.financery.dto.AutocompleteItemDto;
+
+import java.util.List;
+
+public interface SearchService {
+
+    List<AutocompleteItemDto> autocomplete(long userId, String prefix, int limit);
+}
@@ -2,6 +2,7 @@ package com.example.financery.service;
 
 import com.example.financery.dto.TagDtoRequest;
 import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TagSuggestionDto;
 import com.example.financery.dto.TransactionDtoResponse;
 import com.example.financery.model.Tag;
 import org.springframework.stereotype.Service;
@@ -20,6 +21,8 @@ public interface TagService {
 
     List<TransactionDtoResponse> getTransactionsByTagId(long tagId);
 
+    List<TagSuggestionDto> suggestTags(long userId, String name, List<Long> tagIds, int limit);
+
     List<Tag> saveAll(List<TagDtoRequest> tagList);
 
     TagDtoResponse createTag(TagDtoRequest tagDto);
@@ -0,0 +1,13 @@
+package com.example.financery.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface TransactionExportService {
+
+    /**
+     * Пишет все транзакции в {@code out} в формате NDJSON: по одному JSON-объекту
+     * {@link com.example.financery.dto.TransactionDtoResponse} на строку.
+     */
+    long exportAll(OutputStream out) throws IOException;
+}
@@ -1,8 +1,12 @@
 package com.example.financery.service;
 
+import com.example.financery.dto.TransactionAnalyticsDto;
 import com.example.financery.dto.TransactionDtoRequest;
 import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionPageDto;
+import com.example.financery.dto.TransactionSummaryDto;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface TransactionService {
@@ -13,10 +17,27 @@ public interface TransactionService {
 
     List<TransactionDtoResponse> getTransactionsByUserId(long userId);
 
+    TransactionPageDto getTransactionsPage(String cursor, int limit);
+
+    TransactionPageDto getTransactionsPageByUserId(long userId, String cursor, int limit);
+
+    TransactionPageDto getTransactionsPageByBillId(long billId, String cursor, int limit);
+
+    TransactionPageDto getTransactionsPageByTags(
+            long userId, List<Long> allTags, List<Long> anyTags, List<Long> noneTags,
+            LocalDate from, LocalDate to, String cursor, int limit);
+
     List<TransactionDtoResponse> getTransactionsByBillId(long userId);
 
+    List<TransactionSummaryDto> getSummary(
+            long userId, LocalDate from, LocalDate to, String groupBy);
+
+    TransactionAnalyticsDto getAnalytics(long userId, LocalDate from, LocalDate to);
+
     TransactionDtoResponse createTransaction(TransactionDtoRequest transactionDto);
 
+    List<TransactionDtoResponse> createTransactions(List<TransactionDtoRequest> transactionDtos);
+
     TransactionDtoResponse updateTransaction(
             long transactionId,
             TransactionDtoRequest transactionDto);
@@ -2,12 +2,15 @@ package com.example.financery.service;
 
 import com.example.financery.dto.UserDtoRequest;
 import com.example.financery.dto.UserDtoResponse;
+import com.example.financery.dto.UserPageDto;
 import com.example.financery.model.User;
 import java.util.List;
 
 public interface UserService {
     List<UserDtoResponse> getAllUsers();
 
+    UserPageDto getUsersPage(String cursor, int limit, String expand);
+
     UserDtoResponse createUser(UserDtoRequest userDtoRequest);
 
     UserDtoResponse getUserById(Long userId);
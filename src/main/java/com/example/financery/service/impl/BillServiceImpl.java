@@ -1,17 +1,34 @@
 package com.example.financery.service.impl;
 
+import com.example.financery.aspect.RetryOnConflict;
+import com.example.financery.dto.BalancePointDto;
 import com.example.financery.dto.BillDtoRequest;
 import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.BillSummaryDto;
 import com.example.financery.exception.InvalidInputException;
 import com.example.financery.exception.NotFoundException;
 import com.example.financery.mapper.BillMapper;
 import com.example.financery.model.Bill;
 import com.example.financery.model.User;
 import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
 import com.example.financery.service.BillService;
+import com.example.financery.utils.AfterCommit;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.DayFenwickTree;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
@@ -24,10 +41,18 @@ public class BillServiceImpl implements BillService {
 
     private static final String USER_NOT_FOUND = "Пользователь с id %d не найден";
     private static final String BILL_NOT_FOUND = "Счет с id %d не найден";
+    public static final int MAX_TIMELINE_POINTS = 1000;
 
     private final BillRepository billRepository;
     private final BillMapper billMapper;
     private final UserRepository userRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final BillBalanceIndex billBalanceIndex;
+    private final InMemoryCache cache;
+    private final TransactionColumnStore columnStore;
+    private final TagSuggestionIndex suggestionIndex;
+    private final AutocompleteIndex autocompleteIndex;
 
     @Override
     @Transactional
@@ -66,6 +91,79 @@ public class BillServiceImpl implements BillService {
     }
 
     @Override
+    @Transactional
+    public List<BillSummaryDto> getAllBillSummaries() {
+        return billRepository.findAllSummaries();
+    }
+
+    @Override
+    @Transactional
+    public List<BillSummaryDto> getBillSummariesByUserId(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format(USER_NOT_FOUND, userId));
+        }
+        return billRepository.findSummariesByUserId(userId);
+    }
+
+    @Override
+    @Transactional
+    public BillSummaryDto getBillSummaryById(long id) {
+        return billRepository.findSummaryById(id)
+                .orElseThrow(() -> new NotFoundException(
+                        String.format(BILL_NOT_FOUND, id)));
+    }
+
+    @Override
+    @Transactional
+    public List<BalancePointDto> getBalanceTimeline(
+            long billId, LocalDate from, LocalDate to, String step) {
+        if (from.isAfter(to)) {
+            throw new InvalidInputException("Дата начала периода позже даты окончания");
+        }
+        Period period = switch (step) {
+            case "day" -> Period.ofDays(1);
+            case "week" -> Period.ofWeeks(1);
+            case "month" -> Period.ofMonths(1);
+            default -> throw new InvalidInputException(
+                    "Неизвестный шаг: " + step + ", используй day, week или month");
+        };
+        Bill bill = billRepository.findById(billId)
+                .orElseThrow(() -> new NotFoundException(
+                        String.format(BILL_NOT_FOUND, billId)));
+
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = from; date.isBefore(to); date = date.plus(period)) {
+            dates.add(date);
+            if (dates.size() >= MAX_TIMELINE_POINTS) {
+                throw new InvalidInputException(
+                        "История баланса не может содержать больше "
+                                + MAX_TIMELINE_POINTS + " точек, увеличь шаг");
+            }
+        }
+        dates.add(to);
+
+        // Баланс на конец дня - текущий баланс без изменений, внесённых позже этого дня
+        DayFenwickTree changes = billBalanceIndex.getOrLoad(billId,
+                () -> loadDailyChanges(billId));
+        long opening = bill.getBalance() - changes.total();
+        List<BalancePointDto> timeline = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            timeline.add(new BalancePointDto(date, opening + changes.sumThrough(date)));
+        }
+        return timeline;
+    }
+
+    private Map<LocalDate, Long> loadDailyChanges(long billId) {
+        Map<LocalDate, Long> changes = new HashMap<>();
+        for (Object[] row : transactionRepository.sumByDayForBill(billId)) {
+            LocalDate day = row[0] instanceof Date date ? date.toLocalDate() : (LocalDate) row[0];
+            changes.put(day, ((Number) row[1]).longValue());
+        }
+        return changes;
+    }
+
+    @Override
+    @Transactional
     public BillDtoResponse createBill(BillDtoRequest billDto) {
         if (billDto.getBalance() < 0) {
             throw new InvalidInputException(
@@ -82,14 +180,15 @@ public class BillServiceImpl implements BillService {
 
         Bill bill = billMapper.toBill(billDto);
 
-        user.setBalance(user.getBalance() + bill.getBalance());
         bill.setUser(user);
         billRepository.save(bill);
+        userRepository.addToBalance(user.getId(), bill.getBalance());
 
         return billMapper.toBillDto(bill);
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public BillDtoResponse updateBill(long billId, BillDtoRequest billDto) {
         if (billDto.getBalance() < 0) {
@@ -99,7 +198,9 @@ public class BillServiceImpl implements BillService {
             throw new InvalidInputException("Имя счёта не может быть пустым");
         }
 
-        Bill bill = billRepository.findById(billId)
+        // Строка счёта блокируется до конца транзакции: разница с новым балансом
+        // считается от актуального значения, и параллельные транзакции счёта её не изменят
+        Bill bill = billRepository.lockById(billId)
                 .orElseThrow(() -> new NotFoundException(
                         String.format(BILL_NOT_FOUND, billId)));
 
@@ -107,20 +208,25 @@ public class BillServiceImpl implements BillService {
                 .orElseThrow(() -> new NotFoundException(
                         String.format(USER_NOT_FOUND, billDto.getUserId())));
 
-        double currentBalance = bill.getBalance();
-
         bill.setName(billDto.getName());
-        bill.setBalance(billDto.getBalance());
 
-        double newBalance = user.getBalance() - currentBalance + billDto.getBalance();
-        user.setBalance(newBalance);
+        BillDtoResponse billResponse = billMapper.toBillDto(bill);
+        billResponse.setBalance(billDto.getBalance());
 
-        userRepository.save(user);
-        billRepository.save(bill);
+        long delta = billDto.getBalance() - bill.getBalance();
+        if (delta != 0) {
+            if (billRepository.addToBalance(billId, delta) == 0) {
+                throw new InvalidInputException("Баланс счёта не может быть отрицательным");
+            }
+            userRepository.addToBalance(user.getId(), delta);
+        }
 
-        return billMapper.toBillDto(bill);
+        return billResponse;
     }
 
+    @Override
+    @RetryOnConflict
+    @Transactional
     public void deleteBill(long billId) {
         Bill bill = billRepository.findById(billId)
                 .orElseThrow(() -> new NotFoundException(
@@ -130,10 +236,20 @@ public class BillServiceImpl implements BillService {
                 .orElseThrow(() -> new NotFoundException(
                         String.format(USER_NOT_FOUND, bill.getUser().getId())));
 
-        user.setBalance(user.getBalance() - bill.getBalance());
-
-        userRepository.save(user);
+        userRepository.addToBalance(user.getId(), -bill.getBalance());
+        dailyRollupRepository.deleteByBillId(billId);
         billRepository.deleteById(billId);
+
+        // Вместе со счётом удалены его транзакции, поэтому данные владельца в памяти
+        // устарели целиком
+        long userId = user.getId();
+        AfterCommit.run(() -> {
+            billBalanceIndex.clearForBill(billId);
+            cache.clearForUser(userId);
+            columnStore.clearForUser(userId);
+            suggestionIndex.clearForUser(userId);
+            autocompleteIndex.clearForUser(userId);
+        });
     }
 
 }
@@ -0,0 +1,204 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.DailyRollupReportDto;
+import com.example.financery.model.DailyRollup;
+import com.example.financery.model.DailyRollupId;
+import com.example.financery.model.Transaction;
+import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.UserRepository;
+import com.example.financery.service.DailyRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Поддерживает таблицу дневных итогов в актуальном состоянии.
+ *
+ * <p>Изменения итогов выполняются в транзакции вызывающего сервиса. Пересчёт
+ * и сверка обрабатывают пользователей параллельно, каждого в своей транзакции.
+ */
+@Service
+public class DailyRollupServiceImpl implements DailyRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRollupServiceImpl.class);
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final UserRepository userRepository;
+    private final BillRepository billRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int rebuildThreads;
+
+    public DailyRollupServiceImpl(
+            DailyRollupRepository dailyRollupRepository,
+            UserRepository userRepository,
+            BillRepository billRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.rollup.rebuild-threads:4}") int rebuildThreads) {
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.userRepository = userRepository;
+        this.billRepository = billRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.rebuildThreads = rebuildThreads;
+    }
+
+    @Override
+    public void add(Transaction transaction) {
+        record(transaction, 1);
+    }
+
+    @Override
+    public void addAll(Collection<Transaction> transactions) {
+        // Транзакции одного счёта за один день сливаются в одно изменение
+        Map<DailyRollupId, long[]> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            long[] delta = deltas.computeIfAbsent(idOf(transaction), id -> new long[3]);
+            delta[transaction.isType() ? 0 : 1] += transaction.getAmount();
+            delta[2]++;
+        }
+        deltas.forEach((id, delta) -> apply(id, delta[0], delta[1], delta[2]));
+    }
+
+    @Override
+    public void remove(Transaction transaction) {
+        record(transaction, -1);
+    }
+
+    @Override
+    public DailyRollupReportDto rebuild() {
+        DailyRollupReportDto report = forEachUser(userId -> transactionTemplate.execute(status -> {
+            // Блокировка счетов не даёт записям пользователя вклиниться в пересчёт
+            billRepository.lockByUserId(userId);
+            dailyRollupRepository.deleteByUserId(userId);
+            return (long) dailyRollupRepository.rebuildForUser(userId);
+        }));
+        log.info("Дневные итоги пересчитаны: пользователей {}, строк {}, за {} мс",
+                report.getUsers(), report.getRows(), report.getElapsedMs());
+        return report;
+    }
+
+    @Override
+    public DailyRollupReportDto verify() {
+        DailyRollupReportDto report = forEachUser(userId ->
+                readOnlyTemplate.execute(status -> compare(userId)));
+        log.info("Дневные итоги сверены: пользователей {}, расхождений {}",
+                report.getUsers(), report.getMismatchedUserIds().size());
+        return report;
+    }
+
+    private void record(Transaction transaction, int sign) {
+        long amount = sign * transaction.getAmount();
+        apply(idOf(transaction),
+                transaction.isType() ? amount : 0,
+                transaction.isType() ? 0 : amount,
+                sign);
+    }
+
+    private void apply(DailyRollupId id, long income, long expense, long count) {
+        if (dailyRollupRepository.addToDay(id.getUserId(), id.getBillId(), id.getDay(),
+                income, expense, count) > 0) {
+            return;
+        }
+        try {
+            dailyRollupRepository.insertDay(id.getUserId(), id.getBillId(), id.getDay(),
+                    income, expense, count);
+        } catch (DataIntegrityViolationException e) {
+            // Строку за этот день успела вставить параллельная транзакция, запись повторится
+            throw new OptimisticLockingFailureException(
+                    "Параллельная запись итогов за " + id.getDay(), e);
+        }
+    }
+
+    /**
+     * Возвращает количество сверенных строк или -1, если итоги пользователя расходятся.
+     */
+    private long compare(long userId) {
+        Map<DailyRollupId, List<Long>> expected = new HashMap<>();
+        for (Object[] row : dailyRollupRepository.aggregateForUser(userId)) {
+            expected.put(new DailyRollupId(((Number) row[0]).longValue(),
+                            ((Number) row[1]).longValue(), toLocalDate(row[2])),
+                    List.of(((Number) row[3]).longValue(), ((Number) row[4]).longValue(),
+                            ((Number) row[5]).longValue()));
+        }
+        Map<DailyRollupId, List<Long>> actual = new HashMap<>();
+        for (DailyRollup rollup : dailyRollupRepository.findByUserId(userId)) {
+            // Дни, все транзакции которых удалены, остаются нулевыми строками
+            if (rollup.getCount() != 0 || rollup.getIncomeCents() != 0
+                    || rollup.getExpenseCents() != 0) {
+                actual.put(rollup.getId(), List.of(rollup.getIncomeCents(),
+                        rollup.getExpenseCents(), rollup.getCount()));
+            }
+        }
+        if (!expected.equals(actual)) {
+            log.warn("Дневные итоги пользователя {} расходятся с транзакциями", userId);
+            return -1;
+        }
+        return actual.size();
+    }
+
+    private DailyRollupReportDto forEachUser(LongFunction<Long> task) {
+        long started = System.nanoTime();
+        List<Long> userIds = userRepository.findAllIds();
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Long>> results = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                results.add(executor.submit(() -> task.apply(userId)));
+            }
+            long rows = 0;
+            List<Long> mismatched = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                long result = results.get(i).get();
+                if (result < 0) {
+                    mismatched.add(userIds.get(i));
+                } else {
+                    rows += result;
+                }
+            }
+            return new DailyRollupReportDto(userIds.size(), rows, mismatched,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Обработка дневных итогов прервана");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ошибка обработки дневных итогов", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DailyRollupId idOf(Transaction transaction) {
+        return new DailyRollupId(transaction.getUser().getId(), transaction.getBill().getId(),
+                transaction.getDate());
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
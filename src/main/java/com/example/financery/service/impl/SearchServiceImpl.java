@@ -0,0 +1,55 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.AutocompleteItemDto;
+import com.example.financery.exception.InvalidInputException;
+import com.example.financery.exception.NotFoundException;
+import com.example.financery.model.Tag;
+import com.example.financery.repository.TagRepository;
+import com.example.financery.repository.TransactionRepository;
+import com.example.financery.repository.UserRepository;
+import com.example.financery.service.SearchService;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.PrefixIndex;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+public class SearchServiceImpl implements SearchService {
+
+    public static final int MAX_AUTOCOMPLETE = 50;
+
+    private final UserRepository userRepository;
+    private final TagRepository tagRepository;
+    private final TransactionRepository transactionRepository;
+    private final AutocompleteIndex autocompleteIndex;
+
+    @Override
+    public List<AutocompleteItemDto> autocomplete(long userId, String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new InvalidInputException("Префикс для поиска не может быть пустым");
+        }
+        if (limit < 1 || limit > MAX_AUTOCOMPLETE) {
+            throw new InvalidInputException(
+                    "Количество подсказок должно быть от 1 до " + MAX_AUTOCOMPLETE);
+        }
+        // Названия читаются из БД только при первом запросе, дальше индекс живёт в памяти
+        return autocompleteIndex.search(userId, prefix, limit, () -> loadIndex(userId));
+    }
+
+    private PrefixIndex loadIndex(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format("Пользователь с id %d не найден", userId));
+        }
+        Map<Long, String> tagTitles = tagRepository.findByUser(userId).stream()
+                .collect(Collectors.toMap(Tag::getId, Tag::getTitle));
+        Map<String, Long> nameCounts = transactionRepository.countNamesByUserId(userId).stream()
+                .collect(Collectors.toMap(row -> (String) row[0],
+                        row -> ((Number) row[1]).longValue()));
+        return PrefixIndex.of(tagTitles, nameCounts);
+    }
+}
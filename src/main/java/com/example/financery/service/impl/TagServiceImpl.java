@@ -2,6 +2,7 @@ package com.example.financery.service.impl;
 
 import com.example.financery.dto.TagDtoRequest;
 import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TagSuggestionDto;
 import com.example.financery.dto.TransactionDtoResponse;
 import com.example.financery.exception.AlreadyExistsException;
 import com.example.financery.exception.InvalidInputException;
@@ -9,16 +10,17 @@ import com.example.financery.exception.NotFoundException;
 import com.example.financery.mapper.TagMapper;
 import com.example.financery.mapper.TransactionMapper;
 import com.example.financery.model.Tag;
-import com.example.financery.model.Transaction;
 import com.example.financery.model.User;
 import com.example.financery.repository.TagRepository;
-import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
 import com.example.financery.service.TagService;
+import com.example.financery.utils.AfterCommit;
+import com.example.financery.utils.AutocompleteIndex;
 import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
-import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -31,14 +33,17 @@ import java.util.stream.Collectors;
 public class TagServiceImpl implements TagService {
 
     public static final String TAG_WITH_ID_NOT_FOUND = "Тег с id %d не найден";
+    public static final int MAX_SUGGESTIONS = 20;
 
     private final TagRepository tagRepository;
     private final TagMapper tagMapper;
     private final TransactionMapper transactionMapper;
     private final UserRepository userRepository;
-    private final TransactionRepository transactionRepository;
 
     private final InMemoryCache cache;
+    private final TransactionColumnStore columnStore;
+    private final TagSuggestionIndex suggestionIndex;
+    private final AutocompleteIndex autocompleteIndex;
 
     @Override
     public List<TagDtoResponse> getAllTags() {
@@ -88,6 +93,25 @@ public class TagServiceImpl implements TagService {
     }
 
     @Override
+    public List<TagSuggestionDto> suggestTags(
+            long userId, String name, List<Long> tagIds, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new InvalidInputException(
+                    "Количество подсказок должно быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        // История читается только при первом запросе, дальше статистика живёт в памяти
+        return suggestionIndex.suggest(userId, name, tagIds != null ? tagIds : List.of(), limit,
+                () -> {
+                    if (!userRepository.existsById(userId)) {
+                        throw new NotFoundException(
+                                String.format("Пользователь с id %d не найден", userId));
+                    }
+                    return tagRepository.findUsagesByUserId(userId);
+                });
+    }
+
+    @Override
+    @Transactional
     public List<Tag> saveAll(List<TagDtoRequest> tagList) {
         List<Long> userIds = tagList.stream()
                 .map(TagDtoRequest::getUserId)
@@ -108,10 +132,14 @@ public class TagServiceImpl implements TagService {
                     return tag;
                 })
                 .toList();
-        return tagRepository.saveAll(tags);
+        List<Tag> saved = tagRepository.saveAll(tags);
+        AfterCommit.run(() -> saved.forEach(tag ->
+                autocompleteIndex.addTag(tag.getUser().getId(), tag.getId(), tag.getTitle())));
+        return saved;
     }
 
     @Override
+    @Transactional
     public TagDtoResponse createTag(TagDtoRequest tagDto) {
         User user = userRepository.findById(tagDto.getUserId())
                 .orElseThrow(() -> new NotFoundException(
@@ -122,11 +150,16 @@ public class TagServiceImpl implements TagService {
         Tag tag = tagMapper.toTag(tagDto);
         tag.setUser(user);
         tagRepository.save(tag);
+        long userId = user.getId();
+        long tagId = tag.getId();
+        String title = tag.getTitle();
+        AfterCommit.run(() -> autocompleteIndex.addTag(userId, tagId, title));
 
         return tagMapper.toTagDto(tag);
     }
 
     @Override
+    @Transactional
     public TagDtoResponse updateTag(long id, TagDtoRequest tagDto) {
         Tag tag = tagRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(
@@ -140,15 +173,15 @@ public class TagServiceImpl implements TagService {
         tag.setTitle(tagDto.getTitle());
         tagRepository.save(tag);
 
-        List<TransactionDtoResponse> transactions = getTransactionsByTagId(id);
-        for (TransactionDtoResponse transaction : transactions) {
-            cache.updateTransaction(userId, transactionMapper.toTransactionDto(
-                    transactionRepository
-                            .findById(transaction
-                                    .getId())
-                            .orElseThrow(() -> new NotFoundException(
-                                    "Транзакция не найдена"))));
-        }
+        // Транзакции в БД ссылаются на тег по id и не перечитываются,
+        // структуры в памяти переименовывают тег сами
+        String title = tag.getTitle();
+        AfterCommit.run(() -> {
+            cache.renameTag(userId, id, title);
+            columnStore.renameTag(userId, id, title);
+            suggestionIndex.renameTag(userId, id, title);
+            autocompleteIndex.addTag(userId, id, title);
+        });
 
         return tagMapper.toTagDto(tag);
     }
@@ -156,26 +189,19 @@ public class TagServiceImpl implements TagService {
     @Override
     @Transactional
     public void deleteTag(long id) {
-        Tag tag = tagRepository.findById(id)
+        Long userId = tagRepository.findUserIdById(id)
                 .orElseThrow(() -> new NotFoundException(
                         String.format(TAG_WITH_ID_NOT_FOUND, id)));
-        Long userId = tag.getUser().getId();
 
-        List<Transaction> transactions = tagRepository.findTransactionsByTag(id);
-        List<TransactionDtoResponse> transactionDtos = new ArrayList<>();
-
-        for (Transaction transaction : transactions) {
-            Hibernate.initialize(transaction.getTags());
-            transaction.getTags().removeIf(t -> t.getId().equals(id));
-            transactionDtos.add(transactionMapper.toTransactionDto(transaction));
-        }
-
-        transactionRepository.saveAll(transactions);
-
-        for (TransactionDtoResponse transaction : transactionDtos) {
-            cache.updateTransaction(userId, transaction);
-        }
+        // Связи и сам тег удаляются двумя запросами без загрузки транзакций
+        tagRepository.removeTagFromTransactions(id);
+        tagRepository.deleteTagById(id);
 
-        tagRepository.delete(tag);
+        AfterCommit.run(() -> {
+            cache.removeTag(userId, id);
+            columnStore.removeTag(userId, id);
+            suggestionIndex.removeTag(userId, id);
+            autocompleteIndex.removeTag(userId, id);
+        });
     }
-}
\ No newline at end of file
+}
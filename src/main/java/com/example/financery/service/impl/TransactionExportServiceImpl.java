@@ -0,0 +1,134 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.service.TransactionExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Потоковая выгрузка транзакций без загрузки всей таблицы в память.
+ *
+ * <p>Строки читаются серверным курсором через {@link StatelessSession}, поэтому
+ * Hibernate не держит их в контексте персистентности. Теги догружаются одним
+ * запросом на пачку транзакций, после чего пачка сразу пишется в ответ.
+ */
+@Service
+public class TransactionExportServiceImpl implements TransactionExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionExportServiceImpl.class);
+
+    private static final String ROWS_QUERY = "SELECT t.id, t.name, t.description, t.type, "
+            + "t.amount, t.date, t.user.id, t.bill.id "
+            + "FROM Transaction t ORDER BY t.id";
+    private static final String TAGS_QUERY = "SELECT t.id, tag.id, tag.title, tag.user.id "
+            + "FROM Transaction t JOIN t.tags tag "
+            + "WHERE t.id IN :ids";
+
+    private final SessionFactory sessionFactory;
+    private final ObjectWriter writer;
+    private final int fetchSize;
+    private final int batchSize;
+
+    public TransactionExportServiceImpl(
+            EntityManagerFactory entityManagerFactory,
+            ObjectMapper objectMapper,
+            @Value("${app.export.transactions.fetch-size:1000}") int fetchSize,
+            @Value("${app.export.transactions.batch-size:500}") int batchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.writer = objectMapper.writerFor(TransactionDtoResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long exportAll(OutputStream out) throws IOException {
+        long exported = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // Без транзакции драйвер PostgreSQL игнорирует fetch size и читает всё сразу
+            org.hibernate.Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<Object[]> rows = session
+                    .createQuery(ROWS_QUERY, Object[].class)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<TransactionDtoResponse> batch = new ArrayList<>(batchSize);
+                while (rows.next()) {
+                    batch.add(toDto(rows.get()));
+                    if (batch.size() == batchSize) {
+                        exported += writeBatch(session, batch, out);
+                        batch.clear();
+                    }
+                }
+                exported += writeBatch(session, batch, out);
+            } finally {
+                // Выгрузка ничего не меняет, фиксировать нечего
+                transaction.rollback();
+            }
+        }
+        log.info("Выгружено {} транзакций", exported);
+        return exported;
+    }
+
+    private int writeBatch(StatelessSession session, List<TransactionDtoResponse> batch,
+                           OutputStream out) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, TransactionDtoResponse> byId = new HashMap<>();
+        batch.forEach(transaction -> byId.put(transaction.getId(), transaction));
+        session.createQuery(TAGS_QUERY, Object[].class)
+                .setParameterList("ids", byId.keySet())
+                .setReadOnly(true)
+                .getResultList()
+                .forEach(row -> byId.get((Long) row[0]).getTags().add(toTagDto(row)));
+
+        for (TransactionDtoResponse transaction : batch) {
+            writer.writeValue(out, transaction);
+            out.write('\n');
+        }
+        out.flush();
+        return batch.size();
+    }
+
+    private static TransactionDtoResponse toDto(Object[] row) {
+        TransactionDtoResponse transaction = new TransactionDtoResponse();
+        transaction.setId((Long) row[0]);
+        transaction.setName((String) row[1]);
+        transaction.setDescription((String) row[2]);
+        transaction.setType((Boolean) row[3]);
+        transaction.setAmount((Long) row[4]);
+        transaction.setDate((LocalDate) row[5]);
+        transaction.setUserId((Long) row[6]);
+        transaction.setBillId((Long) row[7]);
+        transaction.setTags(new ArrayList<>());
+        return transaction;
+    }
+
+    private static TagDtoResponse toTagDto(Object[] row) {
+        TagDtoResponse tag = new TagDtoResponse();
+        tag.setId((Long) row[1]);
+        tag.setTitle((String) row[2]);
+        tag.setUserId((Long) row[3]);
+        return tag;
+    }
+}
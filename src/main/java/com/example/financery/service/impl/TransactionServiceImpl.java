@@ -1,8 +1,12 @@
 package com.example.financery.service.impl;
 
+import com.example.financery.aspect.RetryOnConflict;
 import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.TransactionAnalyticsDto;
 import com.example.financery.dto.TransactionDtoRequest;
 import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionPageDto;
+import com.example.financery.dto.TransactionSummaryDto;
 import com.example.financery.exception.InvalidInputException;
 import com.example.financery.exception.NotFoundException;
 import com.example.financery.mapper.TransactionMapper;
@@ -11,20 +15,40 @@ import com.example.financery.model.Tag;
 import com.example.financery.model.Transaction;
 import com.example.financery.model.User;
 import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
 import com.example.financery.repository.TagRepository;
 import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
+import com.example.financery.service.DailyRollupService;
 import com.example.financery.service.TransactionService;
+import com.example.financery.utils.AfterCommit;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.BillLockManager;
 import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.Money;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import com.example.financery.utils.TransactionColumns;
+import com.example.financery.utils.TransactionCursor;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,15 +58,32 @@ public class TransactionServiceImpl implements TransactionService {
     public static final String TRANSACTION_WITH_ID_NOT_FOUND = "Транзакция с id %d не найдена";
     public static final String USER_WITH_ID_NOT_FOUND = "Пользователь с id %d не найден";
     public static final String BILL_WITH_ID_NOT_FOUND = "Счет с id %d не найден";
+    public static final int MAX_PAGE_SIZE = 500;
+    // Больше строк за раз держали бы блокировки всех счетов пачки слишком долго
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final long MAX_AMOUNT = Money.toCents(1_000_000);
 
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
     private final UserRepository userRepository;
     private final BillRepository billRepository;
     private final TagRepository tagRepository;
+    private final DailyRollupRepository dailyRollupRepository;
 
     private final InMemoryCache cache;
 
+    private final TransactionColumnStore columnStore;
+
+    private final BillBalanceIndex billBalanceIndex;
+
+    private final TagSuggestionIndex suggestionIndex;
+
+    private final AutocompleteIndex autocompleteIndex;
+
+    private final BillLockManager billLockManager;
+
+    private final DailyRollupService dailyRollupService;
+
     private static final Logger log = LoggerFactory.getLogger(TransactionServiceImpl.class);
 
     @Override
@@ -74,24 +115,195 @@ public class TransactionServiceImpl implements TransactionService {
             throw new NotFoundException(String.format(USER_WITH_ID_NOT_FOUND, userId));
         }
 
-        // Проверяем, есть ли в кэше
-        List<TransactionDtoResponse> cachedTransactions = cache.get(userId);
-        if (cachedTransactions != null) {
-            return cachedTransactions;
+        return loadUserTransactions(userId);
+    }
+
+    private List<TransactionDtoResponse> loadUserTransactions(long userId) {
+        // Одновременные промахи по одному пользователю обслуживаются одной загрузкой
+        return cache.getOrLoad(userId, () -> {
+            List<Transaction> transactions = transactionRepository.findByUserId(userId);
+            List<TransactionDtoResponse> transactionsResponse = transactions.stream()
+                    .map(transactionMapper::toTransactionDto)
+                    .toList();
+
+            log.info("Сопоставлено {} транзакций для пользователя: {}",
+                    transactionsResponse.size(), userId);
+            return transactionsResponse;
+        });
+    }
+
+    @Override
+    @Transactional
+    public TransactionPageDto getTransactionsPage(String cursor, int limit) {
+        checkPageSize(limit);
+        // Берём на одну запись больше, чтобы узнать, есть ли следующая страница
+        PageRequest page = PageRequest.ofSize(limit + 1);
+        List<TransactionCursor> keys;
+        if (cursor == null || cursor.isEmpty()) {
+            keys = transactionRepository.findFirstPageKeys(page);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            keys = transactionRepository.findPageKeysAfter(after.date(), after.id(), page);
         }
+        return toPage(keys, limit);
+    }
 
-        List<Transaction> transactions = transactionRepository.findByUserId(userId);
-        // Преобразуем в изменяемый список
-        List<TransactionDtoResponse> transactionsResponse = new ArrayList<>(
-                transactions.stream()
-                        .map(transactionMapper::toTransactionDto)
-                        .toList()
-        );
+    @Override
+    @Transactional
+    public TransactionPageDto getTransactionsPageByUserId(long userId, String cursor, int limit) {
+        checkPageSize(limit);
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format(USER_WITH_ID_NOT_FOUND, userId));
+        }
+        PageRequest page = PageRequest.ofSize(limit + 1);
+        List<TransactionCursor> keys;
+        if (cursor == null || cursor.isEmpty()) {
+            keys = transactionRepository.findFirstPageKeysByUserId(userId, page);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            keys = transactionRepository.findPageKeysByUserIdAfter(
+                    userId, after.date(), after.id(), page);
+        }
+        return toPage(keys, limit);
+    }
 
-        log.info("Сопоставлено {} транзакций для пользователя: {}",
-                transactionsResponse.size(), userId);
-        cache.put(userId, transactionsResponse);
-        return transactionsResponse;
+    @Override
+    @Transactional
+    public TransactionPageDto getTransactionsPageByBillId(long billId, String cursor, int limit) {
+        checkPageSize(limit);
+        if (!billRepository.existsById(billId)) {
+            throw new NotFoundException(String.format(BILL_WITH_ID_NOT_FOUND, billId));
+        }
+        PageRequest page = PageRequest.ofSize(limit + 1);
+        List<TransactionCursor> keys;
+        if (cursor == null || cursor.isEmpty()) {
+            keys = transactionRepository.findFirstPageKeysByBillId(billId, page);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            keys = transactionRepository.findPageKeysByBillIdAfter(
+                    billId, after.date(), after.id(), page);
+        }
+        return toPage(keys, limit);
+    }
+
+    @Override
+    @Transactional
+    public TransactionPageDto getTransactionsPageByTags(
+            long userId, List<Long> allTags, List<Long> anyTags, List<Long> noneTags,
+            LocalDate from, LocalDate to, String cursor, int limit) {
+        checkPageSize(limit);
+        List<Long> all = allTags != null ? allTags : List.of();
+        List<Long> any = anyTags != null ? anyTags : List.of();
+        List<Long> none = noneTags != null ? noneTags : List.of();
+        if (all.isEmpty() && any.isEmpty() && none.isEmpty()) {
+            throw new InvalidInputException("Не указано ни одного тега для отбора");
+        }
+        if (from.isAfter(to)) {
+            throw new InvalidInputException("Дата начала периода позже даты окончания");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format(USER_WITH_ID_NOT_FOUND, userId));
+        }
+
+        // Отбор идёт по битовым картам тегов в памяти, из БД догружается только страница
+        TransactionColumns columns = columnStore.getOrLoadForTagFilter(userId,
+                () -> loadUserTransactions(userId));
+        TransactionCursor after = cursor == null || cursor.isEmpty()
+                ? null : TransactionCursor.decode(cursor);
+        List<TransactionCursor> keys = columns.findByTags(
+                from, to, all, any, none, after, limit + 1);
+        return toPage(keys, limit);
+    }
+
+    private void checkPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidInputException(
+                    "Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private TransactionPageDto toPage(List<TransactionCursor> keys, int limit) {
+        boolean hasNext = keys.size() > limit;
+        List<TransactionCursor> pageKeys = hasNext ? keys.subList(0, limit) : keys;
+        if (pageKeys.isEmpty()) {
+            return new TransactionPageDto(new ArrayList<>(), null);
+        }
+
+        Map<Long, Transaction> loaded = transactionRepository
+                .findAllWithTagsByIdIn(pageKeys.stream().map(TransactionCursor::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        List<TransactionDtoResponse> items = new ArrayList<>(pageKeys.size());
+        for (TransactionCursor key : pageKeys) {
+            // Транзакция могла быть удалена между двумя запросами
+            Transaction transaction = loaded.get(key.id());
+            if (transaction != null) {
+                items.add(transactionMapper.toTransactionDto(transaction));
+            }
+        }
+
+        String nextCursor = hasNext ? pageKeys.get(pageKeys.size() - 1).encode() : null;
+        log.info("Сформирована страница из {} транзакций", items.size());
+        return new TransactionPageDto(items, nextCursor);
+    }
+
+    @Override
+    @Transactional
+    public List<TransactionSummaryDto> getSummary(
+            long userId, LocalDate from, LocalDate to, String groupBy) {
+        if (from.isAfter(to)) {
+            throw new InvalidInputException("Дата начала периода позже даты окончания");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format(USER_WITH_ID_NOT_FOUND, userId));
+        }
+
+        // Группировка и суммирование выполняются в БД, в ответ уходят только итоги.
+        // Периоды и счета читаются из дневных итогов, теги - из самих транзакций
+        List<Object[]> rows = switch (groupBy) {
+            case "month" -> dailyRollupRepository.summarizeByMonth(userId, from, to);
+            case "week" -> dailyRollupRepository.summarizeByWeek(userId, from, to);
+            case "tag" -> transactionRepository.summarizeByTag(userId, from, to);
+            case "bill" -> dailyRollupRepository.summarizeByBill(userId, from, to);
+            default -> throw new InvalidInputException(
+                    "Неизвестная группировка: " + groupBy + ", используй month, week, tag или bill");
+        };
+        boolean byPeriod = "month".equals(groupBy) || "week".equals(groupBy);
+        List<TransactionSummaryDto> summary = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            String key = byPeriod ? toLocalDate(row[0]).toString() : row[0].toString();
+            String name = byPeriod ? key : (String) row[1];
+            int totals = byPeriod ? 1 : 2;
+            summary.add(new TransactionSummaryDto(key, name,
+                    ((Number) row[totals]).longValue(),
+                    ((Number) row[totals + 1]).longValue(),
+                    ((Number) row[totals + 2]).longValue()));
+        }
+        log.info("Сформировано {} итогов по группировке {} для пользователя: {}",
+                summary.size(), groupBy, userId);
+        return summary;
+    }
+
+    @Override
+    @Transactional
+    public TransactionAnalyticsDto getAnalytics(long userId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidInputException("Дата начала периода позже даты окончания");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format(USER_WITH_ID_NOT_FOUND, userId));
+        }
+
+        TransactionColumns columns = columnStore.getOrLoad(userId,
+                () -> loadUserTransactions(userId));
+        return new TransactionAnalyticsDto(
+                columns.totals(from, to),
+                columns.tagTotals(from, to),
+                columns.runningBalance(from, to, null));
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
     }
 
     @Override
@@ -101,22 +313,18 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new NotFoundException(
                         String.format(BILL_WITH_ID_NOT_FOUND, billId)));
 
-        List<Transaction> transactions = transactionRepository.findByBill(billId);
-        List<TransactionDtoResponse> transactionsResponse = new ArrayList<>();
-
-        transactions.forEach(
-                transaction -> {
-                    Hibernate.initialize(transaction.getTags());
-                    transactionsResponse.add(transactionMapper.toTransactionDto(transaction));
-                });
-        return transactionsResponse;
+        // Транзакции счёта и их теги загружаются одним запросом
+        return transactionRepository.findByBillIdWithTags(billId).stream()
+                .map(transactionMapper::toTransactionDto)
+                .toList();
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public TransactionDtoResponse createTransaction(TransactionDtoRequest transactionDto) {
         // Проверяем сумму транзакции перед обращением к репозиториям
-        if (transactionDto.getAmount() > 1_000_000) {
+        if (transactionDto.getAmount() > MAX_AMOUNT) {
             throw new InvalidInputException("Сумма транзакции не может превышать 1,000,000");
         }
 
@@ -135,15 +343,9 @@ public class TransactionServiceImpl implements TransactionService {
 
         Transaction transaction = TransactionMapper.toTransaction(transactionDto);
 
-        if (!transaction.isType() && transaction.getAmount() > bill.getBalance()) {
-            throw new InvalidInputException("Недостаточно средств на счете для суммы транзакции");
-        }
-
-        if (transaction.isType()) {
-            bill.addAmount(transaction.getAmount());
-        } else {
-            bill.subtractAmount(transaction.getAmount());
-        }
+        applyBalanceDelta(bill,
+                transaction.isType() ? transaction.getAmount() : -transaction.getAmount(),
+                "Недостаточно средств на счете для суммы транзакции");
 
         transaction.setUser(user);
         transaction.setBill(bill);
@@ -162,11 +364,149 @@ public class TransactionServiceImpl implements TransactionService {
         }
 
         transactionRepository.save(transaction);
-        cache.updateTransaction(user.getId(), transactionMapper.toTransactionDto(transaction));
-        return transactionMapper.toTransactionDto(transaction);
+        dailyRollupService.add(transaction);
+        TransactionDtoResponse transactionResponse = transactionMapper.toTransactionDto(transaction);
+        AfterCommit.run(() -> {
+            cache.updateTransaction(user.getId(), transactionResponse);
+            columnStore.updateTransaction(user.getId(), transactionResponse);
+            suggestionIndex.updateTransaction(user.getId(), transactionResponse);
+            autocompleteIndex.addName(user.getId(), transactionResponse.getName());
+            billBalanceIndex.add(bill.getId(), transaction.getDate(),
+                    balanceDelta(transaction));
+        });
+        return transactionResponse;
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
+    public List<TransactionDtoResponse> createTransactions(
+            List<TransactionDtoRequest> transactionDtos) {
+        if (transactionDtos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (transactionDtos.size() > MAX_BATCH_SIZE) {
+            throw new InvalidInputException(
+                    "За один запрос можно создать не более " + MAX_BATCH_SIZE + " транзакций");
+        }
+        Set<Long> userIds = new LinkedHashSet<>();
+        Set<Long> billIds = new LinkedHashSet<>();
+        Set<Long> tagIds = new LinkedHashSet<>();
+        for (TransactionDtoRequest transactionDto : transactionDtos) {
+            if (transactionDto.getAmount() > MAX_AMOUNT) {
+                throw new InvalidInputException("Сумма транзакции не может превышать 1,000,000");
+            }
+            userIds.add(transactionDto.getUserId());
+            billIds.add(transactionDto.getBillId());
+            if (transactionDto.getTagIds() != null) {
+                tagIds.addAll(transactionDto.getTagIds());
+            }
+        }
+
+        // Пользователи, счета и теги всей пачки загружаются по одному запросу на сущность
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Bill> bills = billRepository.findAllById(billIds).stream()
+                .collect(Collectors.toMap(Bill::getId, Function.identity()));
+        Map<Long, Tag> tags = tagIds.isEmpty()
+                ? Map.of()
+                : tagRepository.findAllById(tagIds).stream()
+                        .collect(Collectors.toMap(Tag::getId, Function.identity()));
+
+        // Остатки считаем в порядке пачки, чтобы расход не мог опереться на более поздний доход.
+        // Ключи упорядочены: строки счетов блокируются в БД по возрастанию id, и
+        // пересекающиеся пачки не взаимоблокируются
+        Map<Long, Long> balances = new TreeMap<>();
+        List<Transaction> transactions = new ArrayList<>(transactionDtos.size());
+        for (TransactionDtoRequest transactionDto : transactionDtos) {
+            User user = users.get(transactionDto.getUserId());
+            if (user == null) {
+                throw new NotFoundException(
+                        String.format(USER_WITH_ID_NOT_FOUND, transactionDto.getUserId()));
+            }
+            Bill bill = bills.get(transactionDto.getBillId());
+            if (bill == null || !bill.getUser().getId().equals(user.getId())) {
+                throw new NotFoundException(
+                        "Счет с id "
+                                + transactionDto.getBillId()
+                                + " не найден или не принадлежит пользователю");
+            }
+
+            Transaction transaction = TransactionMapper.toTransaction(transactionDto);
+            long balance = balances.getOrDefault(bill.getId(), bill.getBalance());
+            if (!transaction.isType() && transaction.getAmount() > balance) {
+                throw new InvalidInputException(
+                        "Недостаточно средств на счете для суммы транзакции");
+            }
+            balances.put(bill.getId(), transaction.isType()
+                    ? balance + transaction.getAmount()
+                    : balance - transaction.getAmount());
+
+            transaction.setUser(user);
+            transaction.setBill(bill);
+            transaction.setTags(resolveTags(transactionDto.getTagIds(), tags, user));
+            transactions.add(transaction);
+        }
+
+        // Одно изменение баланса на счёт и одно на пользователя
+        billLockManager.lockAll(balances.keySet());
+        Map<Long, Long> userDeltas = new TreeMap<>();
+        balances.forEach((billId, balance) -> {
+            Bill bill = bills.get(billId);
+            long delta = balance - bill.getBalance();
+            if (billRepository.addToBalance(billId, delta) == 0) {
+                throw new InvalidInputException(
+                        "Недостаточно средств на счете для суммы транзакции");
+            }
+            userDeltas.merge(bill.getUser().getId(), delta, Long::sum);
+        });
+        userDeltas.forEach(userRepository::addToBalance);
+        transactionRepository.saveAll(transactions);
+        dailyRollupService.addAll(transactions);
+
+        List<TransactionDtoResponse> transactionsResponse = transactions.stream()
+                .map(transactionMapper::toTransactionDto)
+                .toList();
+        // Структуры в памяти обновляются одной пачкой на пользователя
+        Map<Long, List<TransactionDtoResponse>> byUser = transactionsResponse.stream()
+                .collect(Collectors.groupingBy(TransactionDtoResponse::getUserId));
+        AfterCommit.run(() -> {
+            byUser.forEach((userId, created) -> {
+                cache.updateTransactions(userId, created);
+                columnStore.updateTransactions(userId, created);
+                suggestionIndex.updateTransactions(userId, created);
+                autocompleteIndex.addNames(userId,
+                        created.stream().map(TransactionDtoResponse::getName).toList());
+            });
+            transactions.forEach(transaction -> billBalanceIndex.add(
+                    transaction.getBill().getId(), transaction.getDate(),
+                    balanceDelta(transaction)));
+        });
+        log.info("Создано {} транзакций одной пачкой", transactionsResponse.size());
+        return transactionsResponse;
+    }
+
+    private List<Tag> resolveTags(List<Long> tagIds, Map<Long, Tag> tags, User user) {
+        List<Tag> resolved = new ArrayList<>();
+        if (tagIds == null) {
+            return resolved;
+        }
+        for (Long tagId : tagIds) {
+            Tag tag = tags.get(tagId);
+            if (tag == null) {
+                throw new InvalidInputException("Один или несколько тегов по ID не найдены");
+            }
+            if (!tag.getUser().getId().equals(user.getId())) {
+                throw new InvalidInputException(
+                        "Один или несколько тегов не найдены или не принадлежат пользователю");
+            }
+            resolved.add(tag);
+        }
+        return resolved;
+    }
+
+    @Override
+    @RetryOnConflict
     @Transactional
     public TransactionDtoResponse updateTransaction(
             long transactionId, TransactionDtoRequest transactionDto) {
@@ -175,7 +515,7 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new NotFoundException(
                         String.format(TRANSACTION_WITH_ID_NOT_FOUND, transactionId)));
 
-        if (transactionDto.getAmount() > 1_000_000) {
+        if (transactionDto.getAmount() > MAX_AMOUNT) {
             throw new InvalidInputException("Сумма транзакции не может превышать 1,000,000");
         }
 
@@ -199,16 +539,13 @@ public class TransactionServiceImpl implements TransactionService {
                         "Счет с данным id " + transactionDto.getBillId()
                                 + " не найден или не принадлежит пользователю"));
 
-        double oldAmount = existingTransaction.getAmount();
-        double newAmount = transactionDto.getAmount();
+        long oldAmount = existingTransaction.getAmount();
+        long newAmount = transactionDto.getAmount();
         boolean oldType = existingTransaction.isType();
         boolean newType = transactionDto.isType();
 
-        if (!newType && newAmount > bill.getBalance()) {
-            throw new InvalidInputException(
-                    "Недостаточно средств на счете для новой суммы транзакции");
-        }
-
+        Transaction previous = rollupSnapshot(existingTransaction);
+        String previousName = existingTransaction.getName();
         existingTransaction.setName(transactionDto.getName());
         existingTransaction.setDescription(transactionDto.getDescription());
         existingTransaction.setType(newType);
@@ -218,7 +555,7 @@ public class TransactionServiceImpl implements TransactionService {
         updateTransactionTags(existingTransaction, transactionDto, user); // Новая функция для тегов
 
         // Обновление баланса одной операцией
-        double balanceAdjustment = 0;
+        long balanceAdjustment = 0;
         if (!oldType) {
             balanceAdjustment += oldAmount; // Возвращаем старую сумму, если был расход
         } else {
@@ -229,15 +566,54 @@ public class TransactionServiceImpl implements TransactionService {
         } else {
             balanceAdjustment -= newAmount; // Вычитаем новую сумму, если новый тип расход
         }
-        bill.addAmount(balanceAdjustment);
+        boolean rollupChanged = oldType != newType || oldAmount != newAmount
+                || !Objects.equals(previous.getDate(), existingTransaction.getDate());
+        // Итоги меняются после блокировки счёта, чтобы строки блокировались в том же
+        // порядке, что и при создании: сначала счёт, затем день. Если баланс не меняется,
+        // например при переносе на другую дату, счёт блокируется отдельно
+        if (balanceAdjustment != 0) {
+            applyBalanceDelta(bill, balanceAdjustment,
+                    "Недостаточно средств на счете для новой суммы транзакции");
+        } else if (rollupChanged) {
+            billLockManager.lock(bill.getId());
+            billRepository.lockById(bill.getId());
+        }
+        if (rollupChanged) {
+            dailyRollupService.remove(previous);
+        }
 
-        userRepository.save(user);
-        billRepository.save(bill);
         transactionRepository.save(existingTransaction);
+        if (rollupChanged) {
+            dailyRollupService.add(existingTransaction);
+        }
         Hibernate.initialize(existingTransaction.getTags());
-        cache.updateTransaction(user.getId(),
-                transactionMapper.toTransactionDto(existingTransaction));
-        return transactionMapper.toTransactionDto(existingTransaction);
+        TransactionDtoResponse transactionResponse =
+                transactionMapper.toTransactionDto(existingTransaction);
+        LocalDate newDate = existingTransaction.getDate();
+        long newDelta = balanceDelta(existingTransaction);
+        AfterCommit.run(() -> {
+            cache.updateTransaction(user.getId(), transactionResponse);
+            columnStore.updateTransaction(user.getId(), transactionResponse);
+            suggestionIndex.updateTransaction(user.getId(), transactionResponse);
+            autocompleteIndex.replaceName(
+                    user.getId(), previousName, transactionResponse.getName());
+            billBalanceIndex.add(bill.getId(), previous.getDate(), -balanceDelta(previous));
+            billBalanceIndex.add(bill.getId(), newDate, newDelta);
+        });
+        return transactionResponse;
+    }
+
+    /**
+     * Копия полей транзакции, по которым она учитывается в дневных итогах.
+     */
+    private static Transaction rollupSnapshot(Transaction transaction) {
+        Transaction snapshot = new Transaction();
+        snapshot.setUser(transaction.getUser());
+        snapshot.setBill(transaction.getBill());
+        snapshot.setDate(transaction.getDate());
+        snapshot.setType(transaction.isType());
+        snapshot.setAmount(transaction.getAmount());
+        return snapshot;
     }
 
     private void updateTransactionTags(
@@ -265,6 +641,7 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public void deleteTransaction(long transactionId) {
         Transaction transaction = transactionRepository.findById(transactionId)
@@ -275,15 +652,47 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new NotFoundException(
                         String.format(BILL_WITH_ID_NOT_FOUND, transaction.getBill().getId())));
 
-        // Исправляем логику: меняем местами addAmount и subtractAmount
-        if (transaction.isType()) { // type == true (доход)
-            bill.subtractAmount(transaction.getAmount()); // Уменьшаем баланс (отмена дохода)
-        } else { // type == false (расход)
-            bill.addAmount(transaction.getAmount()); // Увеличиваем баланс (отмена расхода)
-        }
+        // Отмена дохода уменьшает баланс, отмена расхода увеличивает
+        applyBalanceDelta(bill,
+                transaction.isType() ? -transaction.getAmount() : transaction.getAmount(),
+                "Недостаточный остаток на счету");
 
         Long userId = transaction.getUser().getId();
+        LocalDate date = transaction.getDate();
+        String name = transaction.getName();
+        long delta = balanceDelta(transaction);
+        dailyRollupService.remove(transaction);
         transactionRepository.delete(transaction);
-        cache.removeTransaction(userId, transactionId);
+        AfterCommit.run(() -> {
+            cache.removeTransaction(userId, transactionId);
+            columnStore.removeTransaction(userId, transactionId);
+            suggestionIndex.removeTransaction(userId, transactionId);
+            autocompleteIndex.removeName(userId, name);
+            billBalanceIndex.add(bill.getId(), date, -delta);
+        });
+    }
+
+    /**
+     * Изменение баланса счёта, которое вносит транзакция.
+     */
+    private static long balanceDelta(Transaction transaction) {
+        return transaction.isType() ? transaction.getAmount() : -transaction.getAmount();
+    }
+
+    /**
+     * Меняет баланс счёта и его владельца одним условным UPDATE на каждую строку.
+     * Нехватку средств проверяет сама БД, поэтому параллельные записи не могут
+     * увести счёт в минус. В режиме {@code striped} записи в один счёт
+     * дополнительно выстраиваются в очередь внутри процесса до конца транзакции.
+     */
+    private void applyBalanceDelta(Bill bill, long delta, String insufficientFundsMessage) {
+        if (delta == 0) {
+            return;
+        }
+        billLockManager.lock(bill.getId());
+        if (billRepository.addToBalance(bill.getId(), delta) == 0) {
+            throw new InvalidInputException(insufficientFundsMessage);
+        }
+        userRepository.addToBalance(bill.getUser().getId(), delta);
     }
 }
@@ -1,20 +1,41 @@
 package com.example.financery.service.impl;
 
+import com.example.financery.aspect.RetryOnConflict;
+import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.BillSummaryDto;
+import com.example.financery.dto.TransactionDtoResponse;
 import com.example.financery.dto.UserDtoRequest;
 import com.example.financery.dto.UserDtoResponse;
+import com.example.financery.dto.UserPageDto;
+import com.example.financery.dto.UserSummaryDto;
+import com.example.financery.exception.InvalidInputException;
 import com.example.financery.exception.NotFoundException;
+import com.example.financery.mapper.TransactionMapper;
 import com.example.financery.mapper.UserMapper;
+import com.example.financery.model.Bill;
 import com.example.financery.model.User;
+import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
 import com.example.financery.service.UserService;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import com.example.financery.utils.AfterCommit;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
 import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 
@@ -23,10 +44,19 @@ import org.springframework.stereotype.Service;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final BillRepository billRepository;
+    private final TransactionRepository transactionRepository;
     private final UserMapper userMapper;
+    private final TransactionMapper transactionMapper;
     private final InMemoryCache cache;
+    private final TransactionColumnStore columnStore;
+    private final TagSuggestionIndex suggestionIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final BillBalanceIndex billBalanceIndex;
     private static final String USER_WITH_ID = "Пользователь с id ";
     private static final String NOT_FOUND = " не найден";
+    public static final int MAX_PAGE_SIZE = 500;
 
     @Override
     @Transactional
@@ -40,10 +70,79 @@ public class UserServiceImpl implements UserService {
 
     }
 
+    @Override
+    @Transactional
+    public UserPageDto getUsersPage(String cursor, int limit, String expand) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidInputException(
+                    "Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        boolean withTransactions = "bills.transactions".equals(expand);
+        boolean withBills = withTransactions || "bills".equals(expand);
+        if (!withBills && expand != null && !expand.isEmpty()) {
+            throw new InvalidInputException("Неизвестное значение expand: " + expand
+                    + ", используй bills или bills.transactions");
+        }
+        long afterId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                afterId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new InvalidInputException("Некорректный курсор: " + cursor);
+            }
+        }
+
+        // Берём на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<UserSummaryDto> users = userRepository.findSummariesAfter(
+                afterId, PageRequest.ofSize(limit + 1));
+        boolean hasNext = users.size() > limit;
+        List<UserSummaryDto> items = hasNext ? users.subList(0, limit) : users;
+        if (withBills && !items.isEmpty()) {
+            expandBills(items, withTransactions);
+        }
+        String nextCursor = hasNext ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return new UserPageDto(new ArrayList<>(items), nextCursor);
+    }
+
+    /**
+     * Заполняет счета всей страницы одним запросом, а при необходимости
+     * и их транзакции с тегами ещё одним.
+     */
+    private void expandBills(List<UserSummaryDto> users, boolean withTransactions) {
+        List<Long> userIds = users.stream().map(UserSummaryDto::getId).toList();
+        List<BillSummaryDto> bills = billRepository.findSummariesByUserIdIn(userIds);
+
+        Map<Long, List<TransactionDtoResponse>> transactionsByBill = Map.of();
+        if (withTransactions && !bills.isEmpty()) {
+            transactionsByBill = transactionRepository
+                    .findByBillIdInWithTags(bills.stream().map(BillSummaryDto::getId).toList())
+                    .stream()
+                    .map(transactionMapper::toTransactionDto)
+                    .collect(Collectors.groupingBy(TransactionDtoResponse::getBillId));
+        }
+
+        Map<Long, List<BillDtoResponse>> billsByUser = new HashMap<>();
+        for (BillSummaryDto bill : bills) {
+            BillDtoResponse billResponse = new BillDtoResponse();
+            billResponse.setId(bill.getId());
+            billResponse.setName(bill.getName());
+            billResponse.setBalance(bill.getBalance());
+            billResponse.setUserId(bill.getUserId());
+            if (withTransactions) {
+                billResponse.setTransactions(
+                        transactionsByBill.getOrDefault(bill.getId(), new ArrayList<>()));
+            }
+            billsByUser.computeIfAbsent(bill.getUserId(), id -> new ArrayList<>())
+                    .add(billResponse);
+        }
+        users.forEach(user -> user.setBills(
+                billsByUser.getOrDefault(user.getId(), new ArrayList<>())));
+    }
+
     @Override
     public UserDtoResponse createUser(UserDtoRequest userDtoRequest) {
         User user = userMapper.toEntity(userDtoRequest);
-        user.setBalance(0.0);
+        user.setBalance(0);
         userRepository.save(user);
         return userMapper.toDto(user);
     }
@@ -64,6 +163,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @RetryOnConflict
     @Transactional
     public UserDtoResponse updateUser(long id, UserDtoRequest userDtoRequest) {
         User newUser = userRepository.findById(id)
@@ -79,12 +179,23 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void deleteUser(long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(USER_WITH_ID + id + NOT_FOUND));
 
+        List<Long> billIds = user.getBills().stream().map(Bill::getId).toList();
+        dailyRollupRepository.deleteByUserId(id);
         userRepository.deleteById(id);
 
-        cache.clearForUser(user.getId());
+        // После фиксации: откат не должен стереть данные в памяти, а загрузка,
+        // начатая до фиксации, не должна вернуть удалённого пользователя
+        AfterCommit.run(() -> {
+            billIds.forEach(billBalanceIndex::clearForBill);
+            cache.clearForUser(id);
+            columnStore.clearForUser(id);
+            suggestionIndex.clearForUser(id);
+            autocompleteIndex.clearForUser(id);
+        });
     }
 }
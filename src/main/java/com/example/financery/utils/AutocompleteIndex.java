@@ -0,0 +1,85 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.AutocompleteItemDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Префиксные индексы для автодополнения названий тегов и транзакций.
+ *
+ * <p>Для каждого запрошенного пользователя хранится {@link PrefixIndex}.
+ * Индекс строится по первому запросу, а затем поддерживается записями
+ * тегов и транзакций после фиксации, так же как {@link InMemoryCache}.
+ * Хранится не более {@code app.autocomplete.max-users} пользователей, давно
+ * не запрашиваемые вытесняются (см. {@link VersionedLruStore}).
+ */
+@Component
+public class AutocompleteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    private final VersionedLruStore<PrefixIndex> indexes;
+
+    public AutocompleteIndex(@Value("${app.autocomplete.max-users:1000}") int maxUsers) {
+        this.indexes = new VersionedLruStore<>(maxUsers);
+    }
+
+    public List<AutocompleteItemDto> search(
+            Long userId, String prefix, int limit, Supplier<PrefixIndex> loader) {
+        PrefixIndex index = indexes.getOrLoad(userId, () -> {
+            PrefixIndex loaded = loader.get();
+            logger.debug("Построен индекс автодополнения пользователя {} из {} названий",
+                    userId, loaded.size());
+            return loaded;
+        });
+        return index.search(prefix, limit);
+    }
+
+    public void addTag(Long userId, long tagId, String title) {
+        update(userId, index -> index.addTag(tagId, title));
+    }
+
+    public void removeTag(Long userId, long tagId) {
+        update(userId, index -> index.removeTag(tagId));
+    }
+
+    public void addName(Long userId, String name) {
+        update(userId, index -> index.addName(name));
+    }
+
+    public void addNames(Long userId, List<String> names) {
+        update(userId, index -> names.forEach(index::addName));
+    }
+
+    public void replaceName(Long userId, String previous, String name) {
+        if (Objects.equals(previous, name)) {
+            return;
+        }
+        update(userId, index -> {
+            index.removeName(previous);
+            index.addName(name);
+        });
+    }
+
+    public void removeName(Long userId, String name) {
+        update(userId, index -> index.removeName(name));
+    }
+
+    public void clearForUser(Long userId) {
+        indexes.remove(userId);
+    }
+
+    private void update(Long userId, Consumer<PrefixIndex> change) {
+        indexes.update(userId, index -> {
+            change.accept(index);
+            return index;
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.financery.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Изменения балансов счетов по дням для построения истории баланса.
+ *
+ * <p>Для каждого запрошенного счёта хранится {@link DayFenwickTree}, поэтому
+ * баланс на любую дату считается за O(log d), а транзакция, внесённая задним
+ * числом, обновляет индекс за то же время без пересчёта всей истории.
+ * Индексы строятся по первому запросу, хранится не более
+ * {@code app.bill-timeline.max-bills} счетов, давно не запрашиваемые
+ * вытесняются (см. {@link VersionedLruStore}). Записи применяются после
+ * фиксации транзакции так же, как изменения {@link InMemoryCache}.
+ */
+@Component
+public class BillBalanceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillBalanceIndex.class);
+
+    private final VersionedLruStore<DayFenwickTree> trees;
+
+    public BillBalanceIndex(@Value("${app.bill-timeline.max-bills:1000}") int maxBills) {
+        this.trees = new VersionedLruStore<>(maxBills);
+    }
+
+    public DayFenwickTree getOrLoad(Long billId, Supplier<Map<LocalDate, Long>> loader) {
+        return trees.getOrLoad(billId, () -> {
+            DayFenwickTree loaded = DayFenwickTree.of(loader.get());
+            logger.debug("Построен индекс баланса счёта: {}", billId);
+            return loaded;
+        });
+    }
+
+    public void add(Long billId, LocalDate day, long delta) {
+        trees.update(billId, tree -> {
+            tree.add(day, delta);
+            return tree;
+        });
+    }
+
+    public void clearForBill(Long billId) {
+        trees.remove(billId);
+    }
+}
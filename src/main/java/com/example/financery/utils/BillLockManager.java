@@ -0,0 +1,151 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.BillLockStatsDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Внутрипроцессная сериализация записей по счетам для развёртывания в один узел.
+ *
+ * <p>В режиме {@code striped} счета распределяются по фиксированному набору
+ * честных блокировок: записи в разные счета идут параллельно, записи в один
+ * счёт выстраиваются в очередь в порядке прихода. Блокировка берётся внутри
+ * транзакции и отпускается после её завершения, чтобы следующий писатель
+ * увидел уже зафиксированный баланс.
+ *
+ * <p>В режиме {@code atomic} (по умолчанию) менеджер ничего не блокирует
+ * в процессе. Баланс счёта меняется одним условным UPDATE, поэтому записи
+ * в один счёт упорядочивает блокировка его строки в БД до конца транзакции,
+ * а недостаток средств проверяет само условие UPDATE. Версии строк при этом
+ * не сравниваются; повторы (см. {@link com.example.financery.aspect.RetryOnConflict})
+ * нужны только для конфликтов на других версионируемых строках.
+ */
+@Component
+public class BillLockManager {
+
+    public static final String MODE_ATOMIC = "atomic";
+    public static final String MODE_STRIPED = "striped";
+
+    private static final Logger logger = LoggerFactory.getLogger(BillLockManager.class);
+
+    private final boolean striped;
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+    private final long timeoutMs;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public BillLockManager(
+            @Value("${app.bill-lock.mode:atomic}") String mode,
+            @Value("${app.bill-lock.stripes:64}") int stripes,
+            @Value("${app.bill-lock.timeout-ms:5000}") long timeoutMs) {
+        if (!MODE_ATOMIC.equals(mode) && !MODE_STRIPED.equals(mode)) {
+            throw new IllegalStateException("Неизвестный режим блокировки счетов: " + mode);
+        }
+        if (stripes < 1) {
+            throw new IllegalStateException("Количество блокировок должно быть больше 0");
+        }
+        int stripeCount = Integer.highestOneBit(stripes);
+        this.striped = MODE_STRIPED.equals(mode);
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.timeoutMs = timeoutMs;
+        logger.info("Режим записи по счетам: {}, блокировок: {}", mode, stripeCount);
+    }
+
+    public boolean isStriped() {
+        return striped;
+    }
+
+    /**
+     * Блокирует счёт до конца текущей транзакции.
+     */
+    public void lock(long billId) {
+        if (striped) {
+            acquire(stripeIndex(billId));
+        }
+    }
+
+    /**
+     * Блокирует несколько счетов до конца текущей транзакции. Блокировки берутся
+     * в порядке возрастания номера, поэтому пересекающиеся наборы не
+     * взаимоблокируются. В атомарном режиме блокировок процесса нет, и строки
+     * счетов блокирует БД при изменении баланса: вызывающий изменяет их
+     * в порядке возрастания id.
+     */
+    public void lockAll(Collection<Long> billIds) {
+        if (!striped) {
+            return;
+        }
+        TreeSet<Integer> indexes = new TreeSet<>();
+        billIds.forEach(billId -> indexes.add(stripeIndex(billId)));
+        indexes.forEach(this::acquire);
+    }
+
+    public BillLockStatsDto getStats() {
+        return new BillLockStatsDto(
+                striped ? MODE_STRIPED : MODE_ATOMIC,
+                stripes.length,
+                acquisitions.sum(),
+                contended.sum(),
+                totalWaitNanos.sum() / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    private void acquire(int index) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка счёта берётся только внутри транзакции");
+        }
+        ReentrantLock lock = stripes[index];
+        long started = System.nanoTime();
+        boolean acquired = lock.tryLock();
+        if (!acquired) {
+            contended.increment();
+            try {
+                acquired = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("Ожидание блокировки счёта прервано");
+            }
+        }
+        long waited = System.nanoTime() - started;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (!acquired) {
+            logger.warn("Не удалось дождаться блокировки счёта за {} мс", timeoutMs);
+            throw new CannotAcquireLockException(
+                    "Не удалось дождаться блокировки счёта за " + timeoutMs + " мс");
+        }
+        acquisitions.increment();
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        lock.unlock();
+                    }
+                });
+    }
+
+    private int stripeIndex(long billId) {
+        // Перемешиваем биты, чтобы последовательные id равномерно ложились по блокировкам
+        long hash = billId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & stripeMask;
+    }
+}
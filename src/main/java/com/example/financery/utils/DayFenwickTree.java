@@ -0,0 +1,194 @@
+package com.example.financery.utils;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Дерево Фенвика над днями: сумма изменений за каждый день.
+ *
+ * <p>Дерево построено над окном подряд идущих дней, индекс дня - смещение
+ * его номера от начала окна. Сумма изменений по любой день включительно
+ * и любое изменение дня внутри окна стоят O(log d), где d - размер окна.
+ * День за пределами окна удваивает окно в его сторону; перестройка стоит
+ * O(d), но удвоение делает её редкой, так что добавление в среднем остаётся
+ * O(log d). Окно не растёт больше {@link #MAX_CAPACITY} дней: изменения
+ * за дни, до которых оно не дотягивается (ошибочные даты вроде 0001 года),
+ * хранятся отдельно и суммируются перебором. Методы синхронизированы:
+ * одно дерево обслуживает и запросы, и записи по своему счёту.
+ */
+public final class DayFenwickTree {
+
+    // Около 179 лет истории, дерево такого окна занимает 512 КБ
+    static final int MAX_CAPACITY = 1 << 16;
+    private static final int MIN_CAPACITY = 64;
+
+    // Номер дня, с которого начинается окно
+    private long origin;
+    private long[] tree = new long[1];
+    private final TreeMap<Long, Long> outliers = new TreeMap<>();
+    private long total;
+
+    private DayFenwickTree() {
+    }
+
+    /**
+     * Строит дерево за O(n log n + d) из изменений, сгруппированных по дням.
+     * Окно выбирается так, чтобы покрыть как можно больше дней с изменениями.
+     */
+    public static DayFenwickTree of(Map<LocalDate, Long> deltas) {
+        TreeMap<Long, Long> sorted = new TreeMap<>();
+        deltas.forEach((day, delta) -> sorted.merge(day.toEpochDay(), delta, Long::sum));
+        DayFenwickTree fenwick = new DayFenwickTree();
+        if (sorted.isEmpty()) {
+            return fenwick;
+        }
+        long[] days = sorted.keySet().stream().mapToLong(Long::longValue).toArray();
+        int bestStart = 0;
+        int bestEnd = 0;
+        int start = 0;
+        for (int end = 0; end < days.length; end++) {
+            while (days[end] - days[start] >= MAX_CAPACITY) {
+                start++;
+            }
+            // При равенстве берём более позднее окно: новые транзакции идут в конец
+            if (end - start >= bestEnd - bestStart) {
+                bestStart = start;
+                bestEnd = end;
+            }
+        }
+        fenwick.origin = days[bestStart];
+        int capacity = capacityFor(days[bestEnd] - days[bestStart] + 1);
+        long[] values = new long[capacity + 1];
+        sorted.forEach((day, delta) -> {
+            fenwick.total += delta;
+            if (fenwick.covers(day, capacity)) {
+                values[(int) (day - fenwick.origin) + 1] += delta;
+            } else {
+                fenwick.outliers.put(day, delta);
+            }
+        });
+        fenwick.tree = build(values);
+        return fenwick;
+    }
+
+    public synchronized void add(LocalDate day, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        total += delta;
+        long epochDay = day.toEpochDay();
+        if (capacity() == 0) {
+            origin = epochDay;
+            tree = new long[MIN_CAPACITY + 1];
+        } else if (!covers(epochDay, capacity()) && !grow(epochDay)) {
+            outliers.merge(epochDay, delta, Long::sum);
+            return;
+        }
+        for (int node = (int) (epochDay - origin) + 1; node < tree.length;
+                node += node & -node) {
+            tree[node] += delta;
+        }
+    }
+
+    /**
+     * Сумма изменений по день {@code day} включительно.
+     */
+    public synchronized long sumThrough(LocalDate day) {
+        long epochDay = day.toEpochDay();
+        long sum = 0;
+        for (long delta : outliers.headMap(epochDay, true).values()) {
+            sum += delta;
+        }
+        if (epochDay < origin) {
+            return sum;
+        }
+        // Количество дней окна не позже day
+        int count = (int) Math.min(capacity(), epochDay - origin + 1);
+        for (int node = count; node > 0; node -= node & -node) {
+            sum += tree[node];
+        }
+        return sum;
+    }
+
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * Количество дней в окне дерева.
+     */
+    public synchronized int capacity() {
+        return tree.length - 1;
+    }
+
+    private boolean covers(long epochDay, int capacity) {
+        return epochDay >= origin && epochDay - origin < capacity;
+    }
+
+    /**
+     * Удваивает окно в сторону {@code epochDay}, пока день не войдёт в него.
+     * Изменения, хранившиеся отдельно и попавшие в новое окно, переносятся
+     * в дерево.
+     *
+     * @return {@code false}, если окно стало бы больше {@link #MAX_CAPACITY}
+     */
+    private boolean grow(long epochDay) {
+        int capacity = capacity();
+        long low = Math.min(origin, epochDay);
+        long high = Math.max(origin + capacity - 1, epochDay);
+        if (high - low + 1 > MAX_CAPACITY) {
+            return false;
+        }
+        int newCapacity = capacityFor(high - low + 1);
+        long newOrigin = epochDay < origin ? origin + capacity - newCapacity : origin;
+        long[] values = new long[newCapacity + 1];
+        System.arraycopy(pointValues(), 1, values, (int) (origin - newOrigin) + 1, capacity);
+        origin = newOrigin;
+        Iterator<Map.Entry<Long, Long>> moved = outliers
+                .subMap(origin, true, origin + newCapacity - 1, true).entrySet().iterator();
+        while (moved.hasNext()) {
+            Map.Entry<Long, Long> outlier = moved.next();
+            values[(int) (outlier.getKey() - origin) + 1] += outlier.getValue();
+            moved.remove();
+        }
+        tree = build(values);
+        return true;
+    }
+
+    /**
+     * Изменения по каждому дню окна: обращение построения за O(d).
+     */
+    private long[] pointValues() {
+        long[] values = tree.clone();
+        for (int node = values.length - 1; node > 0; node--) {
+            int parent = node + (node & -node);
+            if (parent < values.length) {
+                values[parent] -= values[node];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Построение за O(d): каждый узел отдаёт свою сумму ближайшему родителю.
+     */
+    private static long[] build(long[] values) {
+        for (int node = 1; node < values.length; node++) {
+            int parent = node + (node & -node);
+            if (parent < values.length) {
+                values[parent] += values[node];
+            }
+        }
+        return values;
+    }
+
+    private static int capacityFor(long days) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < days) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
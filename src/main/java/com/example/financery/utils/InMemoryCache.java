@@ -1,86 +1,433 @@
 package com.example.financery.utils;
 
+import com.example.financery.dto.CacheStatsDto;
 import com.example.financery.dto.TransactionDtoResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+/**
+ * Потокобезопасный LRU-кеш транзакций пользователей.
+ *
+ * <p>Ключи распределяются по независимым сегментам, у каждого сегмента своя
+ * блокировка для писателей, поэтому изменения данных разных пользователей
+ * не конкурируют между собой. Чтение не берёт блокировок: оно возвращает
+ * текущий неизменяемый снимок транзакций пользователя, а писатели атомарно
+ * публикуют новый. Размер кеша ограничен оценочным объёмом памяти
+ * (см. {@link TransactionWeigher}), а не количеством пользователей. Бюджет
+ * общий для всех сегментов: пользователь помещается в кеш, если его вес
+ * не больше всего бюджета, а при переполнении вытесняется давно не
+ * запрашиваемый пользователь любого сегмента. Вытеснение берёт блокировки
+ * сегментов по одной, уже отпустив блокировку своего.
+ *
+ * <p>Транзакции пользователя хранятся упорядоченными по дате и id
+ * с индексом по id, поэтому изменение одной транзакции стоит O(log n).
+ * Теги транзакций пользователя общие: переименование тега меняет только
+ * словарь тегов пользователя, удаление - один проход по транзакциям
+ * пользователя с публикацией изменённых транзакций копиями.
+ *
+ * <p>Загрузка отсутствующих данных через {@link #getOrLoad} выполняется
+ * не более чем одним потоком на пользователя, остальные ждут её результата.
+ */
 @Component
 public class InMemoryCache {
 
     private static final Logger logger = LoggerFactory.getLogger(InMemoryCache.class);
 
-    private final int maxSize;
-    private final Map<Long, List<TransactionDtoResponse>> cache;
-
-    public InMemoryCache() {
-        this.maxSize = 3;
-        this.cache = new LinkedHashMap<Long, List<TransactionDtoResponse>>(maxSize,
-                0.75f,
-                true) {
-            @Override
-            protected boolean removeEldestEntry(
-                    Map.Entry<Long,
-                            List<TransactionDtoResponse>> eldest) {
-                if (size() > maxSize) {
-                    logger.info(
-                            "Удаление кеша для пользователя используемого давно userId: {}",
-                            eldest.getKey());
-                    return true;
-                }
-                return false;
-            }
-        };
-        logger.info("LRU Кеш инициализирован с максимальным размером: {}", maxSize);
-    }
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long maxWeightBytes;
+    private final long loadTimeoutMs;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+    private final Map<Long, CompletableFuture<List<TransactionDtoResponse>>> loading =
+            new ConcurrentHashMap<>();
 
+    public InMemoryCache(
+            @Value("${app.cache.transactions.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${app.cache.transactions.shards:16}") int shards,
+            @Value("${app.cache.transactions.load-timeout-ms:10000}") long loadTimeoutMs) {
+        if (maxWeightBytes < 1 || shards < 1) {
+            throw new IllegalStateException(
+                    "Объём кеша и количество сегментов должны быть больше 0");
+        }
+        int segmentCount = Integer.highestOneBit(shards);
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentMask = segmentCount - 1;
+        this.maxWeightBytes = maxWeightBytes;
+        this.loadTimeoutMs = loadTimeoutMs;
+        logger.info("LRU Кеш инициализирован с объёмом: {} байт, сегментов: {}",
+                this.maxWeightBytes, segmentCount);
+    }
 
     public List<TransactionDtoResponse> get(Long userId) {
-        List<TransactionDtoResponse> transactions = cache.get(userId);
-        logger.info("Кеш {} для пользователя: {}",
-                transactions != null ? "найден" : "не найден", userId);
-        return transactions;
+        Entry entry = segmentFor(userId).entries.get(userId);
+        logger.debug("Кеш {} для пользователя: {}",
+                entry != null ? "найден" : "не найден", userId);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.transactions.asList();
     }
 
     public void put(Long userId, List<TransactionDtoResponse> transactions) {
-        cache.put(userId, transactions);
-        logger.info("Закешированы транзакции для пользователя: {}, размером: {}",
-                userId, transactions.size());
+        store(userId, transactions, -1);
+    }
+
+    /**
+     * Возвращает транзакции пользователя из кеша, а при промахе загружает их
+     * через {@code loader}. Одновременные промахи по одному пользователю
+     * объединяются: загрузчик вызывается один раз, остальные потоки ждут
+     * его результата не дольше {@code app.cache.transactions.load-timeout-ms}
+     * и получают то же исключение, если загрузка завершилась ошибкой.
+     */
+    public List<TransactionDtoResponse> getOrLoad(
+            Long userId, Supplier<List<TransactionDtoResponse>> loader) {
+        List<TransactionDtoResponse> cached = get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<List<TransactionDtoResponse>> ownLoad = new CompletableFuture<>();
+        CompletableFuture<List<TransactionDtoResponse>> currentLoad =
+                loading.putIfAbsent(userId, ownLoad);
+        if (currentLoad != null) {
+            logger.debug("Ожидание загрузки транзакций пользователя: {}", userId);
+            return await(userId, currentLoad);
+        }
+
+        try {
+            // Пока мы захватывали загрузку, предыдущая могла успеть заполнить кеш
+            cached = get(userId);
+            if (cached == null) {
+                long version = versionOf(userId);
+                cached = store(userId, loader.get(), version);
+            }
+            ownLoad.complete(cached);
+            return cached;
+        } catch (RuntimeException | Error e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, ownLoad);
+        }
     }
 
     public void updateTransaction(Long userId, TransactionDtoResponse transaction) {
-        List<TransactionDtoResponse> transactions = cache.get(userId);
-        if (transactions != null) {
-            transactions.removeIf(
-                    t -> t.getId() == transaction.getId());
-            transactions.add(transaction);
-            cache.put(userId, transactions);
-            logger.info("Обновление транзакции {} в кеше для пользователя: {}",
-                    transaction.getId(), userId);
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Entry entry = segment.entries.get(userId);
+            if (entry == null) {
+                return;
+            }
+            entry.touch();
+            long delta = TransactionWeigher.weigh(transaction);
+            TransactionDtoResponse previous = entry.transactions.upsert(transaction);
+            if (previous != null) {
+                delta -= TransactionWeigher.weigh(previous);
+            }
+            addWeight(segment, entry, delta);
+        } finally {
+            segment.lock.unlock();
         }
+        evictIfNeeded(userId);
+        logger.info("Обновление транзакции {} в кеше для пользователя: {}",
+                transaction.getId(), userId);
+    }
+
+    /**
+     * Добавляет или заменяет пачку транзакций пользователя за одну блокировку
+     * и одну публикацию снимка.
+     */
+    public void updateTransactions(Long userId, List<TransactionDtoResponse> transactions) {
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Entry entry = segment.entries.get(userId);
+            if (entry == null) {
+                return;
+            }
+            entry.touch();
+            long delta = 0;
+            for (TransactionDtoResponse transaction : transactions) {
+                delta += TransactionWeigher.weigh(transaction);
+            }
+            for (TransactionDtoResponse previous : entry.transactions.upsertAll(transactions)) {
+                delta -= TransactionWeigher.weigh(previous);
+            }
+            addWeight(segment, entry, delta);
+        } finally {
+            segment.lock.unlock();
+        }
+        evictIfNeeded(userId);
+        logger.info("Обновление {} транзакций в кеше для пользователя: {}",
+                transactions.size(), userId);
     }
 
     public void removeTransaction(Long userId, Long transactionId) {
-        List<TransactionDtoResponse> transactions = cache.get(userId);
-        if (transactions != null) {
-            transactions.removeIf(t -> t.getId() == transactionId);
-            cache.put(userId, transactions);
-            logger.info("Удаление транзакции {} из кеша пользователя: {}",
-                    transactionId, userId);
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Entry entry = segment.entries.get(userId);
+            if (entry == null) {
+                return;
+            }
+            entry.touch();
+            TransactionDtoResponse removed = entry.transactions.remove(transactionId);
+            if (removed == null) {
+                return;
+            }
+            long delta = -TransactionWeigher.weigh(removed);
+            addWeight(segment, entry, delta);
+        } finally {
+            segment.lock.unlock();
+        }
+        logger.info("Удаление транзакции {} из кеша пользователя: {}",
+                transactionId, userId);
+    }
+
+    public void renameTag(Long userId, long tagId, String title) {
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Entry entry = segment.entries.get(userId);
+            String previous = entry == null ? null : entry.transactions.renameTag(tagId, title);
+            if (previous == null) {
+                return;
+            }
+            // Название хранится один раз в словаре тегов пользователя
+            long delta = TransactionWeigher.weigh(title) - TransactionWeigher.weigh(previous);
+            addWeight(segment, entry, delta);
+        } finally {
+            segment.lock.unlock();
         }
+        logger.info("Переименование тега {} в кеше пользователя: {}", tagId, userId);
+    }
+
+    public void removeTag(Long userId, long tagId) {
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Entry entry = segment.entries.get(userId);
+            long delta = entry == null ? 0 : entry.transactions.removeTag(tagId);
+            if (delta == 0) {
+                return;
+            }
+            addWeight(segment, entry, delta);
+        } finally {
+            segment.lock.unlock();
+        }
+        logger.info("Удаление тега {} из кеша пользователя: {}", tagId, userId);
     }
 
     public void clearForUser(Long userId) {
-        cache.remove(userId);
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            removeEntry(segment, userId);
+        } finally {
+            segment.lock.unlock();
+        }
         logger.info("Очистка кеша для пользователя: {}", userId);
     }
 
     public void clear() {
-        cache.clear();
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.version++;
+                segment.entries.clear();
+                weight.addAndGet(-segment.weight);
+                segment.weight = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
         logger.info("Очистка всего кеша");
     }
-}
\ No newline at end of file
+
+    public CacheStatsDto getStats() {
+        int users = 0;
+        long totalWeight = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                users += segment.entries.size();
+                totalWeight += segment.weight;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new CacheStatsDto(users, totalWeight, maxWeightBytes, evictions.get());
+    }
+
+    private List<TransactionDtoResponse> store(
+            Long userId, List<TransactionDtoResponse> transactions, long version) {
+        UserTransactions userTransactions = new UserTransactions(transactions);
+        long userWeight = TransactionWeigher.weigh(transactions);
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            if (version >= 0 && version != segment.version) {
+                // За время загрузки данные пользователя могли измениться
+                logger.debug("Загруженные транзакции пользователя {} устарели", userId);
+                return userTransactions.asList();
+            }
+            segment.version++;
+            removeEntry(segment, userId);
+            if (userWeight > maxWeightBytes) {
+                logger.warn("Транзакции пользователя {} ({} байт) не помещаются в кеш",
+                        userId, userWeight);
+                return userTransactions.asList();
+            }
+            Entry entry = new Entry(userTransactions);
+            segment.entries.put(userId, entry);
+            addWeight(segment, entry, userWeight);
+        } finally {
+            segment.lock.unlock();
+        }
+        evictIfNeeded(userId);
+        logger.info("Закешированы транзакции для пользователя: {}, размером: {}",
+                userId, userTransactions.size());
+        return userTransactions.asList();
+    }
+
+    private long versionOf(Long userId) {
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            return segment.version;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    private List<TransactionDtoResponse> await(
+            Long userId, CompletableFuture<List<TransactionDtoResponse>> load) {
+        try {
+            return load.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(
+                    "Ошибка загрузки транзакций пользователя " + userId, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(
+                    "Превышено время ожидания загрузки транзакций пользователя " + userId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Ожидание загрузки транзакций пользователя " + userId + " прервано");
+        }
+    }
+
+    /**
+     * Вытесняет давно не запрашиваемых пользователей любых сегментов, пока
+     * кеш переполнен. Пользователя {@code keep}, только что записанного
+     * вызывающим, не трогаем, даже если кеш переполнен. Вызывается без
+     * блокировок: блокировка сегмента берётся только на удаление из него.
+     */
+    private void evictIfNeeded(Long keep) {
+        while (weight.get() > maxWeightBytes) {
+            Segment eldestSegment = null;
+            Long eldestUserId = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Segment segment : segments) {
+                for (Map.Entry<Long, Entry> candidate : segment.entries.entrySet()) {
+                    long lastAccess = candidate.getValue().lastAccess;
+                    if (!candidate.getKey().equals(keep) && lastAccess < eldestAccess) {
+                        eldestSegment = segment;
+                        eldestUserId = candidate.getKey();
+                        eldestAccess = lastAccess;
+                    }
+                }
+            }
+            if (eldestSegment == null) {
+                return;
+            }
+            eldestSegment.lock.lock();
+            try {
+                if (removeEntry(eldestSegment, eldestUserId)) {
+                    evictions.incrementAndGet();
+                    logger.info("Удаление кеша для пользователя используемого давно userId: {}",
+                            eldestUserId);
+                }
+            } finally {
+                eldestSegment.lock.unlock();
+            }
+        }
+    }
+
+    private void addWeight(Segment segment, Entry entry, long delta) {
+        entry.weight += delta;
+        segment.weight += delta;
+        weight.addAndGet(delta);
+    }
+
+    private boolean removeEntry(Segment segment, Long userId) {
+        Entry removed = segment.entries.remove(userId);
+        if (removed == null) {
+            return false;
+        }
+        segment.weight -= removed.weight;
+        weight.addAndGet(-removed.weight);
+        return true;
+    }
+
+    private Segment segmentFor(Long userId) {
+        // Перемешиваем биты, чтобы последовательные id равномерно ложились по сегментам
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private static final class Entry {
+
+        private final UserTransactions transactions;
+        private long weight;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(UserTransactions transactions) {
+            this.transactions = transactions;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    private static final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        private long weight;
+        private long version;
+    }
+}
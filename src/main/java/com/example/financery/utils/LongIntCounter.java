@@ -0,0 +1,108 @@
+package com.example.financery.utils;
+
+/**
+ * Разреженный счётчик с ключами {@code long} без упаковки в объекты.
+ *
+ * <p>Открытая адресация с линейным пробированием: ключи и счётчики лежат
+ * в двух массивах примитивов. Ячейка свободна, если её счётчик равен нулю,
+ * поэтому обнулившиеся счётчики удаляются сразу, со сдвигом следующих
+ * за ними ключей. Класс не потокобезопасен.
+ */
+public final class LongIntCounter {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys = new long[8];
+    private int[] counts = new int[8];
+    private int shift = 64 - 3;
+    private int size;
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long key, int count);
+    }
+
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key); counts[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Прибавляет {@code delta} к счётчику ключа и удаляет ключ, если счётчик обнулился.
+     */
+    public void add(long key, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key);
+        for (; counts[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                if (counts[slot] == 0) {
+                    removeAt(slot);
+                }
+                return;
+            }
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            add(key, delta);
+            return;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] != 0) {
+                visitor.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; counts[next] != 0; next = (next + 1) & mask) {
+            // Ключ можно сдвинуть в дыру, только если она лежит на пути его пробирования
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+        }
+        counts[hole] = 0;
+        size--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        shift--;
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldCounts[slot] != 0) {
+                add(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+    }
+}
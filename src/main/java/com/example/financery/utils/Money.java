@@ -0,0 +1,79 @@
+package com.example.financery.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежные суммы хранятся в копейках в примитивном {@code long}.
+ *
+ * <p>Сложение копеек точное и не требует упаковки, поэтому балансы
+ * не накапливают погрешность округления. Перевод в рубли нужен только
+ * на границах: в БД (см. {@link com.example.financery.model.MoneyConverter})
+ * и в JSON, где суммы по-прежнему передаются десятичными числами.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toCents(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long toCents(double value) {
+        // valueOf берёт кратчайшую запись числа, поэтому 1.005 округляется до 1.01
+        return toCents(BigDecimal.valueOf(value));
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Пишет копейки в JSON десятичным числом в рублях.
+     */
+    public static final class Serializer extends StdSerializer<Long> {
+
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeNumber(toDecimal(cents));
+        }
+    }
+
+    /**
+     * Читает десятичное число в рублях из JSON и переводит его в копейки.
+     */
+    public static final class Deserializer extends StdDeserializer<Long> {
+
+        public Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            BigDecimal value = context.readValue(parser, BigDecimal.class);
+            try {
+                return toCents(value);
+            } catch (ArithmeticException e) {
+                return (Long) context.handleWeirdNumberValue(Long.class, value,
+                        "Сумма вне допустимого диапазона");
+            }
+        }
+    }
+}
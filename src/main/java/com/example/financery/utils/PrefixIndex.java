@@ -0,0 +1,163 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.AutocompleteItemDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Префиксный индекс названий тегов и различных названий транзакций
+ * одного пользователя.
+ *
+ * <p>Строки хранятся в параллельных массивах, отсортированных по названию
+ * в нижнем регистре, поэтому поиск по префиксу - это двоичный поиск первой
+ * подходящей строки и проход по следующим, пока префикс совпадает. Одно
+ * название может принадлежать нескольким тегам или транзакциям, у строки
+ * хранится их количество, и она удаляется, когда оно обнуляется. Вставка
+ * и удаление сдвигают массивы за O(n). Методы синхронизированы.
+ */
+public final class PrefixIndex {
+
+    private static final byte TAG = 0;
+    private static final byte TRANSACTION = 1;
+
+    private String[] keys = new String[16];
+    private String[] texts = new String[16];
+    private byte[] types = new byte[16];
+    private int[] counts = new int[16];
+    private int size;
+    // Названия тегов по id: по ним находятся строки при переименовании и удалении
+    private final Map<Long, String> tagTitles = new HashMap<>();
+
+    private PrefixIndex() {
+    }
+
+    public static PrefixIndex of(Map<Long, String> tagTitles, Map<String, Long> nameCounts) {
+        PrefixIndex index = new PrefixIndex();
+        tagTitles.forEach(index::addTag);
+        nameCounts.forEach((name, count) -> index.add(name, TRANSACTION, count.intValue()));
+        return index;
+    }
+
+    public synchronized void addTag(long tagId, String title) {
+        String previous = tagTitles.put(tagId, title);
+        if (previous != null) {
+            add(previous, TAG, -1);
+        }
+        add(title, TAG, 1);
+    }
+
+    public synchronized void removeTag(long tagId) {
+        String previous = tagTitles.remove(tagId);
+        if (previous != null) {
+            add(previous, TAG, -1);
+        }
+    }
+
+    public synchronized void addName(String name) {
+        add(name, TRANSACTION, 1);
+    }
+
+    public synchronized void removeName(String name) {
+        add(name, TRANSACTION, -1);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Не более {@code limit} названий, начинающихся с {@code prefix} без учёта
+     * регистра, в алфавитном порядке. При равных названиях теги идут первыми.
+     */
+    public synchronized List<AutocompleteItemDto> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<AutocompleteItemDto> items = new ArrayList<>(Math.min(limit, size));
+        for (int row = lowerBound(key, (byte) -1, "");
+                row < size && items.size() < limit && keys[row].startsWith(key); row++) {
+            items.add(new AutocompleteItemDto(texts[row],
+                    types[row] == TAG ? AutocompleteItemDto.TAG : AutocompleteItemDto.TRANSACTION));
+        }
+        return items;
+    }
+
+    private void add(String text, byte type, int delta) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String key = normalize(text);
+        int row = lowerBound(key, type, text);
+        if (row < size && compare(row, key, type, text) == 0) {
+            counts[row] += delta;
+            if (counts[row] <= 0) {
+                remove(row);
+            }
+            return;
+        }
+        if (delta <= 0) {
+            return;
+        }
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            types = Arrays.copyOf(types, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int tail = size - row;
+        System.arraycopy(keys, row, keys, row + 1, tail);
+        System.arraycopy(texts, row, texts, row + 1, tail);
+        System.arraycopy(types, row, types, row + 1, tail);
+        System.arraycopy(counts, row, counts, row + 1, tail);
+        keys[row] = key;
+        texts[row] = text;
+        types[row] = type;
+        counts[row] = delta;
+        size++;
+    }
+
+    private void remove(int row) {
+        int tail = size - row - 1;
+        System.arraycopy(keys, row + 1, keys, row, tail);
+        System.arraycopy(texts, row + 1, texts, row, tail);
+        System.arraycopy(types, row + 1, types, row, tail);
+        System.arraycopy(counts, row + 1, counts, row, tail);
+        size--;
+        keys[size] = null;
+        texts[size] = null;
+    }
+
+    /**
+     * Первая строка, не меньшая (key, type, text).
+     */
+    private int lowerBound(String key, byte type, String text) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, key, type, text) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(int row, String key, byte type, String text) {
+        int byKey = keys[row].compareTo(key);
+        if (byKey != 0) {
+            return byKey;
+        }
+        int byType = Byte.compare(types[row], type);
+        return byType != 0 ? byType : texts[row].compareTo(text);
+    }
+
+    private static String normalize(String text) {
+        return text.strip().toLowerCase(Locale.ROOT);
+    }
+}
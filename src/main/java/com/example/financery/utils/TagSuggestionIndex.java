@@ -0,0 +1,77 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TagSuggestionDto;
+import com.example.financery.dto.TransactionDtoResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Статистика тегов пользователей для подсказок тегов новой транзакции.
+ *
+ * <p>Для каждого запрошенного пользователя хранится {@link UserTagStats}:
+ * разреженные счётчики совместной встречаемости тегов и частот тегов
+ * у слов из названий транзакций. Статистика строится по истории при первом
+ * запросе, а затем поддерживается записями транзакций и тегов после фиксации,
+ * так же как {@link InMemoryCache}, поэтому подсказка не читает историю.
+ * Хранится не более {@code app.tag-suggest.max-users} пользователей, давно
+ * не запрашиваемые вытесняются (см. {@link VersionedLruStore}).
+ */
+@Component
+public class TagSuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagSuggestionIndex.class);
+
+    private final VersionedLruStore<UserTagStats> stats;
+
+    public TagSuggestionIndex(@Value("${app.tag-suggest.max-users:1000}") int maxUsers) {
+        this.stats = new VersionedLruStore<>(maxUsers);
+    }
+
+    public List<TagSuggestionDto> suggest(Long userId, String name, Collection<Long> chosenTagIds,
+                                          int limit, Supplier<List<TagUsage>> loader) {
+        UserTagStats userStats = stats.getOrLoad(userId, () -> {
+            UserTagStats loaded = UserTagStats.of(loader.get());
+            logger.debug("Построена статистика тегов пользователя: {}", userId);
+            return loaded;
+        });
+        return userStats.suggest(name, chosenTagIds, limit);
+    }
+
+    public void updateTransaction(Long userId, TransactionDtoResponse transaction) {
+        update(userId, current -> current.upsert(transaction));
+    }
+
+    public void updateTransactions(Long userId, List<TransactionDtoResponse> transactions) {
+        update(userId, current -> transactions.forEach(current::upsert));
+    }
+
+    public void removeTransaction(Long userId, Long transactionId) {
+        update(userId, current -> current.remove(transactionId));
+    }
+
+    public void renameTag(Long userId, long tagId, String title) {
+        update(userId, current -> current.renameTag(tagId, title));
+    }
+
+    public void removeTag(Long userId, long tagId) {
+        update(userId, current -> current.removeTag(tagId));
+    }
+
+    public void clearForUser(Long userId) {
+        stats.remove(userId);
+    }
+
+    private void update(Long userId, Consumer<UserTagStats> change) {
+        stats.update(userId, current -> {
+            change.accept(current);
+            return current;
+        });
+    }
+}
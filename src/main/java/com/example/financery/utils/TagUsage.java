@@ -0,0 +1,8 @@
+package com.example.financery.utils;
+
+/**
+ * Тег транзакции вместе с названием транзакции: строка истории,
+ * по которой обучаются подсказки тегов.
+ */
+public record TagUsage(long transactionId, String name, long tagId, String title) {
+}
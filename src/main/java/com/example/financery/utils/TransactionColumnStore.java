@@ -0,0 +1,114 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TransactionDtoResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Колоночные представления транзакций пользователей для аналитических запросов.
+ *
+ * <p>Хранение включается {@code app.analytics.columnar.enabled}. Когда оно
+ * выключено, представление строится на каждый запрос и сразу отбрасывается.
+ * Включённое хранилище держит не более {@code app.analytics.columnar.max-users}
+ * пользователей, вытесняя давно не запрашиваемых (см. {@link VersionedLruStore}).
+ * Записи обновляют уже построенные представления так же, как и {@link InMemoryCache}.
+ *
+ * <p>Отбор транзакций по тегам читает битовые карты тегов тех же представлений,
+ * но хранит их всегда, независимо от флага аналитики: построение карт стоит
+ * полной загрузки транзакций пользователя, и повторять его на каждую страницу
+ * нельзя. Без включённой аналитики для отбора держится не более
+ * {@code app.tag-filter.max-users} пользователей с вытеснением давно не запрашиваемых.
+ * Запись в хранимое представление не пересобирает его: новая версия строки
+ * дописывается в конец, копируются только карта живых строк и карты
+ * затронутых тегов (см. {@link TransactionColumns}). Записи по пользователям,
+ * которых нет в хранилище, ничего не стоят.
+ */
+@Component
+public class TransactionColumnStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionColumnStore.class);
+
+    private final boolean enabled;
+    private final VersionedLruStore<TransactionColumns> columns;
+    private final VersionedLruStore<TransactionColumns> tagFilterColumns;
+
+    public TransactionColumnStore(
+            @Value("${app.analytics.columnar.enabled:false}") boolean enabled,
+            @Value("${app.analytics.columnar.max-users:100}") int maxUsers,
+            @Value("${app.tag-filter.max-users:1000}") int tagFilterMaxUsers) {
+        this.enabled = enabled;
+        this.columns = new VersionedLruStore<>(maxUsers);
+        this.tagFilterColumns = new VersionedLruStore<>(tagFilterMaxUsers);
+        logger.info("Колоночное хранилище транзакций {}, пользователей не более: {}",
+                enabled ? "включено" : "выключено", maxUsers);
+    }
+
+    public TransactionColumns getOrLoad(
+            Long userId, Supplier<List<TransactionDtoResponse>> loader) {
+        if (!enabled) {
+            return TransactionColumns.of(loader.get());
+        }
+        return load(columns, userId, loader);
+    }
+
+    /**
+     * Представление для отбора по тегам. Хранится всегда: при включённой
+     * аналитике это то же представление, что и у {@link #getOrLoad}.
+     */
+    public TransactionColumns getOrLoadForTagFilter(
+            Long userId, Supplier<List<TransactionDtoResponse>> loader) {
+        return load(enabled ? columns : tagFilterColumns, userId, loader);
+    }
+
+    public void updateTransaction(Long userId, TransactionDtoResponse transaction) {
+        update(userId, current -> current.withUpsert(transaction));
+    }
+
+    public void updateTransactions(Long userId, List<TransactionDtoResponse> transactions) {
+        update(userId, current -> current.withUpserts(transactions));
+    }
+
+    public void removeTransaction(Long userId, Long transactionId) {
+        update(userId, current -> current.withRemoved(transactionId));
+    }
+
+    public void renameTag(Long userId, long tagId, String title) {
+        update(userId, current -> current.withTagTitle(tagId, title));
+    }
+
+    public void removeTag(Long userId, long tagId) {
+        update(userId, current -> current.withoutTag(tagId));
+    }
+
+    public void clearForUser(Long userId) {
+        columns.remove(userId);
+        tagFilterColumns.remove(userId);
+    }
+
+    public void clear() {
+        columns.clear();
+        tagFilterColumns.clear();
+    }
+
+    private void update(Long userId, UnaryOperator<TransactionColumns> change) {
+        columns.update(userId, change);
+        tagFilterColumns.update(userId, change);
+    }
+
+    private static TransactionColumns load(VersionedLruStore<TransactionColumns> store,
+                                           Long userId,
+                                           Supplier<List<TransactionDtoResponse>> loader) {
+        return store.getOrLoad(userId, () -> {
+            TransactionColumns loaded = TransactionColumns.of(loader.get());
+            logger.debug("Построено колоночное представление {} транзакций пользователя: {}",
+                    loaded.size(), userId);
+            return loaded;
+        });
+    }
+}
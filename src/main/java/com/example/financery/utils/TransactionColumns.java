@@ -0,0 +1,642 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.BalancePointDto;
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionSummaryDto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Неизменяемое колоночное представление транзакций одного пользователя.
+ *
+ * <p>Каждое поле хранится отдельным массивом примитивов. Строки адресуются
+ * порядковым номером, который выдаётся при добавлении и больше не меняется,
+ * а порядок по дню и id задаёт отдельный индекс номеров. Тип транзакции
+ * и принадлежность тегу хранятся битовыми картами по номерам строк.
+ * Итоги за период, итоги по тегам и накопленный итог считаются проходом
+ * по массивам без создания {@link TransactionDtoResponse}. Битовые карты
+ * тегов служат и инвертированным индексом: отбор по нескольким тегам
+ * сводится к операциям AND, OR и ANDNOT над ними.
+ *
+ * <p>Изменение возвращает новый экземпляр, поэтому читатели могут обходить
+ * старый без блокировок. Новая версия транзакции дописывается новой строкой
+ * в конец массивов, прежняя помечается удалённой. Дописывание идёт на место,
+ * за пределами строк, видимых прежним экземплярам, и доступно только
+ * последней версии представления; копируются лишь карта живых строк и карты
+ * затронутых тегов. Индекс порядка дописывается на место, если новые строки
+ * идут после всех прежних, иначе копируется. Когда удалённых строк становится
+ * больше живых, представление пересобирается без них.
+ */
+public final class TransactionColumns {
+
+    // Только для чтения: строки тега, которого нет ни у одной транзакции
+    private static final BitSet NO_ROWS = new BitSet();
+    private static final int MIN_CAPACITY = 16;
+    // Пока удалённых строк меньше, пересборка не окупается
+    private static final int MIN_COMPACT_ROWS = 64;
+
+    private final Rows rows;
+    // Количество выданных номеров строк, включая удалённые
+    private final int ordinals;
+    // Номера строк по дню и id, включая удалённые
+    private final int[] order;
+    private final int positions;
+    private final BitSet live;
+    private final int liveCount;
+    private final Map<Long, String> tagTitles;
+    // Строки каждого тега, по ним итоги тега считаются без просмотра чужих строк
+    private final Map<Long, BitSet> tagRows;
+    private final Tail tail;
+
+    private TransactionColumns(Rows rows, int ordinals, int[] order, int positions,
+                               BitSet live, int liveCount, Map<Long, String> tagTitles,
+                               Map<Long, BitSet> tagRows, Tail tail) {
+        this.rows = rows;
+        this.ordinals = ordinals;
+        this.order = order;
+        this.positions = positions;
+        this.live = live;
+        this.liveCount = liveCount;
+        this.tagTitles = tagTitles;
+        this.tagRows = tagRows;
+        this.tail = tail;
+    }
+
+    public static TransactionColumns of(List<TransactionDtoResponse> transactions) {
+        List<TransactionDtoResponse> sorted = new ArrayList<>(transactions);
+        sorted.sort(UserTransactions.ORDER);
+        Rows rows = new Rows(sorted.size());
+        Map<Long, String> tagTitles = new HashMap<>();
+        for (int row = 0; row < sorted.size(); row++) {
+            TransactionDtoResponse transaction = sorted.get(row);
+            rows.set(row, transaction, tagsOf(transaction, tagTitles));
+        }
+        return build(rows, sorted.size(), tagTitles);
+    }
+
+    /**
+     * Возвращает копию, в которой транзакция добавлена или заменена новой версией.
+     */
+    public TransactionColumns withUpsert(TransactionDtoResponse transaction) {
+        return edit(editor -> editor.upsert(transaction));
+    }
+
+    /**
+     * Возвращает копию с пачкой добавленных или заменённых транзакций. Карты
+     * и индекс порядка копируются один раз на всю пачку.
+     */
+    public TransactionColumns withUpserts(Collection<TransactionDtoResponse> transactions) {
+        return edit(editor -> transactions.forEach(editor::upsert));
+    }
+
+    /**
+     * Возвращает копию с новым названием тега, массивы строк общие с исходной.
+     */
+    public TransactionColumns withTagTitle(long tagId, String title) {
+        if (!tagTitles.containsKey(tagId)) {
+            return this;
+        }
+        Map<Long, String> newTagTitles = new HashMap<>(tagTitles);
+        newTagTitles.put(tagId, title);
+        return sibling(newTagTitles, tagRows);
+    }
+
+    /**
+     * Возвращает копию без тега: убираются название и карта строк тега,
+     * остальные массивы общие с исходной.
+     */
+    public TransactionColumns withoutTag(long tagId) {
+        if (!tagTitles.containsKey(tagId) && !tagRows.containsKey(tagId)) {
+            return this;
+        }
+        Map<Long, String> newTagTitles = new HashMap<>(tagTitles);
+        newTagTitles.remove(tagId);
+        Map<Long, BitSet> newTagRows = new HashMap<>(tagRows);
+        newTagRows.remove(tagId);
+        return sibling(newTagTitles, newTagRows);
+    }
+
+    public TransactionColumns withRemoved(long transactionId) {
+        return edit(editor -> editor.remove(transactionId));
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Доходы, расходы и количество транзакций за период включительно.
+     * Ключ итога - начало периода.
+     */
+    public TransactionSummaryDto totals(LocalDate from, LocalDate to) {
+        int lower = lowerBound((int) from.toEpochDay());
+        int upper = lowerBound((int) to.toEpochDay() + 1);
+        long incomeTotal = 0;
+        long expenseTotal = 0;
+        long count = 0;
+        for (int position = lower; position < upper; position++) {
+            int row = order[position];
+            if (!live.get(row)) {
+                continue;
+            }
+            if (rows.income[row]) {
+                incomeTotal += rows.amounts[row];
+            } else {
+                expenseTotal += rows.amounts[row];
+            }
+            count++;
+        }
+        String key = from.toString();
+        return new TransactionSummaryDto(key, key, incomeTotal, expenseTotal, count);
+    }
+
+    /**
+     * Итоги по каждому тегу за период, упорядоченные по id тега. Транзакция
+     * с несколькими тегами учитывается в каждом из них.
+     */
+    public List<TransactionSummaryDto> tagTotals(LocalDate from, LocalDate to) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        List<TransactionSummaryDto> totals = new ArrayList<>();
+        for (Map.Entry<Long, BitSet> tag : new TreeMap<>(tagRows).entrySet()) {
+            BitSet tagged = tag.getValue();
+            long incomeTotal = 0;
+            long expenseTotal = 0;
+            long count = 0;
+            for (int row = tagged.nextSetBit(0); row >= 0; row = tagged.nextSetBit(row + 1)) {
+                int day = rows.days[row];
+                if (day < fromDay || day > toDay) {
+                    continue;
+                }
+                if (rows.income[row]) {
+                    incomeTotal += rows.amounts[row];
+                } else {
+                    expenseTotal += rows.amounts[row];
+                }
+                count++;
+            }
+            if (count > 0) {
+                totals.add(new TransactionSummaryDto(tag.getKey().toString(),
+                        tagTitles.get(tag.getKey()), incomeTotal, expenseTotal, count));
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Накопленный итог доходов за вычетом расходов на конец каждого дня периода,
+     * в котором были транзакции счёта. Учитываются и транзакции до начала периода.
+     * При {@code billId} равном {@code null} считаются все счета пользователя.
+     */
+    public List<BalancePointDto> runningBalance(LocalDate from, LocalDate to, Long billId) {
+        int lower = lowerBound((int) from.toEpochDay());
+        int upper = lowerBound((int) to.toEpochDay() + 1);
+        long balance = 0;
+        for (int position = 0; position < lower; position++) {
+            balance += signedAmount(order[position], billId);
+        }
+        List<BalancePointDto> points = new ArrayList<>();
+        boolean dayTouched = false;
+        for (int position = lower; position < upper; position++) {
+            int row = order[position];
+            if (matches(row, billId)) {
+                balance += signedAmount(row, billId);
+                dayTouched = true;
+            }
+            boolean lastOfDay = position + 1 == upper
+                    || rows.days[order[position + 1]] != rows.days[row];
+            if (lastOfDay && dayTouched) {
+                points.add(new BalancePointDto(LocalDate.ofEpochDay(rows.days[row]), balance));
+                dayTouched = false;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Ключи транзакций периода, у которых есть все теги {@code allTags}, хотя бы
+     * один из {@code anyTags} и нет ни одного из {@code noneTags}. Пустой набор
+     * условие не накладывает. Выдаются не более {@code limit} ключей в порядке
+     * дня и id, начиная после {@code after}, если он указан.
+     */
+    public List<TransactionCursor> findByTags(
+            LocalDate from, LocalDate to, Collection<Long> allTags, Collection<Long> anyTags,
+            Collection<Long> noneTags, TransactionCursor after, int limit) {
+        int lower = lowerBound((int) from.toEpochDay());
+        int upper = lowerBound((int) to.toEpochDay() + 1);
+        if (after != null) {
+            lower = Math.max(lower, positionAfter((int) after.date().toEpochDay(), after.id()));
+        }
+        BitSet matched = (BitSet) live.clone();
+        for (Long tagId : allTags) {
+            matched.and(tagRows.getOrDefault(tagId, NO_ROWS));
+        }
+        if (!anyTags.isEmpty()) {
+            BitSet any = new BitSet(ordinals);
+            for (Long tagId : anyTags) {
+                any.or(tagRows.getOrDefault(tagId, NO_ROWS));
+            }
+            matched.and(any);
+        }
+        for (Long tagId : noneTags) {
+            matched.andNot(tagRows.getOrDefault(tagId, NO_ROWS));
+        }
+        if (lower >= upper) {
+            return List.of();
+        }
+        int candidates = matched.cardinality();
+        if (candidates < upper - lower) {
+            return sparseKeys(matched, lower, upper, limit);
+        }
+        List<TransactionCursor> keys = new ArrayList<>(Math.min(limit, candidates));
+        for (int position = lower; position < upper && keys.size() < limit; position++) {
+            if (matched.get(order[position])) {
+                keys.add(keyOf(order[position]));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Отобранных строк меньше, чем позиций в периоде: строки периода ищутся
+     * по самой карте отбора и сортируются, а не перебором позиций.
+     */
+    private List<TransactionCursor> sparseKeys(BitSet matched, int lower, int upper, int limit) {
+        int first = order[lower];
+        int last = order[upper - 1];
+        List<Integer> found = new ArrayList<>();
+        for (int row = matched.nextSetBit(0); row >= 0; row = matched.nextSetBit(row + 1)) {
+            if (compareRows(row, first) >= 0 && compareRows(row, last) <= 0) {
+                found.add(row);
+            }
+        }
+        found.sort(this::compareRows);
+        List<TransactionCursor> keys = new ArrayList<>(Math.min(limit, found.size()));
+        for (int i = 0; i < found.size() && keys.size() < limit; i++) {
+            keys.add(keyOf(found.get(i)));
+        }
+        return keys;
+    }
+
+    private TransactionCursor keyOf(int row) {
+        return new TransactionCursor(LocalDate.ofEpochDay(rows.days[row]), rows.ids[row]);
+    }
+
+    private boolean matches(int row, Long billId) {
+        return live.get(row) && (billId == null || rows.billIds[row] == billId);
+    }
+
+    private long signedAmount(int row, Long billId) {
+        if (!matches(row, billId)) {
+            return 0;
+        }
+        return rows.income[row] ? rows.amounts[row] : -rows.amounts[row];
+    }
+
+    private int compareRows(int left, int right) {
+        int byDay = Integer.compare(rows.days[left], rows.days[right]);
+        return byDay != 0 ? byDay : Long.compare(rows.ids[left], rows.ids[right]);
+    }
+
+    /**
+     * Первая позиция, день строки на которой не меньше {@code day}.
+     */
+    private int lowerBound(int day) {
+        int low = 0;
+        int high = positions;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.days[order[mid]] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Первая позиция, стоящая в порядке дня и id после ({@code day}, {@code id}).
+     */
+    private int positionAfter(int day, long id) {
+        int position = lowerBound(day);
+        while (position < positions && rows.days[order[position]] == day
+                && rows.ids[order[position]] <= id) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Применяет изменения к последней версии представления. Изменение более
+     * старой версии сначала пересобирает её в отдельные массивы, чтобы
+     * не затереть строки, дописанные последней.
+     */
+    private TransactionColumns edit(Consumer<Editor> changes) {
+        synchronized (tail) {
+            if (tail.tip != this) {
+                return compacted().edit(changes);
+            }
+            Editor editor = new Editor();
+            changes.accept(editor);
+            if (!editor.changed) {
+                return this;
+            }
+            TransactionColumns edited = editor.publish();
+            tail.tip = edited;
+            int removed = edited.positions - edited.liveCount;
+            if (removed > Math.max(MIN_COMPACT_ROWS, edited.liveCount)) {
+                return edited.compacted();
+            }
+            return edited;
+        }
+    }
+
+    /**
+     * Копия с другими названиями или картами тегов, строки общие с исходной.
+     * Дописывать строки может только последняя версия, поэтому копия
+     * наследует это право, если оно было у исходной.
+     */
+    private TransactionColumns sibling(Map<Long, String> newTagTitles,
+                                       Map<Long, BitSet> newTagRows) {
+        synchronized (tail) {
+            TransactionColumns copy = new TransactionColumns(rows, ordinals, order, positions,
+                    live, liveCount, newTagTitles, newTagRows, tail);
+            if (tail.tip == this) {
+                tail.tip = copy;
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Пересобирает живые строки в новые массивы, пронумерованные по порядку.
+     */
+    private TransactionColumns compacted() {
+        Rows compact = new Rows(liveCount);
+        int row = 0;
+        for (int position = 0; position < positions; position++) {
+            int source = order[position];
+            if (live.get(source)) {
+                compact.copy(row++, rows, source);
+            }
+        }
+        return build(compact, row, new HashMap<>(tagTitles));
+    }
+
+    /**
+     * Представление из {@code count} строк, уже упорядоченных по дню и id.
+     * Строки удалённых тегов, которых нет в {@code tagTitles}, в карты не попадают.
+     */
+    private static TransactionColumns build(Rows rows, int count, Map<Long, String> tagTitles) {
+        int[] order = new int[rows.ids.length];
+        BitSet live = new BitSet(count);
+        Map<Long, BitSet> tagRows = new HashMap<>();
+        Tail tail = new Tail();
+        for (int row = 0; row < count; row++) {
+            order[row] = row;
+            tail.ordinalById.put(rows.ids[row], row);
+            for (long tagId : rows.tags[row]) {
+                if (tagTitles.containsKey(tagId)) {
+                    tagRows.computeIfAbsent(tagId, id -> new BitSet(count)).set(row);
+                }
+            }
+        }
+        live.set(0, count);
+        TransactionColumns columns = new TransactionColumns(
+                rows, count, order, count, live, count, tagTitles, tagRows, tail);
+        tail.tip = columns;
+        return columns;
+    }
+
+    private static int dayOf(TransactionDtoResponse transaction) {
+        // Транзакции без даты идут первыми, как и в кеше
+        return transaction.getDate() == null
+                ? Integer.MIN_VALUE : (int) transaction.getDate().toEpochDay();
+    }
+
+    private static long[] tagsOf(TransactionDtoResponse transaction,
+                                 Map<Long, String> tagTitles) {
+        List<TagDtoResponse> tags = transaction.getTags();
+        if (tags == null || tags.isEmpty()) {
+            return new long[0];
+        }
+        long[] tagIds = new long[tags.size()];
+        for (int i = 0; i < tagIds.length; i++) {
+            TagDtoResponse tag = tags.get(i);
+            tagIds[i] = tag.getId();
+            tagTitles.put(tag.getId(), tag.getTitle());
+        }
+        return tagIds;
+    }
+
+    /**
+     * Изменения одной новой версии. Карта живых строк копируется один раз,
+     * карты тегов - при первом изменении каждой, новые строки дописываются
+     * за пределами строк, видимых прежним экземплярам.
+     */
+    private final class Editor {
+
+        private Rows newRows = rows;
+        private int newOrdinals = ordinals;
+        private final BitSet newLive = (BitSet) live.clone();
+        private int newLiveCount = liveCount;
+        private Map<Long, String> newTagTitles = tagTitles;
+        private final Map<Long, BitSet> newTagRows = new HashMap<>(tagRows);
+        private final Set<Long> copiedTags = new HashSet<>();
+        // Номера строк по id, изменённые этой версией; null - транзакция удалена
+        private final Map<Long, Integer> movedIds = new HashMap<>();
+        private final List<Integer> added = new ArrayList<>();
+        private boolean changed;
+
+        void upsert(TransactionDtoResponse transaction) {
+            Integer previous = ordinalOf(transaction.getId());
+            if (previous != null) {
+                kill(previous);
+            }
+            if (newOrdinals == newRows.ids.length) {
+                newRows = newRows.grown(newOrdinals);
+            }
+            int row = newOrdinals++;
+            Map<Long, String> titles = new HashMap<>();
+            long[] tagIds = tagsOf(transaction, titles);
+            newRows.set(row, transaction, tagIds);
+            newLive.set(row);
+            newLiveCount++;
+            for (long tagId : tagIds) {
+                bitmap(tagId).set(row);
+            }
+            titles.forEach(this::title);
+            movedIds.put(transaction.getId(), row);
+            added.add(row);
+            changed = true;
+        }
+
+        void remove(long transactionId) {
+            Integer row = ordinalOf(transactionId);
+            if (row != null) {
+                kill(row);
+                movedIds.put(transactionId, null);
+                changed = true;
+            }
+        }
+
+        TransactionColumns publish() {
+            movedIds.forEach((id, row) -> {
+                if (row == null) {
+                    tail.ordinalById.remove(id);
+                } else {
+                    tail.ordinalById.put(id, row);
+                }
+            });
+            int newPositions = positions + added.size();
+            return new TransactionColumns(newRows, newOrdinals, placeAdded(), newPositions,
+                    newLive, newLiveCount, newTagTitles, newTagRows, tail);
+        }
+
+        /**
+         * Индекс порядка с добавленными строками. Строки, идущие после всех
+         * прежних, дописываются в тот же массив, иначе массивы сливаются.
+         */
+        private int[] placeAdded() {
+            if (added.isEmpty()) {
+                return order;
+            }
+            added.sort(this::compare);
+            int total = positions + added.size();
+            if (positions == 0 || compare(order[positions - 1], added.get(0)) < 0) {
+                int[] target = total <= order.length
+                        ? order : Arrays.copyOf(order, Math.max(total, order.length * 2));
+                for (int i = 0; i < added.size(); i++) {
+                    target[positions + i] = added.get(i);
+                }
+                return target;
+            }
+            int[] merged = new int[Math.max(total, order.length)];
+            int left = 0;
+            int right = 0;
+            for (int position = 0; position < total; position++) {
+                boolean takeOld = right == added.size() || left < positions
+                        && compare(order[left], added.get(right)) <= 0;
+                merged[position] = takeOld ? order[left++] : added.get(right++);
+            }
+            return merged;
+        }
+
+        private int compare(int left, int right) {
+            int byDay = Integer.compare(newRows.days[left], newRows.days[right]);
+            return byDay != 0 ? byDay : Long.compare(newRows.ids[left], newRows.ids[right]);
+        }
+
+        private Integer ordinalOf(long transactionId) {
+            return movedIds.containsKey(transactionId)
+                    ? movedIds.get(transactionId) : tail.ordinalById.get(transactionId);
+        }
+
+        private void kill(int row) {
+            newLive.clear(row);
+            newLiveCount--;
+            for (long tagId : newRows.tags[row]) {
+                if (newTagRows.containsKey(tagId)) {
+                    BitSet tagged = bitmap(tagId);
+                    tagged.clear(row);
+                    if (tagged.isEmpty()) {
+                        newTagRows.remove(tagId);
+                    }
+                }
+            }
+        }
+
+        private BitSet bitmap(long tagId) {
+            BitSet current = newTagRows.get(tagId);
+            if (copiedTags.add(tagId) || current == null) {
+                current = current == null ? new BitSet() : (BitSet) current.clone();
+                newTagRows.put(tagId, current);
+            }
+            return current;
+        }
+
+        private void title(long tagId, String title) {
+            if (!newTagTitles.containsKey(tagId)
+                    || !Objects.equals(newTagTitles.get(tagId), title)) {
+                if (newTagTitles == tagTitles) {
+                    newTagTitles = new HashMap<>(tagTitles);
+                }
+                newTagTitles.put(tagId, title);
+            }
+        }
+    }
+
+    /**
+     * Массивы полей по номеру строки. Строки за пределами выданных номеров
+     * свободны и заполняются последней версией представления.
+     */
+    private static final class Rows {
+
+        private final long[] ids;
+        private final int[] days;
+        private final long[] amounts;
+        private final long[] billIds;
+        private final boolean[] income;
+        private final long[][] tags;
+
+        private Rows(int rows) {
+            int capacity = Math.max(MIN_CAPACITY, rows);
+            this.ids = new long[capacity];
+            this.days = new int[capacity];
+            this.amounts = new long[capacity];
+            this.billIds = new long[capacity];
+            this.income = new boolean[capacity];
+            this.tags = new long[capacity][];
+        }
+
+        private Rows grown(int used) {
+            Rows grown = new Rows(ids.length * 2);
+            for (int row = 0; row < used; row++) {
+                grown.copy(row, this, row);
+            }
+            return grown;
+        }
+
+        private void set(int row, TransactionDtoResponse transaction, long[] tagIds) {
+            ids[row] = transaction.getId();
+            days[row] = dayOf(transaction);
+            amounts[row] = transaction.getAmount();
+            billIds[row] = transaction.getBillId();
+            income[row] = transaction.isType();
+            tags[row] = tagIds;
+        }
+
+        private void copy(int row, Rows source, int sourceRow) {
+            ids[row] = source.ids[sourceRow];
+            days[row] = source.days[sourceRow];
+            amounts[row] = source.amounts[sourceRow];
+            billIds[row] = source.billIds[sourceRow];
+            income[row] = source.income[sourceRow];
+            tags[row] = source.tags[sourceRow];
+        }
+    }
+
+    /**
+     * Общее для версий одного представления: какая версия последняя и номера
+     * строк её транзакций. Меняется только под монитором этого объекта.
+     */
+    private static final class Tail {
+
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private TransactionColumns tip;
+    }
+}
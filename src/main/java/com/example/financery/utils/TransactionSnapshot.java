@@ -0,0 +1,229 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TransactionDtoResponse;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Неизменяемый упорядоченный список транзакций на основе персистентного
+ * декартова дерева.
+ *
+ * <p>Вставка и удаление не меняют текущий экземпляр, а возвращают новый,
+ * копируя только O(log n) узлов на пути от корня; остальные узлы общие
+ * со старой версией. Благодаря этому читатели могут безопасно обходить
+ * старую версию, пока писатель публикует новую.
+ */
+final class TransactionSnapshot extends AbstractList<TransactionDtoResponse>
+        implements RandomAccess {
+
+    static final TransactionSnapshot EMPTY = new TransactionSnapshot(null);
+
+    private static final Comparator<TransactionDtoResponse> ORDER = UserTransactions.ORDER;
+
+    private final Node root;
+
+    private TransactionSnapshot(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Строит снимок за O(n) из списка, уже упорядоченного {@link UserTransactions#ORDER}
+     * и не содержащего повторяющихся id.
+     */
+    static TransactionSnapshot ofSorted(List<TransactionDtoResponse> sorted) {
+        int n = sorted.size();
+        int[] priorities = new int[n];
+        int[] left = new int[n];
+        int[] right = new int[n];
+        int[] stack = new int[n];
+        int top = -1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < n; i++) {
+            priorities[i] = random.nextInt();
+            left[i] = -1;
+            right[i] = -1;
+            int last = -1;
+            while (top >= 0 && priorities[stack[top]] < priorities[i]) {
+                last = stack[top--];
+            }
+            left[i] = last;
+            if (top >= 0) {
+                right[stack[top]] = i;
+            }
+            stack[++top] = i;
+        }
+        return new TransactionSnapshot(
+                top < 0 ? null : build(stack[0], sorted, priorities, left, right));
+    }
+
+    private static Node build(int index, List<TransactionDtoResponse> sorted,
+                              int[] priorities, int[] left, int[] right) {
+        Node leftNode = left[index] < 0
+                ? null : build(left[index], sorted, priorities, left, right);
+        Node rightNode = right[index] < 0
+                ? null : build(right[index], sorted, priorities, left, right);
+        return new Node(sorted.get(index), priorities[index], leftNode, rightNode);
+    }
+
+    TransactionSnapshot insert(TransactionDtoResponse transaction) {
+        return new TransactionSnapshot(insert(root,
+                new Node(transaction, ThreadLocalRandom.current().nextInt(), null, null)));
+    }
+
+    TransactionSnapshot remove(TransactionDtoResponse transaction) {
+        return new TransactionSnapshot(remove(root, transaction));
+    }
+
+    @Override
+    public TransactionDtoResponse get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Iterator<TransactionDtoResponse> iterator() {
+        return new InOrderIterator(root);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.value);
+            return new Node(inserted.value, inserted.priority, parts[0], parts[1]);
+        }
+        if (ORDER.compare(inserted.value, node.value) < 0) {
+            return node.withChildren(insert(node.left, inserted), node.right);
+        }
+        return node.withChildren(node.left, insert(node.right, inserted));
+    }
+
+    private static Node remove(Node node, TransactionDtoResponse value) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = ORDER.compare(value, node.value);
+        if (comparison == 0) {
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            Node left = remove(node.left, value);
+            return left == node.left ? node : node.withChildren(left, node.right);
+        }
+        Node right = remove(node.right, value);
+        return right == node.right ? node : node.withChildren(node.left, right);
+    }
+
+    /**
+     * Делит дерево на элементы строго меньше {@code key} и все остальные.
+     */
+    private static Node[] split(Node node, TransactionDtoResponse key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (ORDER.compare(node.value, key) < 0) {
+            Node[] parts = split(node.right, key);
+            parts[0] = node.withChildren(node.left, parts[0]);
+            return parts;
+        }
+        Node[] parts = split(node.left, key);
+        parts[1] = node.withChildren(parts[1], node.right);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.withChildren(left.left, merge(left.right, right));
+        }
+        return right.withChildren(merge(left, right.left), right.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+
+        private final TransactionDtoResponse value;
+        private final int priority;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        private Node(TransactionDtoResponse value, int priority, Node left, Node right) {
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private Node withChildren(Node newLeft, Node newRight) {
+            return new Node(value, priority, newLeft, newRight);
+        }
+    }
+
+    private static final class InOrderIterator implements Iterator<TransactionDtoResponse> {
+
+        private final Deque<Node> path = new ArrayDeque<>();
+
+        private InOrderIterator(Node root) {
+            pushLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public TransactionDtoResponse next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = path.pop();
+            pushLeft(node.right);
+            return node.value;
+        }
+
+        private void pushLeft(Node node) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+
+import java.util.List;
+
+/**
+ * Грубая оценка объёма памяти, занимаемого закешированными транзакциями.
+ *
+ * <p>Оценка рассчитана на 64-битную JVM со сжатыми указателями и не обязана
+ * быть точной: она нужна только для того, чтобы вытеснение шло по реальному
+ * весу записей, а не по их количеству.
+ */
+public final class TransactionWeigher {
+
+    private static final long LIST_OVERHEAD = 40;
+    private static final long REFERENCE = 4;
+    // Узел снимка TransactionSnapshot, узел HashMap и упакованный id в UserTransactions
+    private static final long INDEX_ENTRY = 80;
+    private static final long TRANSACTION_DTO = 56;
+    private static final long LOCAL_DATE = 24;
+    private static final long TAG_DTO = 32;
+    private static final long STRING_OVERHEAD = 40;
+
+    private TransactionWeigher() {
+    }
+
+    public static long weigh(List<TransactionDtoResponse> transactions) {
+        long weight = LIST_OVERHEAD;
+        for (TransactionDtoResponse transaction : transactions) {
+            weight += weigh(transaction);
+        }
+        return weight;
+    }
+
+    /**
+     * Вес одной транзакции вместе с обслуживающими её узлами индексов кеша.
+     */
+    public static long weigh(TransactionDtoResponse transaction) {
+        long weight = INDEX_ENTRY + TRANSACTION_DTO
+                + weigh(transaction.getName())
+                + weigh(transaction.getDescription());
+        if (transaction.getDate() != null) {
+            weight += LOCAL_DATE;
+        }
+        List<TagDtoResponse> tags = transaction.getTags();
+        if (tags != null) {
+            weight += LIST_OVERHEAD;
+            for (TagDtoResponse tag : tags) {
+                weight += REFERENCE + TAG_DTO + weigh(tag.getTitle());
+            }
+        }
+        return weight;
+    }
+
+    static long weigh(String value) {
+        // Кириллица не помещается в LATIN1, поэтому считаем по два байта на символ
+        return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TagSuggestionDto;
+import com.example.financery.dto.TransactionDtoResponse;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Статистика тегов одного пользователя для подсказок: сколько раз теги
+ * встречались вместе и сколько раз слово из названия транзакции
+ * сопровождалось каждым тегом.
+ *
+ * <p>Учитываются только транзакции с тегами. Для каждой хранится её вклад,
+ * поэтому изменение и удаление транзакции вычитают ровно то, что было
+ * добавлено, без обращения к БД. Методы синхронизированы.
+ */
+final class UserTagStats {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private final Map<Long, String> titles = new HashMap<>();
+    private final LongIntCounter tagCounts = new LongIntCounter();
+    private final Map<Long, LongIntCounter> coOccurrence = new HashMap<>();
+    private final Map<String, TokenStats> tokens = new HashMap<>();
+    private final Map<Long, Tagged> transactions = new HashMap<>();
+
+    private record Tagged(String[] tokens, long[] tagIds) {
+    }
+
+    private static final class TokenStats {
+        private int transactions;
+        private final LongIntCounter tags = new LongIntCounter();
+    }
+
+    /**
+     * Строит статистику по строкам истории, упорядоченным по id транзакции.
+     */
+    static UserTagStats of(List<TagUsage> usages) {
+        UserTagStats stats = new UserTagStats();
+        int start = 0;
+        while (start < usages.size()) {
+            long transactionId = usages.get(start).transactionId();
+            int end = start;
+            while (end < usages.size() && usages.get(end).transactionId() == transactionId) {
+                stats.titles.put(usages.get(end).tagId(), usages.get(end).title());
+                end++;
+            }
+            long[] tagIds = usages.subList(start, end).stream()
+                    .mapToLong(TagUsage::tagId).distinct().toArray();
+            stats.apply(transactionId,
+                    new Tagged(tokenize(usages.get(start).name()), tagIds), 1);
+            start = end;
+        }
+        return stats;
+    }
+
+    synchronized void upsert(TransactionDtoResponse transaction) {
+        remove(transaction.getId());
+        List<TagDtoResponse> tags = transaction.getTags();
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        tags.forEach(tag -> titles.put(tag.getId(), tag.getTitle()));
+        long[] tagIds = tags.stream().mapToLong(TagDtoResponse::getId).distinct().toArray();
+        apply(transaction.getId(), new Tagged(tokenize(transaction.getName()), tagIds), 1);
+    }
+
+    synchronized void remove(long transactionId) {
+        Tagged previous = transactions.get(transactionId);
+        if (previous != null) {
+            apply(transactionId, previous, -1);
+        }
+    }
+
+    synchronized void renameTag(long tagId, String title) {
+        titles.computeIfPresent(tagId, (id, current) -> title);
+    }
+
+    /**
+     * Убирает тег из вклада каждой транзакции, у которой он был.
+     */
+    synchronized void removeTag(long tagId) {
+        List<Map.Entry<Long, Tagged>> affected = transactions.entrySet().stream()
+                .filter(entry -> Arrays.stream(entry.getValue().tagIds())
+                        .anyMatch(id -> id == tagId))
+                .toList();
+        for (Map.Entry<Long, Tagged> entry : affected) {
+            Tagged tagged = entry.getValue();
+            apply(entry.getKey(), tagged, -1);
+            long[] remaining = Arrays.stream(tagged.tagIds()).filter(id -> id != tagId).toArray();
+            if (remaining.length > 0) {
+                apply(entry.getKey(), new Tagged(tagged.tokens(), remaining), 1);
+            }
+        }
+        titles.remove(tagId);
+    }
+
+    /**
+     * Подсказывает теги для транзакции с названием {@code name}, к которой уже
+     * выбраны теги {@code chosenTagIds}.
+     *
+     * <p>Вес тега - сумма долей транзакций с тем же словом в названии, где
+     * встречался тег, и долей транзакций с каждым выбранным тегом, где тег
+     * встречался вместе с ним. Если ни слова, ни выбранные теги ничего не
+     * дают, подсказываются самые частые теги пользователя.
+     */
+    synchronized List<TagSuggestionDto> suggest(
+            String name, Collection<Long> chosenTagIds, int limit) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (String token : tokenize(name)) {
+            TokenStats stats = tokens.get(token);
+            if (stats != null) {
+                stats.tags.forEach((tagId, count) -> scores.merge(
+                        tagId, (double) count / stats.transactions, Double::sum));
+            }
+        }
+        for (Long chosen : chosenTagIds) {
+            LongIntCounter pairs = coOccurrence.get(chosen);
+            if (pairs != null) {
+                int total = tagCounts.get(chosen);
+                pairs.forEach((tagId, count) -> scores.merge(
+                        tagId, (double) count / total, Double::sum));
+            }
+        }
+        if (scores.isEmpty() && !transactions.isEmpty()) {
+            tagCounts.forEach((tagId, count) ->
+                    scores.put(tagId, (double) count / transactions.size()));
+        }
+        chosenTagIds.forEach(scores::remove);
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new TagSuggestionDto(
+                        entry.getKey(), titles.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Различные слова названия в нижнем регистре, короткие слова отбрасываются.
+     */
+    static String[] tokenize(String name) {
+        if (name == null) {
+            return new String[0];
+        }
+        return Arrays.stream(name.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private void apply(long transactionId, Tagged tagged, int sign) {
+        if (sign > 0) {
+            transactions.put(transactionId, tagged);
+        } else {
+            transactions.remove(transactionId);
+        }
+        long[] tagIds = tagged.tagIds();
+        for (long tagId : tagIds) {
+            tagCounts.add(tagId, sign);
+            for (long other : tagIds) {
+                if (other != tagId) {
+                    addPair(tagId, other, sign);
+                }
+            }
+        }
+        for (String token : tagged.tokens()) {
+            TokenStats stats = tokens.computeIfAbsent(token, key -> new TokenStats());
+            stats.transactions += sign;
+            for (long tagId : tagIds) {
+                stats.tags.add(tagId, sign);
+            }
+            if (stats.transactions == 0) {
+                tokens.remove(token);
+            }
+        }
+    }
+
+    private void addPair(long tagId, long other, int sign) {
+        LongIntCounter pairs = coOccurrence.computeIfAbsent(tagId, id -> new LongIntCounter());
+        pairs.add(other, sign);
+        if (pairs.size() == 0) {
+            coOccurrence.remove(tagId);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Транзакции одного пользователя, упорядоченные по дате и id, с индексом по id.
+ *
+ * <p>Вставка, замена и удаление одной транзакции выполняются за O(log n)
+ * и публикуют новый неизменяемый {@link TransactionSnapshot}. Писатели
+ * работают под блокировкой сегмента кеша, читатели берут текущий снимок
+ * без блокировок и копирования.
+ *
+ * <p>Теги транзакций хранятся в общем словаре пользователя: все транзакции
+ * ссылаются на один экземпляр {@link TagDtoResponse} на тег. Опубликованные
+ * транзакции и теги не меняются. Переименование тега создаёт новый экземпляр
+ * и публикует его вместе со снимком в таблице переименованных тегов, не трогая
+ * транзакции, поэтому стоит одинаково при любом количестве транзакций с тегом.
+ * Транзакции, сохранённые со старым экземпляром, получают новый при чтении
+ * (см. {@link Published}), а записанные позже ссылаются на него сразу.
+ * Удаление тега публикует копии транзакций без него в новом снимке. Уже
+ * выданные читателям списки остаются прежними.
+ */
+final class UserTransactions {
+
+    static final Comparator<TransactionDtoResponse> ORDER = Comparator
+            .comparing(TransactionDtoResponse::getDate,
+                    Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+            .thenComparingLong(TransactionDtoResponse::getId);
+
+    private final Map<Long, TransactionDtoResponse> byId = new HashMap<>();
+    private final Map<Long, TagDtoResponse> tags = new HashMap<>();
+    private TransactionSnapshot snapshot;
+    // Текущие экземпляры переименованных тегов; только заменяется целиком
+    private Map<Long, TagDtoResponse> renamed = Map.of();
+    private volatile Published published;
+
+    UserTransactions(List<TransactionDtoResponse> transactions) {
+        transactions.forEach(transaction -> {
+            intern(transaction);
+            byId.put(transaction.getId(), transaction);
+        });
+        List<TransactionDtoResponse> sorted = new ArrayList<>(byId.values());
+        sorted.sort(ORDER);
+        this.snapshot = TransactionSnapshot.ofSorted(sorted);
+        publish();
+    }
+
+    /**
+     * Добавляет или заменяет транзакцию и возвращает прежнюю версию, если она была.
+     */
+    TransactionDtoResponse upsert(TransactionDtoResponse transaction) {
+        intern(transaction);
+        TransactionDtoResponse previous = byId.put(transaction.getId(), transaction);
+        if (previous != null) {
+            snapshot = snapshot.remove(previous);
+        }
+        snapshot = snapshot.insert(transaction);
+        publish();
+        return previous;
+    }
+
+    /**
+     * Добавляет или заменяет пачку транзакций и публикует один снимок вместо
+     * снимка на каждую. Возвращает прежние версии заменённых транзакций.
+     */
+    List<TransactionDtoResponse> upsertAll(Collection<TransactionDtoResponse> transactions) {
+        transactions.forEach(this::intern);
+        List<TransactionDtoResponse> replaced = new ArrayList<>();
+        for (TransactionDtoResponse transaction : transactions) {
+            TransactionDtoResponse previous = byId.put(transaction.getId(), transaction);
+            if (previous != null) {
+                snapshot = snapshot.remove(previous);
+                replaced.add(previous);
+            }
+            snapshot = snapshot.insert(transaction);
+        }
+        publish();
+        return replaced;
+    }
+
+    TransactionDtoResponse remove(long transactionId) {
+        TransactionDtoResponse removed = byId.remove(transactionId);
+        if (removed != null) {
+            snapshot = snapshot.remove(removed);
+            publish();
+        }
+        return removed;
+    }
+
+    /**
+     * Меняет название тега в словаре пользователя, не обходя транзакции.
+     *
+     * @return прежнее название или {@code null}, если тега нет или название то же
+     */
+    String renameTag(long tagId, String title) {
+        TagDtoResponse current = tags.get(tagId);
+        if (current == null || Objects.equals(current.getTitle(), title)) {
+            return null;
+        }
+        TagDtoResponse replacement = new TagDtoResponse();
+        replacement.setId(current.getId());
+        replacement.setTitle(title);
+        replacement.setUserId(current.getUserId());
+        rename(replacement);
+        publish();
+        return current.getTitle();
+    }
+
+    /**
+     * Убирает тег из всех транзакций пользователя за один проход. Транзакции
+     * с тегом заменяются копиями без него в новом снимке, выданные ранее
+     * снимки не меняются.
+     *
+     * @return изменение оценочного веса по заменённым транзакциям,
+     *         {@code 0}, если тега нет ни у одной транзакции
+     */
+    long removeTag(long tagId) {
+        TagDtoResponse removed = tags.remove(tagId);
+        if (removed == null) {
+            return 0;
+        }
+        if (renamed.containsKey(tagId)) {
+            Map<Long, TagDtoResponse> newRenamed = new HashMap<>(renamed);
+            newRenamed.remove(tagId);
+            renamed = Map.copyOf(newRenamed);
+        }
+        List<TransactionDtoResponse> affected = new ArrayList<>();
+        for (TransactionDtoResponse transaction : byId.values()) {
+            if (hasTag(transaction, tagId)) {
+                affected.add(transaction);
+            }
+        }
+        long delta = 0;
+        for (TransactionDtoResponse transaction : affected) {
+            List<TagDtoResponse> newTags = new ArrayList<>(transaction.getTags().size());
+            for (TagDtoResponse tag : transaction.getTags()) {
+                if (tag.getId() != tagId) {
+                    newTags.add(tags.getOrDefault(tag.getId(), tag));
+                }
+            }
+            TransactionDtoResponse copy = withTags(transaction, newTags);
+            byId.put(copy.getId(), copy);
+            snapshot = snapshot.remove(transaction).insert(copy);
+            delta += TransactionWeigher.weigh(copy) - TransactionWeigher.weigh(transaction);
+        }
+        publish();
+        return delta;
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    List<TransactionDtoResponse> asList() {
+        return published;
+    }
+
+    private void publish() {
+        published = new Published(snapshot, renamed);
+    }
+
+    /**
+     * Заменяет теги ещё не опубликованной транзакции экземплярами из словаря
+     * пользователя. Другое название в более новой транзакции переименовывает тег.
+     */
+    private void intern(TransactionDtoResponse transaction) {
+        List<TagDtoResponse> transactionTags = transaction.getTags();
+        if (transactionTags == null || transactionTags.isEmpty()) {
+            return;
+        }
+        List<TagDtoResponse> shared = new ArrayList<>(transactionTags.size());
+        for (TagDtoResponse tag : transactionTags) {
+            TagDtoResponse known = tags.putIfAbsent(tag.getId(), tag);
+            if (known != null && !Objects.equals(known.getTitle(), tag.getTitle())) {
+                rename(tag);
+                known = tag;
+            }
+            shared.add(known != null ? known : tag);
+        }
+        transaction.setTags(shared);
+    }
+
+    private void rename(TagDtoResponse replacement) {
+        tags.put(replacement.getId(), replacement);
+        Map<Long, TagDtoResponse> newRenamed = new HashMap<>(renamed);
+        newRenamed.put(replacement.getId(), replacement);
+        renamed = Map.copyOf(newRenamed);
+    }
+
+    private static boolean hasTag(TransactionDtoResponse transaction, long tagId) {
+        List<TagDtoResponse> transactionTags = transaction.getTags();
+        if (transactionTags == null) {
+            return false;
+        }
+        for (TagDtoResponse tag : transactionTags) {
+            if (tag.getId() == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TransactionDtoResponse withTags(TransactionDtoResponse source,
+                                                   List<TagDtoResponse> tags) {
+        TransactionDtoResponse copy = new TransactionDtoResponse();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setTags(tags);
+        copy.setType(source.isType());
+        copy.setAmount(source.getAmount());
+        copy.setDate(source.getDate());
+        copy.setUserId(source.getUserId());
+        copy.setBillId(source.getBillId());
+        return copy;
+    }
+
+    /**
+     * Опубликованный снимок вместе с таблицей переименованных тегов на момент
+     * публикации. Транзакция, сохранённая со старым экземпляром тега, выдаётся
+     * копией с текущим экземпляром; остальные выдаются как есть.
+     */
+    private static final class Published extends AbstractList<TransactionDtoResponse>
+            implements RandomAccess {
+
+        private final TransactionSnapshot snapshot;
+        private final Map<Long, TagDtoResponse> renamed;
+
+        private Published(TransactionSnapshot snapshot, Map<Long, TagDtoResponse> renamed) {
+            this.snapshot = snapshot;
+            this.renamed = renamed;
+        }
+
+        @Override
+        public TransactionDtoResponse get(int index) {
+            return resolve(snapshot.get(index));
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+
+        @Override
+        public Iterator<TransactionDtoResponse> iterator() {
+            Iterator<TransactionDtoResponse> rows = snapshot.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return rows.hasNext();
+                }
+
+                @Override
+                public TransactionDtoResponse next() {
+                    return resolve(rows.next());
+                }
+            };
+        }
+
+        private TransactionDtoResponse resolve(TransactionDtoResponse transaction) {
+            List<TagDtoResponse> own = transaction.getTags();
+            if (renamed.isEmpty() || own == null || !isStale(own)) {
+                return transaction;
+            }
+            List<TagDtoResponse> current = new ArrayList<>(own.size());
+            for (TagDtoResponse tag : own) {
+                current.add(renamed.getOrDefault(tag.getId(), tag));
+            }
+            return withTags(transaction, current);
+        }
+
+        private boolean isStale(List<TagDtoResponse> own) {
+            for (TagDtoResponse tag : own) {
+                TagDtoResponse current = renamed.get(tag.getId());
+                if (current != null && current != tag) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.financery.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Значения по ключу, которые строятся по первому запросу, а затем
+ * поддерживаются записями. Основа индексов в памяти: {@link TransactionColumnStore},
+ * {@link BillBalanceIndex}, {@link TagSuggestionIndex} и {@link AutocompleteIndex}.
+ *
+ * <p>Ключи распределяются по сегментам так же, как в {@link InMemoryCache}:
+ * чтение не берёт блокировок, а изменение берёт блокировку сегмента и меняет
+ * его версию. Результат загрузки сохраняется, только если версия сегмента
+ * за время загрузки не изменилась, поэтому данные, прочитанные до записи,
+ * не переживают её. Количество значений ограничено, при переполнении
+ * сегмента вытесняется значение, к которому дольше всего не обращались.
+ */
+public final class VersionedLruStore<V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+    private final AtomicLong evictions = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public VersionedLruStore(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalStateException("Лимит хранимых значений должен быть больше 0");
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(MAX_SEGMENTS, maxEntries));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(maxEntries / segmentCount);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    public V get(Long key) {
+        Entry<V> entry = segmentFor(key).entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.value;
+    }
+
+    /**
+     * Возвращает сохранённое значение, а при его отсутствии строит новое через
+     * {@code loader}. Построенное значение сохраняется, если за время загрузки
+     * по ключам сегмента не было записей, иначе возвращается без сохранения.
+     */
+    public V getOrLoad(Long key, Supplier<V> loader) {
+        V stored = get(key);
+        if (stored != null) {
+            return stored;
+        }
+        Segment<V> segment = segmentFor(key);
+        long loadVersion = segment.version();
+        V loaded = loader.get();
+
+        segment.lock.lock();
+        try {
+            Entry<V> current = segment.entries.get(key);
+            if (current != null) {
+                current.touch();
+                return current.value;
+            }
+            if (loadVersion != segment.version) {
+                return loaded;
+            }
+            segment.entries.put(key, new Entry<>(loaded));
+            evictIfNeeded(segment);
+            return loaded;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Применяет изменение к сохранённому значению, если оно есть. Изменение
+     * может вернуть тот же объект, изменив его на месте, или новый.
+     */
+    public void update(Long key, UnaryOperator<V> change) {
+        Segment<V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Entry<V> entry = segment.entries.get(key);
+            if (entry != null) {
+                entry.value = change.apply(entry.value);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void remove(Long key) {
+        Segment<V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            segment.entries.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.version++;
+                segment.entries.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.entries.size();
+        }
+        return size;
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private void evictIfNeeded(Segment<V> segment) {
+        while (segment.entries.size() > segment.capacity) {
+            Map.Entry<Long, Entry<V>> eldest = null;
+            for (Map.Entry<Long, Entry<V>> candidate : segment.entries.entrySet()) {
+                if (eldest == null
+                        || candidate.getValue().lastAccess < eldest.getValue().lastAccess) {
+                    eldest = candidate;
+                }
+            }
+            segment.entries.remove(eldest.getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private Segment<V> segmentFor(Long key) {
+        // Перемешиваем биты, чтобы последовательные id равномерно ложились по сегментам
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private static final class Entry<V> {
+
+        private volatile V value;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(V value) {
+            this.value = value;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    private static final class Segment<V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Entry<V>> entries = new ConcurrentHashMap<>();
+        private final int capacity;
+        private long version;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private long version() {
+            lock.lock();
+            try {
+                return version;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.financery.service.impl;
 
+import com.example.financery.dto.BalancePointDto;
 import com.example.financery.dto.BillDtoRequest;
 import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.BillSummaryDto;
 import com.example.financery.exception.InvalidInputException;
 import com.example.financery.exception.NotFoundException;
 import com.example.financery.mapper.BillMapper;
 import com.example.financery.model.Bill;
 import com.example.financery.model.User;
 import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.DayFenwickTree;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
 import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,9 +29,13 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
 
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,9 +50,30 @@ class BillServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
     @Mock
     private BillMapper billMapper;
 
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private BillBalanceIndex billBalanceIndex;
+
+    @Mock
+    private InMemoryCache cache;
+
+    @Mock
+    private TransactionColumnStore columnStore;
+
+    @Mock
+    private TagSuggestionIndex suggestionIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
     @InjectMocks
     private BillServiceImpl billService;
 
@@ -51,24 +86,24 @@ class BillServiceImplTest {
     void setUp() {
         user = new User();
         user.setId(1L);
-        user.setBalance(1000.0);
+        user.setBalance(100_000L);
 
         bill = new Bill();
         bill.setId(1L);
         bill.setName("Test Bill");
-        bill.setBalance(500.0);
+        bill.setBalance(50_000L);
         bill.setUser(user);
         bill.setTransactions(new ArrayList<>());
 
         billDtoRequest = new BillDtoRequest();
         billDtoRequest.setName("Test Bill");
-        billDtoRequest.setBalance(500.0);
+        billDtoRequest.setBalance(50_000L);
         billDtoRequest.setUserId(1L);
 
         billDtoResponse = new BillDtoResponse();
         billDtoResponse.setId(1L);
         billDtoResponse.setName("Test Bill");
-        billDtoResponse.setBalance(500.0);
+        billDtoResponse.setBalance(50_000L);
         billDtoResponse.setUserId(1L);
     }
 
@@ -229,6 +264,36 @@ class BillServiceImplTest {
         }
     }
 
+    @Test
+    void getBillSummaries_useProjectionsWithoutTransactions() {
+        BillSummaryDto summary = new BillSummaryDto(1L, "Test Bill", 50_000L, 1L);
+        when(billRepository.findAllSummaries()).thenReturn(List.of(summary));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(billRepository.findSummariesByUserId(1L)).thenReturn(List.of(summary));
+        when(billRepository.findSummaryById(1L)).thenReturn(Optional.of(summary));
+
+        assertEquals(List.of(summary), billService.getAllBillSummaries());
+        assertEquals(List.of(summary), billService.getBillSummariesByUserId(1L));
+        assertEquals(summary, billService.getBillSummaryById(1L));
+        verify(billRepository, never()).findById(anyLong());
+        verifyNoInteractions(billMapper);
+    }
+
+    @Test
+    void getBillSummaries_missingUserOrBill_throwsNotFoundException() {
+        when(userRepository.existsById(2L)).thenReturn(false);
+        when(billRepository.findSummaryById(3L)).thenReturn(Optional.empty());
+
+        NotFoundException userException = assertThrows(NotFoundException.class,
+                () -> billService.getBillSummariesByUserId(2L));
+        NotFoundException billException = assertThrows(NotFoundException.class,
+                () -> billService.getBillSummaryById(3L));
+
+        assertEquals("Пользователь с id 2 не найден", userException.getMessage());
+        assertEquals("Счет с id 3 не найден", billException.getMessage());
+        verify(billRepository, never()).findSummariesByUserId(anyLong());
+    }
+
     @Test
     void getBillById_billNotFound_throwsNotFoundException() {
         when(billRepository.findById(1L)).thenReturn(Optional.empty());
@@ -285,16 +350,16 @@ class BillServiceImplTest {
 
         assertNotNull(result);
         assertEquals(billDtoResponse, result);
-        assertEquals(1500.0, user.getBalance());
         verify(userRepository).findById(1L);
         verify(billRepository).save(bill);
+        verify(userRepository).addToBalance(1L, 50_000L);
         verify(billMapper).toBill(billDtoRequest);
         verify(billMapper).toBillDto(bill);
     }
 
     @Test
     void createBill_negativeBalance_throwsInvalidInputException() {
-        billDtoRequest.setBalance(-100.0);
+        billDtoRequest.setBalance(-10_000L);
 
         InvalidInputException exception = assertThrows(InvalidInputException.class,
                 () -> billService.createBill(billDtoRequest));
@@ -355,34 +420,34 @@ class BillServiceImplTest {
 
     @Test
     void updateBill_success() {
-        billDtoRequest.setBalance(600.0);
-        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+        billDtoRequest.setBalance(60_000L);
+        when(billRepository.lockById(1L)).thenReturn(Optional.of(bill));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(billRepository.save(bill)).thenReturn(bill);
-        when(userRepository.save(user)).thenReturn(user);
         when(billMapper.toBillDto(bill)).thenReturn(billDtoResponse);
+        when(billRepository.addToBalance(1L, 10_000L)).thenReturn(1);
 
         BillDtoResponse result = billService.updateBill(1L, billDtoRequest);
 
         assertNotNull(result);
-        assertEquals(billDtoResponse, result);
-        assertEquals(1100.0, user.getBalance());
-        verify(billRepository).findById(1L);
+        assertEquals(60_000L, result.getBalance());
+        verify(billRepository).lockById(1L);
         verify(userRepository).findById(1L);
-        verify(billRepository).save(bill);
-        verify(userRepository).save(user);
+        verify(billRepository).addToBalance(1L, 10_000L);
+        verify(userRepository).addToBalance(1L, 10_000L);
+        verify(billRepository, never()).save(any());
+        verify(userRepository, never()).save(any());
         verify(billMapper).toBillDto(bill);
     }
 
     @Test
     void updateBill_negativeBalance_throwsInvalidInputException() {
-        billDtoRequest.setBalance(-100.0);
+        billDtoRequest.setBalance(-10_000L);
 
         InvalidInputException exception = assertThrows(InvalidInputException.class,
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Баланс счёта не может быть отрицательным", exception.getMessage());
-        verify(billRepository, never()).findById(anyLong());
+        verify(billRepository, never()).lockById(anyLong());
     }
 
     @Test
@@ -393,7 +458,7 @@ class BillServiceImplTest {
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Имя счёта не может быть пустым", exception.getMessage());
-        verify(billRepository, never()).findById(anyLong());
+        verify(billRepository, never()).lockById(anyLong());
     }
 
     @Test
@@ -404,82 +469,99 @@ class BillServiceImplTest {
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Имя счёта не может быть пустым", exception.getMessage());
-        verify(billRepository, never()).findById(anyLong());
+        verify(billRepository, never()).lockById(anyLong());
     }
 
     @Test
     void updateBill_billNotFound_throwsNotFoundException() {
-        when(billRepository.findById(1L)).thenReturn(Optional.empty());
+        when(billRepository.lockById(1L)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Счет с id 1 не найден", exception.getMessage());
-        verify(billRepository).findById(1L);
+        verify(billRepository).lockById(1L);
     }
 
     @Test
     void updateBill_userNotFound_throwsNotFoundException() {
-        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+        when(billRepository.lockById(1L)).thenReturn(Optional.of(bill));
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Пользователь с id 1 не найден", exception.getMessage());
-        verify(billRepository).findById(1L);
+        verify(billRepository).lockById(1L);
         verify(userRepository).findById(1L);
     }
 
     @Test
-    void updateBill_saveBillThrowsException() {
-        billDtoRequest.setBalance(600.0);
-        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+    void updateBill_balanceNotUpdated_throwsInvalidInputException() {
+        billDtoRequest.setBalance(60_000L);
+        when(billRepository.lockById(1L)).thenReturn(Optional.of(bill));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(billRepository.save(bill)).thenThrow(new DataAccessException("Database error") {});
-        when(userRepository.save(user)).thenReturn(user);
+        when(billMapper.toBillDto(bill)).thenReturn(billDtoResponse);
+
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> billService.updateBill(1L, billDtoRequest));
+
+        assertEquals("Баланс счёта не может быть отрицательным", exception.getMessage());
+        verify(userRepository, never()).addToBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    void updateBill_billBalanceUpdateThrowsException() {
+        billDtoRequest.setBalance(60_000L);
+        when(billRepository.lockById(1L)).thenReturn(Optional.of(bill));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(billMapper.toBillDto(bill)).thenReturn(billDtoResponse);
+        when(billRepository.addToBalance(1L, 10_000L))
+                .thenThrow(new DataAccessException("Database error") {});
 
         DataAccessException exception = assertThrows(DataAccessException.class,
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Database error", exception.getMessage());
-        verify(billRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(billRepository).save(bill);
-        verify(userRepository).save(user);
-        verify(billMapper, never()).toBillDto(any());
+        verify(billRepository).addToBalance(1L, 10_000L);
+        verify(userRepository, never()).addToBalance(anyLong(), anyLong());
     }
 
     @Test
-    void updateBill_saveUserThrowsException() {
-        billDtoRequest.setBalance(600.0);
-        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+    void updateBill_userBalanceUpdateThrowsException() {
+        billDtoRequest.setBalance(60_000L);
+        when(billRepository.lockById(1L)).thenReturn(Optional.of(bill));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenThrow(new DataAccessException("Database error") {});
+        when(billMapper.toBillDto(bill)).thenReturn(billDtoResponse);
+        when(billRepository.addToBalance(1L, 10_000L)).thenReturn(1);
+        when(userRepository.addToBalance(1L, 10_000L))
+                .thenThrow(new DataAccessException("Database error") {});
 
         DataAccessException exception = assertThrows(DataAccessException.class,
                 () -> billService.updateBill(1L, billDtoRequest));
 
         assertEquals("Database error", exception.getMessage());
-        verify(billRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(userRepository).save(user);
-        verify(billRepository, never()).save(any());
+        verify(billRepository).addToBalance(1L, 10_000L);
+        verify(userRepository).addToBalance(1L, 10_000L);
     }
 
     @Test
     void deleteBill_success() {
         when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
 
         billService.deleteBill(1L);
 
-        assertEquals(500.0, user.getBalance());
         verify(billRepository).findById(1L);
         verify(userRepository).findById(1L);
-        verify(userRepository).save(user);
+        verify(userRepository).addToBalance(1L, -50_000L);
+        verify(dailyRollupRepository).deleteByBillId(1L);
         verify(billRepository).deleteById(1L);
+        verify(billBalanceIndex).clearForBill(1L);
+        verify(cache).clearForUser(1L);
+        verify(columnStore).clearForUser(1L);
+        verify(suggestionIndex).clearForUser(1L);
+        verify(autocompleteIndex).clearForUser(1L);
     }
 
     @Test
@@ -508,10 +590,11 @@ class BillServiceImplTest {
     }
 
     @Test
-    void deleteBill_saveUserThrowsException() {
+    void deleteBill_userBalanceUpdateThrowsException() {
         when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenThrow(new DataAccessException("Database error") {});
+        when(userRepository.addToBalance(1L, -50_000L))
+                .thenThrow(new DataAccessException("Database error") {});
 
         DataAccessException exception = assertThrows(DataAccessException.class,
                 () -> billService.deleteBill(1L));
@@ -519,7 +602,53 @@ class BillServiceImplTest {
         assertEquals("Database error", exception.getMessage());
         verify(billRepository).findById(1L);
         verify(userRepository).findById(1L);
-        verify(userRepository).save(user);
+        verify(userRepository).addToBalance(1L, -50_000L);
         verify(billRepository, never()).deleteById(anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getBalanceTimeline_success() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+        when(transactionRepository.sumByDayForBill(1L)).thenReturn(List.of(
+                new Object[]{Date.valueOf(start), 60_000L},
+                new Object[]{Date.valueOf(start.plusDays(10)), -10_000L}));
+        when(billBalanceIndex.getOrLoad(eq(1L), any())).thenAnswer(invocation ->
+                DayFenwickTree.of(((Supplier<Map<LocalDate, Long>>) invocation
+                        .getArgument(1)).get()));
+
+        List<BalancePointDto> timeline = billService.getBalanceTimeline(
+                1L, start.minusDays(7), start.plusDays(10), "week");
+
+        // Текущий баланс 500.00 получен после дохода 600.00 и расхода 100.00
+        assertEquals(List.of(
+                new BalancePointDto(start.minusDays(7), 0L),
+                new BalancePointDto(start, 60_000L),
+                new BalancePointDto(start.plusDays(7), 60_000L),
+                new BalancePointDto(start.plusDays(10), 50_000L)), timeline);
+    }
+
+    @Test
+    void getBalanceTimeline_invalidStepOrPeriod_throwsInvalidInputException() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+
+        assertThrows(InvalidInputException.class,
+                () -> billService.getBalanceTimeline(1L, day.plusDays(1), day, "day"));
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> billService.getBalanceTimeline(1L, day, day, "year"));
+        assertEquals("Неизвестный шаг: year, используй day, week или month",
+                exception.getMessage());
+        verify(billRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getBalanceTimeline_tooManyPoints_throwsInvalidInputException() {
+        LocalDate day = LocalDate.of(2020, 1, 1);
+        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+
+        assertThrows(InvalidInputException.class,
+                () -> billService.getBalanceTimeline(1L, day, day.plusYears(5), "day"));
+        verify(billBalanceIndex, never()).getOrLoad(anyLong(), any());
+    }
+}
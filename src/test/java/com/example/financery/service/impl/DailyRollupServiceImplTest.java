@@ -0,0 +1,134 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.DailyRollupReportDto;
+import com.example.financery.dto.TransactionDtoRequest;
+import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.mapper.TagMapper;
+import com.example.financery.mapper.TransactionMapper;
+import com.example.financery.model.Bill;
+import com.example.financery.model.DailyRollup;
+import com.example.financery.model.DailyRollupId;
+import com.example.financery.model.User;
+import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.UserRepository;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.BillLockManager;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({TransactionServiceImpl.class, TransactionMapper.class, TagMapper.class,
+    InMemoryCache.class, TransactionColumnStore.class, BillBalanceIndex.class,
+    BillLockManager.class, DailyRollupServiceImpl.class, TagSuggestionIndex.class,
+    AutocompleteIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyRollupServiceImplTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+
+    @Autowired
+    private DailyRollupServiceImpl dailyRollupService;
+
+    @Autowired
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    private User user;
+    private Bill bill;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Итоговый");
+        user.setEmail("rollup-" + System.nanoTime() + "@example.com");
+        user.setBalance(100_000L);
+        userRepository.save(user);
+        bill = new Bill();
+        bill.setName("Итоговый");
+        bill.setBalance(100_000L);
+        bill.setUser(user);
+        billRepository.save(bill);
+    }
+
+    private TransactionDtoRequest request(boolean type, long amount, LocalDate date) {
+        TransactionDtoRequest request = new TransactionDtoRequest();
+        request.setName("Итоговая");
+        request.setDescription("Итоговая");
+        request.setType(type);
+        request.setAmount(amount);
+        request.setDate(date);
+        request.setUserId(user.getId());
+        request.setBillId(bill.getId());
+        return request;
+    }
+
+    private DailyRollup rollup(LocalDate day) {
+        return dailyRollupRepository.findById(new DailyRollupId(user.getId(), bill.getId(), day))
+                .orElseThrow();
+    }
+
+    @Test
+    void writes_keepRollupInSyncWithTransactions() {
+        TransactionDtoResponse expense = transactionService.createTransaction(
+                request(false, 1000L, DAY));
+        transactionService.createTransactions(List.of(
+                request(true, 5000L, DAY),
+                request(false, 250L, DAY),
+                request(false, 300L, DAY.plusDays(1))));
+        // Перенос расхода на другой день уменьшает итоги старого дня и увеличивает нового
+        transactionService.updateTransaction(expense.getId(),
+                request(false, 1500L, DAY.plusDays(1)));
+        TransactionDtoResponse income = transactionService.createTransaction(
+                request(true, 700L, DAY.plusDays(2)));
+        transactionService.deleteTransaction(income.getId());
+
+        assertEquals(new DailyRollup(rollup(DAY).getId(), 5000L, 250L, 2), rollup(DAY));
+        assertEquals(new DailyRollup(rollup(DAY.plusDays(1)).getId(), 0L, 1800L, 2),
+                rollup(DAY.plusDays(1)));
+        assertEquals(0, rollup(DAY.plusDays(2)).getCount());
+
+        DailyRollupReportDto report = dailyRollupService.verify();
+        assertTrue(report.getMismatchedUserIds().isEmpty(),
+                "Расхождения: " + report.getMismatchedUserIds());
+    }
+
+    @Test
+    void verify_detectsDriftAndRebuildRepairsIt() {
+        transactionService.createTransaction(request(false, 1000L, DAY));
+        DailyRollup drifted = rollup(DAY);
+        drifted.setExpenseCents(1L);
+        dailyRollupRepository.save(drifted);
+
+        assertEquals(List.of(user.getId()), dailyRollupService.verify().getMismatchedUserIds());
+
+        DailyRollupReportDto rebuilt = dailyRollupService.rebuild();
+        assertTrue(rebuilt.getRows() >= 1);
+        assertEquals(1000L, rollup(DAY).getExpenseCents());
+        assertTrue(dailyRollupService.verify().getMismatchedUserIds().isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.AutocompleteItemDto;
+import com.example.financery.exception.InvalidInputException;
+import com.example.financery.exception.NotFoundException;
+import com.example.financery.model.Tag;
+import com.example.financery.repository.TagRepository;
+import com.example.financery.repository.TransactionRepository;
+import com.example.financery.repository.UserRepository;
+import com.example.financery.utils.AutocompleteIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private SearchServiceImpl searchService;
+
+    @BeforeEach
+    void setUp() {
+        // Индекс настоящий, чтобы проверить загрузку и повторное использование
+        searchService = new SearchServiceImpl(userRepository, tagRepository,
+                transactionRepository, new AutocompleteIndex(10));
+    }
+
+    @Test
+    void autocomplete_loadsIndexOnceAndSearchesInMemory() {
+        Tag tag = new Tag();
+        tag.setId(1L);
+        tag.setTitle("Продукты");
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(tagRepository.findByUser(1L)).thenReturn(List.of(tag));
+        when(transactionRepository.countNamesByUserId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] {"Проезд", 4L}));
+
+        List<AutocompleteItemDto> first = searchService.autocomplete(1L, "про", 10);
+        List<AutocompleteItemDto> second = searchService.autocomplete(1L, "Прое", 10);
+
+        assertEquals(List.of(new AutocompleteItemDto("Продукты", AutocompleteItemDto.TAG),
+                new AutocompleteItemDto("Проезд", AutocompleteItemDto.TRANSACTION)), first);
+        assertEquals(List.of(new AutocompleteItemDto("Проезд", AutocompleteItemDto.TRANSACTION)),
+                second);
+        verify(tagRepository, times(1)).findByUser(1L);
+        verify(transactionRepository, times(1)).countNamesByUserId(1L);
+    }
+
+    @Test
+    void autocomplete_userNotFound_throwsNotFoundException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> searchService.autocomplete(1L, "про", 10));
+
+        assertEquals("Пользователь с id 1 не найден", exception.getMessage());
+        verify(tagRepository, never()).findByUser(anyLong());
+    }
+
+    @Test
+    void autocomplete_invalidInput_throwsInvalidInputException() {
+        assertThrows(InvalidInputException.class,
+                () -> searchService.autocomplete(1L, " ", 10));
+        assertThrows(InvalidInputException.class,
+                () -> searchService.autocomplete(1L, "про", 51));
+        verifyNoInteractions(userRepository, tagRepository, transactionRepository);
+    }
+}
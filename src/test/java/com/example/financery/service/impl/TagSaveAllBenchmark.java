@@ -0,0 +1,138 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.TagDtoRequest;
+import com.example.financery.mapper.TagMapper;
+import com.example.financery.mapper.TransactionMapper;
+import com.example.financery.model.Tag;
+import com.example.financery.model.User;
+import com.example.financery.repository.UserRepository;
+import com.example.financery.service.TagService;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость массового создания тегов ({@code /tags/add-many}) в строках в секунду
+ * на встроенной H2 с пакетной вставкой и без неё.
+ *
+ * <p>{@code batchSize=1} отправляет каждую строку отдельным запросом, как это было
+ * при идентификаторах {@code IDENTITY}, {@code batchSize=50} - настройка из
+ * {@code application.yaml}. Идентификаторы в обоих случаях выдают последовательности,
+ * поэтому разница показывает именно выигрыш от пакетов. На H2 в памяти запрос
+ * почти ничего не стоит, и разница укладывается в погрешность; заметной она
+ * становится там, где каждый запрос - обмен по сети. Для замера на PostgreSQL
+ * настройки подключения передаются форку JMH, например
+ * {@code -jvmArgsAppend "-Dspring.datasource.url=jdbc:postgresql://localhost:5432/bench
+ * -Dspring.datasource.driver-class-name=org.postgresql.Driver
+ * -Dspring.jpa.database=postgresql
+ * -Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect"}
+ * вместе с именем пользователя и паролем.
+ *
+ * <p>Не входит в тесты сборки, запускается вручную через {@link #main}
+ * из IDE или командой
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.financery.service.impl.TagSaveAllBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagSaveAllBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private TagService tagService;
+    private List<TagDtoRequest> requests;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .properties(
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.example.financery=WARN")
+                .run();
+        tagService = context.getBean(TagService.class);
+
+        User user = new User();
+        user.setName("Бенчмарк");
+        user.setEmail("benchmark@example.com");
+        user = context.getBean(UserRepository.class).save(user);
+
+        requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            TagDtoRequest request = new TagDtoRequest();
+            request.setTitle("Тег " + i);
+            request.setUserId(user.getId());
+            requests.add(request);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Tag> saveAll() {
+        return tagService.saveAll(requests);
+    }
+
+    /**
+     * Только JPA и сервис тегов, без веб-слоя и аспектов приложения.
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan("com.example.financery.model")
+    @EnableJpaRepositories("com.example.financery.repository")
+    @Import({TagServiceImpl.class, TagMapper.class, TransactionMapper.class,
+        InMemoryCache.class, TransactionColumnStore.class, TagSuggestionIndex.class,
+        AutocompleteIndex.class})
+    static class BenchmarkConfig {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TagSaveAllBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.TagDtoRequest;
+import com.example.financery.dto.TagSuggestionDto;
+import com.example.financery.mapper.TagMapper;
+import com.example.financery.exception.NotFoundException;
+import com.example.financery.mapper.TransactionMapper;
+import com.example.financery.model.Bill;
+import com.example.financery.model.Tag;
+import com.example.financery.model.Transaction;
+import com.example.financery.model.User;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({TagServiceImpl.class, TagMapper.class, TransactionMapper.class, InMemoryCache.class,
+    TransactionColumnStore.class, TagSuggestionIndex.class, AutocompleteIndex.class})
+class TagServiceImplBatchTest {
+
+    private static final int TAG_COUNT = 200;
+
+    @Autowired
+    private TagServiceImpl tagService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Тестовый");
+        user.setEmail("batch@example.com");
+        entityManager.persistAndFlush(user);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void saveAll_insertsTagsInJdbcBatches() {
+        List<TagDtoRequest> requests = new ArrayList<>();
+        for (int i = 0; i < TAG_COUNT; i++) {
+            TagDtoRequest request = new TagDtoRequest();
+            request.setTitle("Тег " + i);
+            request.setUserId(user.getId());
+            requests.add(request);
+        }
+
+        List<Tag> saved = tagService.saveAll(requests);
+        entityManager.flush();
+
+        assertEquals(TAG_COUNT, saved.size());
+        assertEquals(TAG_COUNT, statistics.getEntityInsertCount());
+        // Поштучная вставка потребовала бы по запросу на каждый тег
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 2L * TAG_COUNT / 50 + 2,
+                "Выполнено запросов: " + statements);
+    }
+
+    @Test
+    void deleteTag_runsFixedNumberOfStatements() {
+        Tag tag = new Tag();
+        tag.setTitle("Удаляемый");
+        tag.setUser(user);
+        entityManager.persist(tag);
+        Bill bill = new Bill();
+        bill.setName("Счет");
+        bill.setBalance(0L);
+        bill.setUser(user);
+        entityManager.persist(bill);
+        List<Long> transactionIds = new ArrayList<>();
+        for (int i = 0; i < TAG_COUNT; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setName("Транзакция " + i);
+            transaction.setAmount(100L);
+            transaction.setDate(LocalDate.of(2025, 1, 1));
+            transaction.setUser(user);
+            transaction.setBill(bill);
+            transaction.setTags(new ArrayList<>(List.of(tag)));
+            entityManager.persist(transaction);
+            transactionIds.add(transaction.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        tagService.deleteTag(tag.getId());
+
+        // Поиск владельца, удаление связей и удаление тега
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        entityManager.clear();
+        assertNull(entityManager.find(Tag.class, tag.getId()));
+        for (Long transactionId : transactionIds) {
+            assertTrue(entityManager.find(Transaction.class, transactionId).getTags().isEmpty());
+        }
+    }
+
+    @Test
+    void suggestTags_learnsFromHistoryOnce() {
+        Tag food = new Tag();
+        food.setTitle("Еда");
+        food.setUser(user);
+        entityManager.persist(food);
+        Bill bill = new Bill();
+        bill.setName("Счет");
+        bill.setBalance(0L);
+        bill.setUser(user);
+        entityManager.persist(bill);
+        Transaction transaction = new Transaction();
+        transaction.setName("Продукты на неделю");
+        transaction.setAmount(100L);
+        transaction.setDate(LocalDate.of(2025, 1, 1));
+        transaction.setUser(user);
+        transaction.setBill(bill);
+        transaction.setTags(new ArrayList<>(List.of(food)));
+        entityManager.persist(transaction);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<TagSuggestionDto> first = tagService.suggestTags(user.getId(), "Продукты", null, 5);
+        long statements = statistics.getPrepareStatementCount();
+        List<TagSuggestionDto> second = tagService.suggestTags(user.getId(), "продукты", null, 5);
+
+        assertEquals(List.of(new TagSuggestionDto(food.getId(), "Еда", 1.0)), first);
+        assertEquals(first, second);
+        // Проверка пользователя и чтение истории только при первом запросе
+        assertEquals(2, statements);
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertThrows(NotFoundException.class,
+                () -> tagService.suggestTags(user.getId() + 1000, "Продукты", null, 5));
+    }
+}
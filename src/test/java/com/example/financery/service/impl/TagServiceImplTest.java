@@ -11,17 +11,19 @@ import com.example.financery.model.Tag;
 import com.example.financery.model.Transaction;
 import com.example.financery.model.User;
 import com.example.financery.repository.TagRepository;
-import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
+import com.example.financery.utils.AutocompleteIndex;
 import com.example.financery.utils.InMemoryCache;
-import org.hibernate.Hibernate;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -41,9 +43,6 @@ class TagServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private TransactionRepository transactionRepository;
-
     @Mock
     private TagMapper tagMapper;
 
@@ -53,6 +52,15 @@ class TagServiceImplTest {
     @Mock
     private InMemoryCache cache;
 
+    @Mock
+    private TransactionColumnStore columnStore;
+
+    @Mock
+    private TagSuggestionIndex suggestionIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
     @InjectMocks
     private TagServiceImpl tagService;
 
@@ -240,6 +248,7 @@ class TagServiceImplTest {
         verify(userRepository).findAllById(List.of(1L));
         verify(tagMapper).toTag(tagDtoRequest);
         verify(tagRepository).saveAll(any());
+        verify(autocompleteIndex).addTag(1L, 1L, "Test Tag");
     }
 
     @Test
@@ -272,6 +281,23 @@ class TagServiceImplTest {
         verify(tagMapper).toTagDto(tag);
     }
 
+    @Test
+    void createTag_insideTransaction_addsToAutocompleteAfterCommit() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(tagMapper.toTag(tagDtoRequest)).thenReturn(tag);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tagService.createTag(tagDtoRequest);
+            verify(autocompleteIndex, never()).addTag(anyLong(), anyLong(), any());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(autocompleteIndex).addTag(1L, 1L, "Test Tag");
+    }
+
     @Test
     void createTag_userNotFound_throwsNotFoundException() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -288,7 +314,6 @@ class TagServiceImplTest {
     void updateTag_success() {
         tagDtoRequest.setTitle("Updated Tag");
         when(tagRepository.findById(1L)).thenReturn(Optional.of(tag));
-        when(tagRepository.findTransactionsByTag(1L)).thenReturn(Collections.emptyList());
         when(tagRepository.save(tag)).thenReturn(tag);
         when(tagMapper.toTagDto(tag)).thenReturn(tagDtoResponse);
 
@@ -296,34 +321,30 @@ class TagServiceImplTest {
 
         assertNotNull(result);
         assertEquals(tagDtoResponse, result);
-        verify(tagRepository, times(2)).findById(1L);
-        verify(tagRepository).findTransactionsByTag(1L);
+        assertEquals("Updated Tag", tag.getTitle());
+        verify(tagRepository).findById(1L);
         verify(tagRepository).save(tag);
         verify(tagMapper).toTagDto(tag);
-        verify(cache, never()).updateTransaction(anyLong(), any());
+        verify(cache).renameTag(1L, 1L, "Updated Tag");
+        verify(columnStore).renameTag(1L, 1L, "Updated Tag");
+        verify(suggestionIndex).renameTag(1L, 1L, "Updated Tag");
+        verify(autocompleteIndex).addTag(1L, 1L, "Updated Tag");
     }
 
     @Test
-    void updateTag_withTransactions_success() {
+    void updateTag_doesNotReloadTransactions() {
         tagDtoRequest.setTitle("Updated Tag");
+        tag.setTransactions(new ArrayList<>(List.of(transaction)));
         when(tagRepository.findById(1L)).thenReturn(Optional.of(tag));
-        when(tagRepository.findTransactionsByTag(1L)).thenReturn(List.of(transaction));
-        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
-        when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
         when(tagRepository.save(tag)).thenReturn(tag);
         when(tagMapper.toTagDto(tag)).thenReturn(tagDtoResponse);
 
-        TagDtoResponse result = tagService.updateTag(1L, tagDtoRequest);
+        tagService.updateTag(1L, tagDtoRequest);
 
-        assertNotNull(result);
-        assertEquals(tagDtoResponse, result);
-        verify(tagRepository, times(2)).findById(1L);
-        verify(tagRepository).findTransactionsByTag(1L);
-        verify(transactionRepository).findById(1L);
-        verify(transactionMapper, times(2)).toTransactionDto(transaction);
-        verify(cache).updateTransaction(1L, transactionDtoResponse);
-        verify(tagRepository).save(tag);
-        verify(tagMapper).toTagDto(tag);
+        verify(tagRepository, never()).findTransactionsByTag(anyLong());
+        verifyNoInteractions(transactionMapper);
+        verify(cache, never()).updateTransaction(anyLong(), any());
+        verify(columnStore, never()).updateTransaction(anyLong(), any());
     }
 
     @Test
@@ -352,72 +373,42 @@ class TagServiceImplTest {
 
     @Test
     void deleteTag_success() {
-        when(tagRepository.findById(1L)).thenReturn(Optional.of(tag));
-        when(tagRepository.findTransactionsByTag(1L)).thenReturn(Collections.emptyList());
-        when(transactionRepository.saveAll(Collections.emptyList()))
-                .thenReturn(Collections.emptyList());
+        when(tagRepository.findUserIdById(1L)).thenReturn(Optional.of(1L));
+        when(tagRepository.removeTagFromTransactions(1L)).thenReturn(3);
+        when(tagRepository.deleteTagById(1L)).thenReturn(1);
 
         tagService.deleteTag(1L);
 
-        verify(tagRepository).findById(1L);
-        verify(tagRepository).findTransactionsByTag(1L);
-        verify(transactionRepository).saveAll(Collections.emptyList());
+        verify(tagRepository).removeTagFromTransactions(1L);
+        verify(tagRepository).deleteTagById(1L);
+        verify(tagRepository, never()).findTransactionsByTag(anyLong());
+        verify(cache).removeTag(1L, 1L);
+        verify(columnStore).removeTag(1L, 1L);
+        verify(suggestionIndex).removeTag(1L, 1L);
+        verify(autocompleteIndex).removeTag(1L, 1L);
         verify(cache, never()).updateTransaction(anyLong(), any());
-        verify(tagRepository).delete(tag);
-    }
-
-    @Test
-    void deleteTag_withTransactions_success() {
-        when(tagRepository.findById(1L)).thenReturn(Optional.of(tag));
-        when(tagRepository.findTransactionsByTag(1L)).thenReturn(List.of(transaction));
-        when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
-        when(transactionRepository.saveAll(any())).thenReturn(Collections.emptyList());
-
-        // Мокаем Hibernate.initialize
-        try (MockedStatic<Hibernate> mockHibernate = mockStatic(Hibernate.class)) {
-            mockHibernate.when(() -> Hibernate.initialize(any())).thenAnswer(invocation -> null);
-
-            tagService.deleteTag(1L);
-
-            assertTrue(transaction.getTags().isEmpty());
-            verify(tagRepository).findById(1L);
-            verify(tagRepository).findTransactionsByTag(1L);
-            verify(transactionRepository).saveAll(any());
-            verify(cache).updateTransaction(1L, transactionDtoResponse);
-            verify(tagRepository).delete(tag);
-        }
     }
 
     @Test
     void deleteTag_tagNotFound_throwsNotFoundException() {
-        when(tagRepository.findById(1L)).thenReturn(Optional.empty());
+        when(tagRepository.findUserIdById(1L)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> tagService.deleteTag(1L));
 
         assertEquals("Тег с id 1 не найден", exception.getMessage());
-        verify(tagRepository).findById(1L);
-        verify(tagRepository, never()).delete(any());
+        verify(tagRepository, never()).removeTagFromTransactions(anyLong());
+        verify(tagRepository, never()).deleteTagById(anyLong());
+        verify(cache, never()).removeTag(anyLong(), anyLong());
     }
 
     @Test
-    void updateTag_transactionNotFound_throwsNotFoundException() {
-        tagDtoRequest.setTitle("Updated Tag");
-        when(tagRepository.findById(1L)).thenReturn(Optional.of(tag));
-        when(tagRepository.findTransactionsByTag(1L)).thenReturn(List.of(transaction));
-        when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
-        when(transactionRepository.findById(1L)).thenReturn(Optional.empty());
-
-        NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> tagService.updateTag(1L, tagDtoRequest));
+    void suggestTags_invalidLimit_throwsInvalidInputException() {
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> tagService.suggestTags(1L, "Продукты", null, 21));
 
-        assertEquals("Транзакция не найдена", exception.getMessage());
-        verify(tagRepository, times(2)).findById(1L);
-        verify(tagRepository).findTransactionsByTag(1L);
-        verify(transactionMapper).toTransactionDto(transaction);
-        verify(transactionRepository).findById(1L);
-        verify(cache, never()).updateTransaction(anyLong(), any());
-        verify(tagRepository).save(tag);
+        assertEquals("Количество подсказок должно быть от 1 до 20", exception.getMessage());
+        verifyNoInteractions(suggestionIndex);
     }
 
     @Test
@@ -0,0 +1,125 @@
+package com.example.financery.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransactionExportServiceImplTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private StatelessSession session;
+
+    @Mock
+    private org.hibernate.Transaction transaction;
+
+    @Mock
+    private Query<Object[]> rowsQuery;
+
+    @Mock
+    private Query<Object[]> tagsQuery;
+
+    @Mock
+    private ScrollableResults<Object[]> rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private TransactionExportServiceImpl exportService;
+
+    private static Object[] row(long id) {
+        return new Object[] {id, "Транзакция " + id, "Описание", true, 1050L,
+            LocalDate.of(2025, 1, (int) id), 1L, 2L};
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.createQuery(argThat((String hql) -> hql != null && hql.contains("ORDER BY")),
+                eq(Object[].class))).thenReturn(rowsQuery);
+        when(session.createQuery(argThat((String hql) -> hql != null && hql.contains("JOIN t.tags")),
+                eq(Object[].class))).thenReturn(tagsQuery);
+        when(rowsQuery.setFetchSize(anyInt())).thenReturn(rowsQuery);
+        when(rowsQuery.setReadOnly(anyBoolean())).thenReturn(rowsQuery);
+        when(rowsQuery.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(rows);
+        when(tagsQuery.setParameterList(eq("ids"), any(Collection.class))).thenReturn(tagsQuery);
+        when(tagsQuery.setReadOnly(anyBoolean())).thenReturn(tagsQuery);
+
+        exportService = new TransactionExportServiceImpl(
+                entityManagerFactory, objectMapper, 100, 2);
+    }
+
+    @Test
+    void exportAll_writesOneJsonLinePerTransactionWithTags() throws Exception {
+        when(rows.next()).thenReturn(true, true, true, false);
+        when(rows.get()).thenReturn(row(1), row(2), row(3));
+        when(tagsQuery.getResultList()).thenReturn(
+                List.of(new Object[] {1L, 7L, "Еда", 1L}, new Object[] {1L, 8L, "Кафе", 1L}),
+                List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = exportService.exportAll(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, exported);
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("01.01.2025", first.get("date").asText());
+        assertEquals(2, first.get("tags").size());
+        assertEquals("Кафе", first.get("tags").get(1).get("title").asText());
+        assertEquals(0, objectMapper.readTree(lines[2]).get("tags").size());
+        // Теги догружаются одним запросом на пачку из двух транзакций
+        verify(tagsQuery, times(2)).getResultList();
+        verify(rowsQuery).setFetchSize(100);
+        verify(rows).close();
+        verify(session).close();
+    }
+
+    @Test
+    void exportAll_noTransactions_writesNothing() throws Exception {
+        when(rows.next()).thenReturn(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = exportService.exportAll(out);
+
+        assertEquals(0, exported);
+        assertEquals(0, out.size());
+        verify(tagsQuery, never()).getResultList();
+        verify(transaction).rollback();
+    }
+}
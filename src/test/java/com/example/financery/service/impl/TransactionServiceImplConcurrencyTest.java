@@ -0,0 +1,213 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.aspect.RetryOnConflictAspect;
+import com.example.financery.dto.TransactionDtoRequest;
+import com.example.financery.dto.UserDtoRequest;
+import com.example.financery.exception.InvalidInputException;
+import com.example.financery.mapper.BillMapper;
+import com.example.financery.mapper.TagMapper;
+import com.example.financery.mapper.TransactionMapper;
+import com.example.financery.mapper.UserMapper;
+import com.example.financery.model.Bill;
+import com.example.financery.model.User;
+import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.UserRepository;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.BillLockManager;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Параллельные записи в режиме по умолчанию ({@code atomic}): в процессе ничего
+ * не блокируется, баланс защищают только условные UPDATE в БД.
+ */
+@DataJpaTest(properties = "app.retry.max-attempts=100")
+@ActiveProfiles("h2")
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({TransactionServiceImpl.class, TransactionMapper.class, TagMapper.class,
+    InMemoryCache.class, TransactionColumnStore.class, BillBalanceIndex.class,
+    BillLockManager.class, DailyRollupServiceImpl.class, RetryOnConflictAspect.class,
+    TagSuggestionIndex.class, AutocompleteIndex.class, UserServiceImpl.class, UserMapper.class,
+    BillMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionServiceImplConcurrencyTest {
+
+    private static final int WRITERS = 8;
+    private static final int TRANSACTIONS_PER_WRITER = 25;
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    private Bill createBill(String email, long balance) {
+        User user = new User();
+        user.setName("Параллельный");
+        user.setEmail(email);
+        user.setBalance(balance);
+        userRepository.save(user);
+        Bill bill = new Bill();
+        bill.setName("Общий");
+        bill.setBalance(balance);
+        bill.setUser(user);
+        return billRepository.save(bill);
+    }
+
+    @Test
+    void createTransaction_parallelWritersOnOneBill_noLostUpdates() throws Exception {
+        Bill bill = createBill("parallel@example.com", 100_000L);
+        User user = bill.getUser();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TRANSACTIONS_PER_WRITER; i++) {
+                        // Доходы по 10 и расходы по 5 поочерёдно
+                        boolean income = i % 2 == 0;
+                        transactionService.createTransaction(request(
+                                user.getId(), bill.getId(), income, income ? 1000L : 500L));
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            assertTrue(elapsedMs < 30_000, "Запись заняла " + elapsedMs + " мс");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int incomes = WRITERS * ((TRANSACTIONS_PER_WRITER + 1) / 2);
+        int expenses = WRITERS * (TRANSACTIONS_PER_WRITER / 2);
+        long expected = 100_000L + incomes * 1000L - expenses * 500L;
+        assertEquals(expected, billRepository.findById(bill.getId()).orElseThrow().getBalance());
+        assertEquals(expected, userRepository.findById(user.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void createTransaction_parallelExpenses_neverOverdrawBill() throws Exception {
+        Bill bill = createBill("overdraft@example.com", 10_000L);
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 5; i++) {
+                        try {
+                            transactionService.createTransaction(request(
+                                    bill.getUser().getId(), bill.getId(), false, 1000L));
+                        } catch (InvalidInputException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 40 расходов по 10 при остатке 100: проходят ровно 10, остальные отклоняет БД
+        assertEquals(30, rejected.get());
+        assertEquals(0L, billRepository.findById(bill.getId()).orElseThrow().getBalance());
+        assertEquals(0L, userRepository.findById(bill.getUser().getId()).orElseThrow()
+                .getBalance());
+    }
+
+    @Test
+    void updateUser_parallelWithBalanceWrites_retriesVersionConflicts() throws Exception {
+        Bill bill = createBill("rename@example.com", 100_000L);
+        User user = bill.getUser();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            // Каждая транзакция меняет баланс пользователя, а с ним и версию его строки
+            Future<?> balanceWriter = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSACTIONS_PER_WRITER; i++) {
+                    transactionService.createTransaction(
+                            request(user.getId(), bill.getId(), true, 100L));
+                }
+                return null;
+            });
+            Future<?> renamer = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSACTIONS_PER_WRITER; i++) {
+                    UserDtoRequest update = new UserDtoRequest();
+                    update.setName("Переименованный " + i);
+                    update.setEmail("rename@example.com");
+                    userService.updateUser(user.getId(), update);
+                }
+                return null;
+            });
+            start.countDown();
+            balanceWriter.get(60, TimeUnit.SECONDS);
+            renamer.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        User updated = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals("Переименованный " + (TRANSACTIONS_PER_WRITER - 1), updated.getName());
+        assertEquals(100_000L + TRANSACTIONS_PER_WRITER * 100L, updated.getBalance());
+    }
+
+    private static TransactionDtoRequest request(long userId, long billId, boolean type,
+                                                 long amount) {
+        TransactionDtoRequest request = new TransactionDtoRequest();
+        request.setName("Параллельная");
+        request.setDescription("Параллельная");
+        request.setType(type);
+        request.setAmount(amount);
+        request.setDate(LocalDate.of(2025, 1, 1));
+        request.setUserId(userId);
+        request.setBillId(billId);
+        return request;
+    }
+}
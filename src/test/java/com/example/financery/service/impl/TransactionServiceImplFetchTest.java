@@ -0,0 +1,311 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.BalancePointDto;
+import com.example.financery.dto.BillSummaryDto;
+import com.example.financery.dto.TransactionAnalyticsDto;
+import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionPageDto;
+import com.example.financery.dto.TransactionSummaryDto;
+import com.example.financery.mapper.TagMapper;
+import com.example.financery.mapper.TransactionMapper;
+import com.example.financery.model.Bill;
+import com.example.financery.model.Tag;
+import com.example.financery.model.Transaction;
+import com.example.financery.model.User;
+import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.TransactionRepository;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.BillLockManager;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import com.example.financery.utils.TransactionCursor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({TransactionServiceImpl.class, TransactionMapper.class, TagMapper.class,
+    InMemoryCache.class, TransactionColumnStore.class, BillBalanceIndex.class,
+    BillLockManager.class, DailyRollupServiceImpl.class, TagSuggestionIndex.class,
+    AutocompleteIndex.class})
+class TransactionServiceImplFetchTest {
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private InMemoryCache cache;
+
+    private Statistics statistics;
+    private long userId;
+    private long billId;
+    private List<Long> tagIds;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("Тестовый");
+        user.setEmail("test@example.com");
+        entityManager.persist(user);
+
+        Bill bill = new Bill();
+        bill.setName("Основной");
+        bill.setBalance(100_000L);
+        bill.setUser(user);
+        entityManager.persist(bill);
+
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Tag tag = new Tag();
+            tag.setTitle("Тег " + i);
+            tag.setUser(user);
+            entityManager.persist(tag);
+            tags.add(tag);
+        }
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setName("Транзакция " + i);
+            transaction.setType(i == 0);
+            transaction.setAmount(1000L);
+            transaction.setDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            transaction.setUser(user);
+            transaction.setBill(bill);
+            transaction.setTags(new ArrayList<>(tags.subList(0, i % 4)));
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userId = user.getId();
+        billId = bill.getId();
+        tagIds = tags.stream().map(Tag::getId).toList();
+        dailyRollupRepository.rebuildForUser(userId);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getTransactionsByBillId_loadsTransactionsAndTagsInTwoStatements() {
+        List<TransactionDtoResponse> result = transactionService.getTransactionsByBillId(billId);
+
+        assertEquals(10, result.size());
+        assertEquals(13, result.stream().mapToInt(transaction -> transaction.getTags().size())
+                .sum());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "Выполнено запросов: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findSummariesByUserId_readsBillColumnsInOneStatement() {
+        List<BillSummaryDto> summaries = billRepository.findSummariesByUserId(userId);
+
+        assertEquals(List.of(new BillSummaryDto(billId, "Основной", 100_000L, userId)),
+                summaries);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getTransactionsPageByBillId_walksAllPages() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPageDto page = transactionService.getTransactionsPageByBillId(
+                    billId, cursor, 4);
+            page.getItems().forEach(item -> ids.add(item.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(10, ids.size());
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Test
+    void findPageKeysAfter_sameDayTies_continueAfterCursorId() {
+        LocalDate day = LocalDate.of(2025, 1, 3);
+        List<Long> sameDay = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setName("Тот же день " + i);
+            transaction.setAmount(100L);
+            transaction.setDate(day);
+            transaction.setUser(entityManager.find(User.class, userId));
+            transaction.setBill(entityManager.find(Bill.class, billId));
+            sameDay.add(entityManager.persistAndFlush(transaction).getId());
+        }
+        long cursorId = transactionRepository.findFirstPageKeysByUserId(
+                userId, Pageable.ofSize(3)).get(2).id();
+
+        List<TransactionCursor> keys = transactionRepository.findPageKeysByUserIdAfter(
+                userId, day, cursorId, Pageable.ofSize(100));
+        List<TransactionCursor> byBill = transactionRepository.findPageKeysByBillIdAfter(
+                billId, day, sameDay.get(0), Pageable.ofSize(100));
+
+        assertEquals(9, keys.size());
+        assertEquals(sameDay, keys.subList(0, 2).stream().map(TransactionCursor::id).toList());
+        assertEquals(LocalDate.of(2025, 1, 4), keys.get(2).date());
+        assertEquals(8, byBill.size());
+        assertEquals(sameDay.get(1), byBill.get(0).id());
+    }
+
+    @Test
+    void getTransactionsPageByTags_walksMatchingPages() {
+        // Транзакция i помечена первыми i % 4 тегами
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPageDto page = transactionService.getTransactionsPageByTags(
+                    userId, List.of(tagIds.get(0)), null, List.of(tagIds.get(2)),
+                    LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 8), cursor, 3);
+            page.getItems().forEach(item -> names.add(item.getName()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("Транзакция 1", "Транзакция 2", "Транзакция 5", "Транзакция 6"),
+                names);
+    }
+
+    @Test
+    void getTransactionsPageByTags_defaultConfig_reusesTagBitmaps() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 10);
+        transactionService.getTransactionsPageByTags(
+                userId, List.of(tagIds.get(1)), null, null, from, to, null, 5);
+        // Без кеша транзакций повторное построение карт потребовало бы полной загрузки
+        cache.clear();
+        statistics.clear();
+
+        TransactionPageDto page = transactionService.getTransactionsPageByTags(
+                userId, List.of(tagIds.get(1)), null, null, from, to, null, 5);
+
+        assertEquals(4, page.getItems().size());
+        // Проверка пользователя и загрузка самой страницы
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getSummary_byMonthAndWeek_groupsInDatabase() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+
+        List<TransactionSummaryDto> byMonth = transactionService.getSummary(
+                userId, from, to, "month");
+        List<TransactionSummaryDto> byWeek = transactionService.getSummary(
+                userId, from, to, "week");
+
+        assertEquals(List.of(new TransactionSummaryDto("2025-01-01", "2025-01-01",
+                1000L, 9000L, 10)), byMonth);
+        // 1 января 2025 - среда, неделя начинается с понедельника
+        assertEquals(List.of("2024-12-30", "2025-01-06"),
+                byWeek.stream().map(TransactionSummaryDto::getKey).toList());
+        assertEquals(List.of(5L, 5L),
+                byWeek.stream().map(TransactionSummaryDto::getCount).toList());
+        // По одной проверке пользователя и одному запросу итогов на вызов
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getSummary_byTagAndBill_respectsPeriod() {
+        LocalDate from = LocalDate.of(2025, 1, 2);
+        LocalDate to = LocalDate.of(2025, 1, 8);
+
+        List<TransactionSummaryDto> byTag = transactionService.getSummary(
+                userId, from, to, "tag");
+        List<TransactionSummaryDto> byBill = transactionService.getSummary(
+                userId, from, to, "bill");
+
+        assertEquals(List.of("Тег 0", "Тег 1", "Тег 2"),
+                byTag.stream().map(TransactionSummaryDto::getName).toList());
+        assertEquals(List.of(6L, 4L, 2L),
+                byTag.stream().map(TransactionSummaryDto::getCount).toList());
+        assertEquals(6000L, byTag.get(0).getExpense());
+        assertEquals(List.of(new TransactionSummaryDto(String.valueOf(billId), "Основной",
+                0L, 7000L, 7)), byBill);
+    }
+
+    @Test
+    void getAnalytics_matchesDatabaseSummary() {
+        LocalDate from = LocalDate.of(2025, 1, 2);
+        LocalDate to = LocalDate.of(2025, 1, 8);
+
+        TransactionAnalyticsDto analytics = transactionService.getAnalytics(userId, from, to);
+
+        List<TransactionSummaryDto> byTag = transactionService.getSummary(
+                userId, from, to, "tag");
+        TransactionSummaryDto byBill = transactionService.getSummary(
+                userId, from, to, "bill").get(0);
+        assertEquals(byTag.stream().map(TransactionSummaryDto::getCount).toList(),
+                analytics.getTags().stream().map(TransactionSummaryDto::getCount).toList());
+        assertEquals(byTag.stream().map(TransactionSummaryDto::getName).toList(),
+                analytics.getTags().stream().map(TransactionSummaryDto::getName).toList());
+        assertEquals(byBill.getExpense(), analytics.getTotals().getExpense());
+        assertEquals(byBill.getCount(), analytics.getTotals().getCount());
+        // Доход первого дня входит в накопленный итог, хотя лежит до начала периода
+        assertEquals(7, analytics.getBalance().size());
+        assertEquals(new BalancePointDto(to, 1000L - 7000L),
+                analytics.getBalance().get(6));
+    }
+
+    @Test
+    void countNamesByUserId_groupsEqualNames() {
+        Transaction repeated = new Transaction();
+        repeated.setName("Транзакция 3");
+        repeated.setAmount(100L);
+        repeated.setDate(LocalDate.of(2025, 2, 1));
+        repeated.setUser(entityManager.find(User.class, userId));
+        repeated.setBill(entityManager.find(Bill.class, billId));
+        entityManager.persistAndFlush(repeated);
+
+        Map<String, Long> counts = transactionRepository.countNamesByUserId(userId).stream()
+                .collect(Collectors.toMap(row -> (String) row[0],
+                        row -> ((Number) row[1]).longValue()));
+
+        assertEquals(10, counts.size());
+        assertEquals(2L, counts.get("Транзакция 3"));
+        assertEquals(1L, counts.get("Транзакция 0"));
+    }
+
+    @Test
+    void sumByDayForBill_returnsSignedCentsPerDay() {
+        List<Object[]> rows = transactionRepository.sumByDayForBill(billId);
+
+        assertEquals(10, rows.size());
+        long total = rows.stream().mapToLong(row -> ((Number) row[1]).longValue()).sum();
+        assertEquals(1000L - 9 * 1000L, total);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.financery.service.impl;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/**
+ * Те же параллельные сценарии записи, но с очередью записей по счёту внутри процесса.
+ */
+@DataJpaTest(properties = {"app.retry.max-attempts=100", "app.bill-lock.mode=striped"})
+class TransactionServiceImplStripedConcurrencyTest extends TransactionServiceImplConcurrencyTest {
+}
@@ -2,6 +2,8 @@ package com.example.financery.service.impl;
 
 import com.example.financery.dto.TransactionDtoRequest;
 import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionPageDto;
+import com.example.financery.dto.TransactionSummaryDto;
 import com.example.financery.exception.InvalidInputException;
 import com.example.financery.exception.NotFoundException;
 import com.example.financery.mapper.TransactionMapper;
@@ -10,15 +12,24 @@ import com.example.financery.model.Tag;
 import com.example.financery.model.Transaction;
 import com.example.financery.model.User;
 import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
 import com.example.financery.repository.TagRepository;
 import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
+import com.example.financery.service.DailyRollupService;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.BillLockManager;
 import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import com.example.financery.utils.TransactionCursor;
 import org.hibernate.Hibernate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -27,15 +38,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -60,6 +75,27 @@ class TransactionServiceImplTest {
     @Mock
     private InMemoryCache cache;
 
+    @Mock
+    private TransactionColumnStore columnStore;
+
+    @Mock
+    private TagSuggestionIndex suggestionIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private BillBalanceIndex billBalanceIndex;
+
+    @Mock
+    private BillLockManager billLockManager;
+
+    @Mock
+    private DailyRollupService dailyRollupService;
+
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -77,7 +113,7 @@ class TransactionServiceImplTest {
 
         bill = new Bill();
         bill.setId(1L);
-        bill.setBalance(1000.0);
+        bill.setBalance(100_000L);
         bill.setUser(user);
 
         tag = new Tag();
@@ -89,7 +125,7 @@ class TransactionServiceImplTest {
         transaction.setName("Test Transaction");
         transaction.setDescription("Test Description");
         transaction.setType(true); // Доход
-        transaction.setAmount(100.0);
+        transaction.setAmount(10_000L);
         transaction.setDate(LocalDate.now());
         transaction.setUser(user);
         transaction.setBill(bill);
@@ -99,7 +135,7 @@ class TransactionServiceImplTest {
         transactionDtoRequest.setName("Test Transaction");
         transactionDtoRequest.setDescription("Test Description");
         transactionDtoRequest.setType(true);
-        transactionDtoRequest.setAmount(100.0);
+        transactionDtoRequest.setAmount(10_000L);
         transactionDtoRequest.setDate(LocalDate.now());
         transactionDtoRequest.setUserId(1L);
         transactionDtoRequest.setBillId(1L);
@@ -110,10 +146,24 @@ class TransactionServiceImplTest {
         transactionDtoResponse.setName("Test Transaction");
         transactionDtoResponse.setDescription("Test Description");
         transactionDtoResponse.setType(true);
-        transactionDtoResponse.setAmount(100.0);
+        transactionDtoResponse.setAmount(10_000L);
         transactionDtoResponse.setDate(LocalDate.now());
         transactionDtoResponse.setUserId(1L);
         transactionDtoResponse.setBillId(1L);
+
+        // Условные UPDATE балансов ведут себя как в БД: расход не уводит счёт в минус
+        when(billRepository.addToBalance(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long delta = invocation.getArgument(1);
+            if (bill.getBalance() + delta < 0) {
+                return 0;
+            }
+            bill.setBalance(bill.getBalance() + delta);
+            return 1;
+        });
+        when(userRepository.addToBalance(anyLong(), anyLong())).thenAnswer(invocation -> {
+            user.setBalance(user.getBalance() + invocation.<Long>getArgument(1));
+            return 1;
+        });
     }
 
     @AfterEach
@@ -195,7 +245,7 @@ class TransactionServiceImplTest {
     @Test
     void getTransactionsByUserId_fromCache_success() {
         when(userRepository.existsById(1L)).thenReturn(true);
-        when(cache.get(1L)).thenReturn(List.of(transactionDtoResponse));
+        when(cache.getOrLoad(eq(1L), any())).thenReturn(List.of(transactionDtoResponse));
 
         List<TransactionDtoResponse> result = transactionService.getTransactionsByUserId(1L);
 
@@ -203,14 +253,15 @@ class TransactionServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(transactionDtoResponse, result.get(0));
         verify(userRepository).existsById(1L);
-        verify(cache).get(1L);
+        verify(cache).getOrLoad(eq(1L), any());
         verify(transactionRepository, never()).findByUserId(anyLong());
     }
 
     @Test
     void getTransactionsByUserId_fromRepository_success() {
         when(userRepository.existsById(1L)).thenReturn(true);
-        when(cache.get(1L)).thenReturn(null);
+        when(cache.getOrLoad(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Supplier<List<TransactionDtoResponse>>>getArgument(1).get());
         when(transactionRepository.findByUserId(1L)).thenReturn(List.of(transaction));
         when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
 
@@ -220,10 +271,242 @@ class TransactionServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(transactionDtoResponse, result.get(0));
         verify(userRepository).existsById(1L);
-        verify(cache).get(1L);
+        verify(cache).getOrLoad(eq(1L), any());
         verify(transactionRepository).findByUserId(1L);
         verify(transactionMapper).toTransactionDto(transaction);
-        verify(cache).put(1L, result);
+    }
+
+    @Test
+    void getTransactionsPageByUserId_firstPage_returnsNextCursor() {
+        Transaction second = new Transaction();
+        second.setId(2L);
+        second.setDate(transaction.getDate());
+        TransactionCursor firstKey = new TransactionCursor(transaction.getDate(), 1L);
+        TransactionCursor secondKey = new TransactionCursor(transaction.getDate(), 2L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findFirstPageKeysByUserId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(firstKey, secondKey));
+        when(transactionRepository.findAllWithTagsByIdIn(List.of(1L)))
+                .thenReturn(List.of(transaction));
+        when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
+
+        TransactionPageDto result = transactionService.getTransactionsPageByUserId(1L, null, 1);
+
+        assertEquals(List.of(transactionDtoResponse), result.getItems());
+        assertEquals(firstKey, TransactionCursor.decode(result.getNextCursor()));
+        verify(transactionRepository).findFirstPageKeysByUserId(1L, Pageable.ofSize(2));
+    }
+
+    @Test
+    void getTransactionsPageByUserId_withCursor_seeksAfterKey() {
+        TransactionCursor after = new TransactionCursor(LocalDate.of(2025, 1, 1), 7L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findPageKeysByUserIdAfter(
+                eq(1L), eq(after.date()), eq(7L), any(Pageable.class)))
+                .thenReturn(List.of(new TransactionCursor(transaction.getDate(), 1L)));
+        when(transactionRepository.findAllWithTagsByIdIn(List.of(1L)))
+                .thenReturn(List.of(transaction));
+        when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
+
+        TransactionPageDto result =
+                transactionService.getTransactionsPageByUserId(1L, after.encode(), 10);
+
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getTransactionsPageByBillId_firstPage_seeksByBill() {
+        when(billRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findFirstPageKeysByBillId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(new TransactionCursor(transaction.getDate(), 1L)));
+        when(transactionRepository.findAllWithTagsByIdIn(List.of(1L)))
+                .thenReturn(List.of(transaction));
+        when(transactionMapper.toTransactionDto(transaction)).thenReturn(transactionDtoResponse);
+
+        TransactionPageDto result = transactionService.getTransactionsPageByBillId(1L, null, 5);
+
+        assertEquals(List.of(transactionDtoResponse), result.getItems());
+        assertNull(result.getNextCursor());
+        verify(transactionRepository).findFirstPageKeysByBillId(1L, Pageable.ofSize(6));
+    }
+
+    @Test
+    void getTransactionsPageByBillId_billNotFound_throwsNotFoundException() {
+        when(billRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class,
+                () -> transactionService.getTransactionsPageByBillId(1L, null, 5));
+        verify(transactionRepository, never()).findFirstPageKeysByBillId(anyLong(), any());
+    }
+
+    @Test
+    void getTransactionsPageByUserId_invalidCursorOrLimit_throwsInvalidInputException() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.getTransactionsPageByUserId(1L, "не курсор", 10));
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.getTransactionsPageByUserId(1L, null, 0));
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.getTransactionsPage(null, 501));
+    }
+
+    @Test
+    void getTransactionsPageByTags_invalidFilter_throwsInvalidInputException() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.getTransactionsPageByTags(
+                        1L, null, List.of(), null, day, day, null, 10));
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.getTransactionsPageByTags(
+                        1L, List.of(1L), null, null, day.plusDays(1), day, null, 10));
+        verify(columnStore, never()).getOrLoadForTagFilter(anyLong(), any());
+    }
+
+    @Test
+    void getTransactionsPage_empty_returnsNoCursor() {
+        when(transactionRepository.findFirstPageKeys(any(Pageable.class))).thenReturn(List.of());
+
+        TransactionPageDto result = transactionService.getTransactionsPage("", 50);
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(transactionRepository, never()).findAllWithTagsByIdIn(any());
+    }
+
+    private TransactionDtoRequest bulkRequest(boolean type, long amount) {
+        TransactionDtoRequest request = new TransactionDtoRequest();
+        request.setName("Импорт");
+        request.setDescription("Импорт");
+        request.setType(type);
+        request.setAmount(amount);
+        request.setDate(LocalDate.now());
+        request.setUserId(1L);
+        request.setBillId(1L);
+        request.setTagIds(List.of(1L));
+        return request;
+    }
+
+    @Test
+    void createTransactions_success_oneBalanceUpdatePerBill() {
+        user.setBalance(100_000L);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(billRepository.findAllById(any())).thenReturn(List.of(bill));
+        when(tagRepository.findAllById(any())).thenReturn(List.of(tag));
+        when(transactionMapper.toTransactionDto(any(Transaction.class)))
+                .thenReturn(transactionDtoResponse);
+
+        List<TransactionDtoResponse> result = transactionService.createTransactions(List.of(
+                bulkRequest(false, 90_000L),
+                bulkRequest(true, 50_000L),
+                bulkRequest(false, 55_000L)));
+
+        assertEquals(3, result.size());
+        assertEquals(5000L, bill.getBalance());
+        assertEquals(5000L, user.getBalance());
+        verify(userRepository).findAllById(any());
+        verify(billRepository).findAllById(any());
+        verify(tagRepository).findAllById(any());
+        verify(transactionRepository).saveAll(argThat(transactions -> {
+            List<Transaction> saved = new ArrayList<>();
+            transactions.forEach(saved::add);
+            return saved.size() == 3 && saved.get(0).getTags().equals(List.of(tag));
+        }));
+        verify(cache).updateTransactions(eq(1L), argThat(created -> created.size() == 3));
+        verify(columnStore).updateTransactions(eq(1L), argThat(created -> created.size() == 3));
+        verify(cache, never()).updateTransaction(anyLong(), any());
+    }
+
+    @Test
+    void createTransactions_severalBills_updatesBalancesInBillIdOrder() {
+        Bill second = new Bill();
+        second.setId(17L);
+        second.setBalance(100_000L);
+        second.setUser(user);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(billRepository.findAllById(any())).thenReturn(List.of(second, bill));
+        when(tagRepository.findAllById(any())).thenReturn(List.of(tag));
+        when(transactionMapper.toTransactionDto(any(Transaction.class)))
+                .thenReturn(transactionDtoResponse);
+        TransactionDtoRequest toSecond = bulkRequest(true, 1000L);
+        toSecond.setBillId(17L);
+
+        transactionService.createTransactions(List.of(toSecond, bulkRequest(true, 2000L)));
+
+        InOrder inOrder = inOrder(billRepository);
+        inOrder.verify(billRepository).addToBalance(1L, 2000L);
+        inOrder.verify(billRepository).addToBalance(17L, 1000L);
+    }
+
+    @Test
+    void createTransactions_insufficientFundsInBatchOrder_throwsInvalidInputException() {
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(billRepository.findAllById(any())).thenReturn(List.of(bill));
+        when(tagRepository.findAllById(any())).thenReturn(List.of(tag));
+
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> transactionService.createTransactions(List.of(
+                        bulkRequest(false, 90_000L),
+                        bulkRequest(false, 20_000L),
+                        bulkRequest(true, 500_000L))));
+
+        assertEquals("Недостаточно средств на счете для суммы транзакции",
+                exception.getMessage());
+        assertEquals(100_000L, bill.getBalance());
+        verify(transactionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createTransactions_amountOverLimit_throwsBeforeQueries() {
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> transactionService.createTransactions(List.of(
+                        bulkRequest(true, 1000L),
+                        bulkRequest(true, 100_000_100L))));
+
+        assertEquals("Сумма транзакции не может превышать 1,000,000", exception.getMessage());
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void createTransactions_overBatchLimit_throwsBeforeQueries() {
+        List<TransactionDtoRequest> requests = Collections.nCopies(
+                TransactionServiceImpl.MAX_BATCH_SIZE + 1, bulkRequest(true, 1000L));
+
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.createTransactions(requests));
+        verify(userRepository, never()).findAllById(any());
+        verify(billRepository, never()).addToBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    void createTransactions_billOfAnotherUser_throwsNotFoundException() {
+        User otherUser = new User();
+        otherUser.setId(2L);
+        bill.setUser(otherUser);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(billRepository.findAllById(any())).thenReturn(List.of(bill));
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> transactionService.createTransactions(List.of(bulkRequest(true, 1000L))));
+
+        assertEquals("Счет с id 1 не найден или не принадлежит пользователю",
+                exception.getMessage());
+    }
+
+    @Test
+    void createTransactions_foreignTag_throwsInvalidInputException() {
+        User otherUser = new User();
+        otherUser.setId(2L);
+        tag.setUser(otherUser);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(billRepository.findAllById(any())).thenReturn(List.of(bill));
+        when(tagRepository.findAllById(any())).thenReturn(List.of(tag));
+
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.createTransactions(List.of(bulkRequest(true, 1000L))));
+        verify(transactionRepository, never()).saveAll(any());
     }
 
     @Test
@@ -235,31 +518,27 @@ class TransactionServiceImplTest {
 
         assertEquals("Пользователь с id 1 не найден", exception.getMessage());
         verify(userRepository).existsById(1L);
-        verify(cache, never()).get(anyLong());
+        verify(cache, never()).getOrLoad(anyLong(), any());
     }
 
     @Test
     void getTransactionsByBillId_success() {
-        try (MockedStatic<Hibernate> mockHibernate = mockStatic(Hibernate.class)) {
-            mockHibernate.when(() -> Hibernate.initialize(any())).thenAnswer(invocation -> null);
-
-            when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
-            when(transactionRepository
-                    .findByBill(1L))
-                    .thenReturn(List.of(transaction));
-            when(transactionMapper
-                    .toTransactionDto(transaction))
-                    .thenReturn(transactionDtoResponse);
+        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+        when(transactionRepository
+                .findByBillIdWithTags(1L))
+                .thenReturn(List.of(transaction));
+        when(transactionMapper
+                .toTransactionDto(transaction))
+                .thenReturn(transactionDtoResponse);
 
-            List<TransactionDtoResponse> result = transactionService.getTransactionsByBillId(1L);
+        List<TransactionDtoResponse> result = transactionService.getTransactionsByBillId(1L);
 
-            assertNotNull(result);
-            assertEquals(1, result.size());
-            assertEquals(transactionDtoResponse, result.get(0));
-            verify(billRepository).findById(1L);
-            verify(transactionRepository).findByBill(1L);
-            verify(transactionMapper).toTransactionDto(transaction);
-        }
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertEquals(transactionDtoResponse, result.get(0));
+        verify(billRepository).findById(1L);
+        verify(transactionRepository).findByBillIdWithTags(1L);
+        verify(transactionMapper).toTransactionDto(transaction);
     }
 
     @Test
@@ -271,7 +550,47 @@ class TransactionServiceImplTest {
 
         assertEquals("Счет с id 1 не найден", exception.getMessage());
         verify(billRepository).findById(1L);
-        verify(transactionRepository, never()).findByBill(anyLong());
+        verify(transactionRepository, never()).findByBillIdWithTags(anyLong());
+    }
+
+    @Test
+    void getSummary_byTag_mapsDatabaseTotals() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.summarizeByTag(1L, from, to)).thenReturn(List.<Object[]>of(
+                new Object[] {1L, "Test Tag", 15_050L, 2025L, 3L}));
+
+        List<TransactionSummaryDto> result = transactionService.getSummary(1L, from, to, "tag");
+
+        assertEquals(List.of(new TransactionSummaryDto("1", "Test Tag", 15_050L, 2025L, 3)),
+                result);
+    }
+
+    @Test
+    void getSummary_unknownGroupBy_throwsInvalidInputException() {
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(InvalidInputException.class,
+                () -> transactionService.getSummary(1L, date, date, "year"));
+    }
+
+    @Test
+    void getSummary_fromAfterTo_throwsInvalidInputException() {
+        assertThrows(InvalidInputException.class, () -> transactionService.getSummary(
+                1L, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), "month"));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getSummary_userNotFound_throwsNotFoundException() {
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class,
+                () -> transactionService.getSummary(1L, date, date, "month"));
+        verify(dailyRollupRepository, never()).summarizeByMonth(anyLong(), any(), any());
     }
 
     @Test
@@ -285,11 +604,12 @@ class TransactionServiceImplTest {
 
         assertNotNull(result);
         assertEquals(transactionDtoResponse, result);
-        assertEquals(1100.0, bill.getBalance()); // 1000 + 100 (доход)
+        assertEquals(110_000L, bill.getBalance()); // 1000 + 100 (доход)
         verify(userRepository).findById(1L);
         verify(billRepository).findByIdAndUserId(1L, 1L);
         verify(tagRepository).findAllById(List.of(1L));
         verify(transactionRepository).save(any(Transaction.class));
+        verify(dailyRollupService).add(any(Transaction.class));
         verify(cache).updateTransaction(1L, transactionDtoResponse);
     }
 
@@ -305,7 +625,7 @@ class TransactionServiceImplTest {
 
         assertNotNull(result);
         assertEquals(transactionDtoResponse, result);
-        assertEquals(900.0, bill.getBalance()); // 1000 - 100 (расход)
+        assertEquals(90_000L, bill.getBalance()); // 1000 - 100 (расход)
         verify(userRepository).findById(1L);
         verify(billRepository).findByIdAndUserId(1L, 1L);
         verify(tagRepository).findAllById(List.of(1L));
@@ -341,7 +661,7 @@ class TransactionServiceImplTest {
     @Test
     void createTransaction_insufficientFunds_throwsInvalidInputException() {
         transactionDtoRequest.setType(false); // Расход
-        transactionDtoRequest.setAmount(2000.0); // Больше, чем баланс счета (1000)
+        transactionDtoRequest.setAmount(200_000L); // Больше, чем баланс счета (1000)
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
@@ -356,7 +676,7 @@ class TransactionServiceImplTest {
 
     @Test
     void createTransaction_amountTooLarge_throwsInvalidInputException() {
-        transactionDtoRequest.setAmount(1_000_001.0);
+        transactionDtoRequest.setAmount(100_000_100L);
 
         InvalidInputException exception = assertThrows(InvalidInputException.class,
                 () -> transactionService.createTransaction(transactionDtoRequest));
@@ -407,7 +727,7 @@ class TransactionServiceImplTest {
 
     @Test
     void updateTransaction_success() {
-        transactionDtoRequest.setAmount(200.0);
+        transactionDtoRequest.setAmount(20_000L);
         transactionDtoRequest.setType(false); // Расход
 
         Transaction updatedTransaction = new Transaction();
@@ -415,7 +735,7 @@ class TransactionServiceImplTest {
         updatedTransaction.setName(transactionDtoRequest.getName());
         updatedTransaction.setDescription(transactionDtoRequest.getDescription());
         updatedTransaction.setType(false);
-        updatedTransaction.setAmount(200.0);
+        updatedTransaction.setAmount(20_000L);
         updatedTransaction.setDate(transactionDtoRequest.getDate());
         updatedTransaction.setUser(user);
         updatedTransaction.setBill(bill);
@@ -426,7 +746,7 @@ class TransactionServiceImplTest {
         updatedResponse.setName(transactionDtoRequest.getName());
         updatedResponse.setDescription(transactionDtoRequest.getDescription());
         updatedResponse.setType(false);
-        updatedResponse.setAmount(200.0);
+        updatedResponse.setAmount(20_000L);
         updatedResponse.setDate(transactionDtoRequest.getDate());
         updatedResponse.setUserId(1L);
         updatedResponse.setBillId(1L);
@@ -448,13 +768,13 @@ class TransactionServiceImplTest {
 
             assertNotNull(result);
             assertEquals(updatedResponse, result);
-            assertEquals(700.0, bill.getBalance());
+            assertEquals(70_000L, bill.getBalance());
             verify(transactionRepository).findById(1L);
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository).findAllById(List.of(1L));
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(any(Transaction.class));
             verify(cache).updateTransaction(1L, updatedResponse);
         }
@@ -462,7 +782,7 @@ class TransactionServiceImplTest {
 
     @Test
     void updateTransaction_success_incomeToIncome() {
-        transactionDtoRequest.setAmount(200.0);
+        transactionDtoRequest.setAmount(20_000L);
         transactionDtoRequest.setType(true); // Новый тип — доход
 
         Transaction updatedTransaction = new Transaction();
@@ -470,7 +790,7 @@ class TransactionServiceImplTest {
         updatedTransaction.setName(transactionDtoRequest.getName());
         updatedTransaction.setDescription(transactionDtoRequest.getDescription());
         updatedTransaction.setType(true);
-        updatedTransaction.setAmount(200.0);
+        updatedTransaction.setAmount(20_000L);
         updatedTransaction.setDate(transactionDtoRequest.getDate());
         updatedTransaction.setUser(user);
         updatedTransaction.setBill(bill);
@@ -481,7 +801,7 @@ class TransactionServiceImplTest {
         updatedResponse.setName(transactionDtoRequest.getName());
         updatedResponse.setDescription(transactionDtoRequest.getDescription());
         updatedResponse.setType(true);
-        updatedResponse.setAmount(200.0);
+        updatedResponse.setAmount(20_000L);
         updatedResponse.setDate(transactionDtoRequest.getDate());
         updatedResponse.setUserId(1L);
         updatedResponse.setBillId(1L);
@@ -503,13 +823,13 @@ class TransactionServiceImplTest {
 
             assertNotNull(result);
             assertEquals(updatedResponse, result);
-            assertEquals(1100.0, bill.getBalance()); // Исправлено
+            assertEquals(110_000L, bill.getBalance()); // Исправлено
             verify(transactionRepository).findById(1L);
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository).findAllById(List.of(1L));
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(any(Transaction.class));
             verify(cache).updateTransaction(1L, updatedResponse);
         }
@@ -518,7 +838,7 @@ class TransactionServiceImplTest {
     @Test
     void updateTransaction_success_expenseToExpense() {
         transaction.setType(false); // Исходная транзакция — расход
-        transactionDtoRequest.setAmount(200.0);
+        transactionDtoRequest.setAmount(20_000L);
         transactionDtoRequest.setType(false); // Новый тип — расход
 
         Transaction updatedTransaction = new Transaction();
@@ -526,7 +846,7 @@ class TransactionServiceImplTest {
         updatedTransaction.setName(transactionDtoRequest.getName());
         updatedTransaction.setDescription(transactionDtoRequest.getDescription());
         updatedTransaction.setType(false);
-        updatedTransaction.setAmount(200.0);
+        updatedTransaction.setAmount(20_000L);
         updatedTransaction.setDate(transactionDtoRequest.getDate());
         updatedTransaction.setUser(user);
         updatedTransaction.setBill(bill);
@@ -537,7 +857,7 @@ class TransactionServiceImplTest {
         updatedResponse.setName(transactionDtoRequest.getName());
         updatedResponse.setDescription(transactionDtoRequest.getDescription());
         updatedResponse.setType(false);
-        updatedResponse.setAmount(200.0);
+        updatedResponse.setAmount(20_000L);
         updatedResponse.setDate(transactionDtoRequest.getDate());
         updatedResponse.setUserId(1L);
         updatedResponse.setBillId(1L);
@@ -559,13 +879,13 @@ class TransactionServiceImplTest {
 
             assertNotNull(result);
             assertEquals(updatedResponse, result);
-            assertEquals(900.0, bill.getBalance()); // Исправлено
+            assertEquals(90_000L, bill.getBalance()); // Исправлено
             verify(transactionRepository).findById(1L);
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository).findAllById(List.of(1L));
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(any(Transaction.class));
             verify(cache).updateTransaction(1L, updatedResponse);
         }
@@ -574,7 +894,7 @@ class TransactionServiceImplTest {
     @Test
     void updateTransaction_success_expenseToIncome() {
         transaction.setType(false); // Исходная транзакция — расход
-        transactionDtoRequest.setAmount(200.0);
+        transactionDtoRequest.setAmount(20_000L);
         transactionDtoRequest.setType(true); // Новая транзакция — доход
 
         Transaction updatedTransaction = new Transaction();
@@ -582,7 +902,7 @@ class TransactionServiceImplTest {
         updatedTransaction.setName(transactionDtoRequest.getName());
         updatedTransaction.setDescription(transactionDtoRequest.getDescription());
         updatedTransaction.setType(true);
-        updatedTransaction.setAmount(200.0);
+        updatedTransaction.setAmount(20_000L);
         updatedTransaction.setDate(transactionDtoRequest.getDate());
         updatedTransaction.setUser(user);
         updatedTransaction.setBill(bill);
@@ -593,7 +913,7 @@ class TransactionServiceImplTest {
         updatedResponse.setName(transactionDtoRequest.getName());
         updatedResponse.setDescription(transactionDtoRequest.getDescription());
         updatedResponse.setType(true);
-        updatedResponse.setAmount(200.0);
+        updatedResponse.setAmount(20_000L);
         updatedResponse.setDate(transactionDtoRequest.getDate());
         updatedResponse.setUserId(1L);
         updatedResponse.setBillId(1L);
@@ -615,21 +935,59 @@ class TransactionServiceImplTest {
 
             assertNotNull(result);
             assertEquals(updatedResponse, result);
-            assertEquals(1300.0, bill.getBalance());
+            assertEquals(130_000L, bill.getBalance());
             verify(transactionRepository).findById(1L);
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository).findAllById(List.of(1L));
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(any(Transaction.class));
             verify(cache).updateTransaction(1L, updatedResponse);
         }
     }
 
+    @Test
+    void updateTransaction_newDateSameAmount_locksBillBeforeRollups() {
+        transactionDtoRequest.setDate(transaction.getDate().minusDays(3));
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
+        when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
+        when(transactionMapper.toTransactionDto(any(Transaction.class)))
+                .thenReturn(transactionDtoResponse);
+
+        transactionService.updateTransaction(1L, transactionDtoRequest);
+
+        InOrder inOrder = inOrder(billLockManager, billRepository, dailyRollupService);
+        inOrder.verify(billLockManager).lock(1L);
+        inOrder.verify(billRepository).lockById(1L);
+        inOrder.verify(dailyRollupService).remove(any(Transaction.class));
+        inOrder.verify(dailyRollupService).add(transaction);
+        verify(billRepository, never()).addToBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    void updateTransaction_nameOnly_leavesBillAndRollupsUntouched() {
+        transactionDtoRequest.setName("Новое название");
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
+        when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
+        when(transactionMapper.toTransactionDto(any(Transaction.class)))
+                .thenReturn(transactionDtoResponse);
+
+        transactionService.updateTransaction(1L, transactionDtoRequest);
+
+        verify(billLockManager, never()).lock(anyLong());
+        verify(billRepository, never()).lockById(anyLong());
+        verifyNoInteractions(dailyRollupService);
+        verify(transactionRepository).save(transaction);
+    }
+
     @Test
     void updateTransaction_nullTagIds_success() {
-        transactionDtoRequest.setAmount(200.0);
+        transactionDtoRequest.setAmount(20_000L);
         transactionDtoRequest.setType(false); // Расход
         transactionDtoRequest.setTagIds(null);
 
@@ -638,7 +996,7 @@ class TransactionServiceImplTest {
         updatedTransaction.setName(transactionDtoRequest.getName());
         updatedTransaction.setDescription(transactionDtoRequest.getDescription());
         updatedTransaction.setType(false);
-        updatedTransaction.setAmount(200.0);
+        updatedTransaction.setAmount(20_000L);
         updatedTransaction.setDate(transactionDtoRequest.getDate());
         updatedTransaction.setUser(user);
         updatedTransaction.setBill(bill);
@@ -649,7 +1007,7 @@ class TransactionServiceImplTest {
         updatedResponse.setName(transactionDtoRequest.getName());
         updatedResponse.setDescription(transactionDtoRequest.getDescription());
         updatedResponse.setType(false);
-        updatedResponse.setAmount(200.0);
+        updatedResponse.setAmount(20_000L);
         updatedResponse.setDate(transactionDtoRequest.getDate());
         updatedResponse.setUserId(1L);
         updatedResponse.setBillId(1L);
@@ -674,13 +1032,13 @@ class TransactionServiceImplTest {
 
             assertNotNull(result);
             assertEquals(updatedResponse, result);
-            assertEquals(700.0, bill.getBalance());
+            assertEquals(70_000L, bill.getBalance());
             verify(transactionRepository).findById(1L);
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository, never()).findAllById(anyList());
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(any(Transaction.class));
             verify(cache).updateTransaction(1L, updatedResponse);
         }
@@ -688,7 +1046,7 @@ class TransactionServiceImplTest {
 
     @Test
     void updateTransaction_emptyTagIds_success() {
-        transactionDtoRequest.setAmount(200.0);
+        transactionDtoRequest.setAmount(20_000L);
         transactionDtoRequest.setType(false); // Расход
         transactionDtoRequest.setTagIds(Collections.emptyList());
 
@@ -697,7 +1055,7 @@ class TransactionServiceImplTest {
         updatedTransaction.setName(transactionDtoRequest.getName());
         updatedTransaction.setDescription(transactionDtoRequest.getDescription());
         updatedTransaction.setType(false);
-        updatedTransaction.setAmount(200.0);
+        updatedTransaction.setAmount(20_000L);
         updatedTransaction.setDate(transactionDtoRequest.getDate());
         updatedTransaction.setUser(user);
         updatedTransaction.setBill(bill);
@@ -708,7 +1066,7 @@ class TransactionServiceImplTest {
         updatedResponse.setName(transactionDtoRequest.getName());
         updatedResponse.setDescription(transactionDtoRequest.getDescription());
         updatedResponse.setType(false);
-        updatedResponse.setAmount(200.0);
+        updatedResponse.setAmount(20_000L);
         updatedResponse.setDate(transactionDtoRequest.getDate());
         updatedResponse.setUserId(1L);
         updatedResponse.setBillId(1L);
@@ -733,13 +1091,13 @@ class TransactionServiceImplTest {
 
             assertNotNull(result);
             assertEquals(updatedResponse, result);
-            assertEquals(700.0, bill.getBalance());
+            assertEquals(70_000L, bill.getBalance());
             verify(transactionRepository).findById(1L);
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository, never()).findAllById(anyList());
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(any(Transaction.class));
             verify(cache).updateTransaction(1L, updatedResponse);
         }
@@ -790,11 +1148,12 @@ class TransactionServiceImplTest {
     @Test
     void updateTransaction_insufficientFunds_throwsInvalidInputException() {
         transactionDtoRequest.setType(false); // Расход
-        transactionDtoRequest.setAmount(2000.0); // Больше, чем баланс (1000)
+        transactionDtoRequest.setAmount(200_000L); // Больше, чем баланс (1000)
 
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
+        when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
 
         InvalidInputException exception = assertThrows(InvalidInputException.class,
                 () -> transactionService.updateTransaction(1L, transactionDtoRequest));
@@ -808,7 +1167,7 @@ class TransactionServiceImplTest {
 
     @Test
     void updateTransaction_amountTooLarge_throwsInvalidInputException() {
-        transactionDtoRequest.setAmount(1_000_001.0);
+        transactionDtoRequest.setAmount(100_000_100L);
 
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
 
@@ -849,43 +1208,41 @@ class TransactionServiceImplTest {
     }
 
     @Test
-    void updateTransaction_userSaveThrowsException() {
+    void updateTransaction_billBalanceUpdateThrowsException() {
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
         when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
-        when(userRepository.save(user)).thenThrow(new DataAccessException("Database error") {});
+        transactionDtoRequest.setAmount(15_000L);
+        when(billRepository.addToBalance(eq(1L), anyLong()))
+                .thenThrow(new DataAccessException("Database error") {});
 
         DataAccessException exception = assertThrows(DataAccessException.class,
                 () -> transactionService.updateTransaction(1L, transactionDtoRequest));
 
         assertEquals("Database error", exception.getMessage());
-        verify(transactionRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(billRepository).findByIdAndUserId(1L, 1L);
-        verify(tagRepository).findAllById(List.of(1L));
-        verify(userRepository).save(user);
+        verify(billRepository).addToBalance(1L, 5000L);
+        verify(userRepository, never()).addToBalance(anyLong(), anyLong());
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
-    void updateTransaction_billSaveThrowsException() {
+    void updateTransaction_userBalanceUpdateThrowsException() {
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
         when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
-        when(userRepository.save(user)).thenReturn(user);
-        when(billRepository.save(bill)).thenThrow(new DataAccessException("Database error") {});
+        transactionDtoRequest.setAmount(15_000L);
+        when(userRepository.addToBalance(eq(1L), anyLong()))
+                .thenThrow(new DataAccessException("Database error") {});
 
         DataAccessException exception = assertThrows(DataAccessException.class,
                 () -> transactionService.updateTransaction(1L, transactionDtoRequest));
 
         assertEquals("Database error", exception.getMessage());
-        verify(transactionRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(billRepository).findByIdAndUserId(1L, 1L);
-        verify(tagRepository).findAllById(List.of(1L));
-        verify(userRepository).save(user);
-        verify(billRepository).save(bill);
+        verify(billRepository).addToBalance(1L, 5000L);
+        verify(userRepository).addToBalance(1L, 5000L);
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
@@ -894,8 +1251,6 @@ class TransactionServiceImplTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
         when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
-        when(userRepository.save(user)).thenReturn(user);
-        when(billRepository.save(bill)).thenReturn(bill);
         when(transactionRepository
                 .save(transaction))
                 .thenThrow(new DataAccessException("Database error") {});
@@ -908,8 +1263,8 @@ class TransactionServiceImplTest {
         verify(userRepository).findById(1L);
         verify(billRepository).findByIdAndUserId(1L, 1L);
         verify(tagRepository).findAllById(List.of(1L));
-        verify(userRepository).save(user);
-        verify(billRepository).save(bill);
+        verify(userRepository, never()).save(any());
+        verify(billRepository, never()).save(any());
         verify(transactionRepository).save(transaction);
     }
 
@@ -919,8 +1274,6 @@ class TransactionServiceImplTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(billRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(bill));
         when(tagRepository.findAllById(List.of(1L))).thenReturn(List.of(tag));
-        when(userRepository.save(user)).thenReturn(user);
-        when(billRepository.save(bill)).thenReturn(bill);
         when(transactionRepository.save(transaction)).thenReturn(transaction);
 
         try (MockedStatic<Hibernate> mockHibernate = mockStatic(Hibernate.class)) {
@@ -935,8 +1288,8 @@ class TransactionServiceImplTest {
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository).findAllById(List.of(1L));
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(transaction);
         }
     }
@@ -986,8 +1339,8 @@ class TransactionServiceImplTest {
             verify(userRepository).findById(1L);
             verify(billRepository).findByIdAndUserId(1L, 1L);
             verify(tagRepository).findAllById(List.of(1L));
-            verify(userRepository).save(user);
-            verify(billRepository).save(bill);
+            verify(userRepository, never()).save(any());
+            verify(billRepository, never()).save(any());
             verify(transactionRepository).save(transaction);
             verify(cache).updateTransaction(1L, updatedResponse);
         }
@@ -1034,7 +1387,7 @@ class TransactionServiceImplTest {
 
     @Test
     void deleteTransaction_expense_success() {
-        bill.setBalance(1000.0); // Сбрасываем баланс до исходного значения
+        bill.setBalance(100_000L); // Сбрасываем баланс до исходного значения
 
         // Создаём новый объект transaction
         Transaction expenseTransaction = new Transaction();
@@ -1042,7 +1395,7 @@ class TransactionServiceImplTest {
         expenseTransaction.setName("Test Transaction");
         expenseTransaction.setDescription("Test Description");
         expenseTransaction.setType(false); // Транзакция — расход
-        expenseTransaction.setAmount(100.0);
+        expenseTransaction.setAmount(10_000L);
         expenseTransaction.setDate(LocalDate.now());
         expenseTransaction.setUser(user);
         expenseTransaction.setBill(bill);
@@ -1053,16 +1406,20 @@ class TransactionServiceImplTest {
 
         transactionService.deleteTransaction(1L);
 
-        assertEquals(1100.0, bill.getBalance()); // 1000 + 100 (отмена расхода)
+        assertEquals(110_000L, bill.getBalance()); // 1000 + 100 (отмена расхода)
         verify(transactionRepository).findById(1L);
         verify(billRepository).findById(1L);
+        InOrder inOrder = inOrder(billLockManager, billRepository);
+        inOrder.verify(billLockManager).lock(1L);
+        inOrder.verify(billRepository).addToBalance(1L, 10_000L);
+        verify(dailyRollupService).remove(expenseTransaction);
         verify(transactionRepository).delete(expenseTransaction);
         verify(cache).removeTransaction(1L, 1L);
     }
 
     @Test
     void deleteTransaction_income_success() {
-        bill.setBalance(1000.0); // Сбрасываем баланс до исходного значения
+        bill.setBalance(100_000L); // Сбрасываем баланс до исходного значения
 
         // Создаём новый объект transaction
         Transaction incomeTransaction = new Transaction();
@@ -1070,7 +1427,7 @@ class TransactionServiceImplTest {
         incomeTransaction.setName("Test Transaction");
         incomeTransaction.setDescription("Test Description");
         incomeTransaction.setType(true); // Транзакция — доход
-        incomeTransaction.setAmount(100.0);
+        incomeTransaction.setAmount(10_000L);
         incomeTransaction.setDate(LocalDate.now());
         incomeTransaction.setUser(user);
         incomeTransaction.setBill(bill);
@@ -1081,7 +1438,7 @@ class TransactionServiceImplTest {
 
         transactionService.deleteTransaction(1L);
 
-        assertEquals(900.0, bill.getBalance()); // 1000 - 100 (доход)
+        assertEquals(90_000L, bill.getBalance()); // 1000 - 100 (доход)
         verify(transactionRepository).findById(1L);
         verify(billRepository).findById(1L);
         verify(transactionRepository).delete(incomeTransaction);
@@ -1107,7 +1464,7 @@ class TransactionServiceImplTest {
         testTransaction.setName("Test Transaction");
         testTransaction.setDescription("Test Description");
         testTransaction.setType(true); // Доход
-        testTransaction.setAmount(100.0);
+        testTransaction.setAmount(10_000L);
         testTransaction.setDate(LocalDate.now());
         testTransaction.setUser(user);
 
@@ -1130,13 +1487,13 @@ class TransactionServiceImplTest {
 
     @Test
     void deleteTransaction_cacheRemoveThrowsException() {
-        bill.setBalance(1000.0);
+        bill.setBalance(100_000L);
         Transaction testTransaction = new Transaction(); // Изменено с transaction
         testTransaction.setId(1L);
         testTransaction.setName("Test Transaction");
         testTransaction.setDescription("Test Description");
         testTransaction.setType(true); // Доход
-        testTransaction.setAmount(100.0);
+        testTransaction.setAmount(10_000L);
         testTransaction.setDate(LocalDate.now());
         testTransaction.setUser(user);
         testTransaction.setBill(bill);
@@ -1150,7 +1507,7 @@ class TransactionServiceImplTest {
                 () -> transactionService.deleteTransaction(1L));
 
         assertEquals("Cache remove failed", exception.getMessage());
-        assertEquals(900.0, bill.getBalance()); // Баланс всё равно уменьшился (отмена дохода)
+        assertEquals(90_000L, bill.getBalance()); // Баланс всё равно уменьшился (отмена дохода)
         verify(transactionRepository).findById(1L);
         verify(billRepository).findById(1L);
         verify(transactionRepository).delete(testTransaction);
@@ -0,0 +1,137 @@
+package com.example.financery.service.impl;
+
+import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.UserPageDto;
+import com.example.financery.dto.UserSummaryDto;
+import com.example.financery.mapper.BillMapper;
+import com.example.financery.mapper.TagMapper;
+import com.example.financery.mapper.TransactionMapper;
+import com.example.financery.mapper.UserMapper;
+import com.example.financery.model.Bill;
+import com.example.financery.model.Tag;
+import com.example.financery.model.Transaction;
+import com.example.financery.model.User;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
+import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Import({UserServiceImpl.class, UserMapper.class, BillMapper.class, TransactionMapper.class,
+    TagMapper.class, InMemoryCache.class, TransactionColumnStore.class, BillBalanceIndex.class,
+    TagSuggestionIndex.class,
+    AutocompleteIndex.class})
+class UserServiceImplFetchTest {
+
+    private static final int USER_COUNT = 5;
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User();
+            user.setName("Пользователь " + i);
+            user.setEmail("user" + i + "@example.com");
+            entityManager.persist(user);
+            Tag tag = new Tag();
+            tag.setTitle("Тег " + i);
+            tag.setUser(user);
+            entityManager.persist(tag);
+            // У пользователя i ровно i счетов по две транзакции на каждом
+            for (int j = 0; j < i; j++) {
+                Bill bill = new Bill();
+                bill.setName("Счет " + j);
+                bill.setBalance(10_000L);
+                bill.setUser(user);
+                entityManager.persist(bill);
+                for (int k = 0; k < 2; k++) {
+                    Transaction transaction = new Transaction();
+                    transaction.setName("Транзакция " + k);
+                    transaction.setAmount(100L);
+                    transaction.setDate(LocalDate.of(2025, 1, 1 + k));
+                    transaction.setUser(user);
+                    transaction.setBill(bill);
+                    transaction.setTags(new ArrayList<>(List.of(tag)));
+                    entityManager.persist(transaction);
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getUsersPage_withoutExpand_countsBillsInOneStatement() {
+        List<UserSummaryDto> users = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            UserPageDto page = userService.getUsersPage(cursor, 2, null);
+            users.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(USER_COUNT, users.size());
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L),
+                users.stream().map(UserSummaryDto::getBillCount).toList());
+        assertTrue(users.stream().allMatch(user -> user.getBills() == null));
+        assertEquals(pages, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getUsersPage_expandTransactions_loadsGraphInThreeStatements() {
+        UserPageDto page = userService.getUsersPage(null, USER_COUNT, "bills.transactions");
+
+        List<BillDtoResponse> bills = page.getItems().stream()
+                .flatMap(user -> user.getBills().stream())
+                .toList();
+        assertEquals(10, bills.size());
+        assertTrue(bills.stream().allMatch(bill -> bill.getTransactions().size() == 2
+                && bill.getTransactions().get(0).getTags().size() == 1));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getUsersPage_expandBills_omitsTransactions() {
+        UserPageDto page = userService.getUsersPage(null, USER_COUNT, "bills");
+
+        assertEquals(List.of(0, 1, 2, 3, 4),
+                page.getItems().stream().map(user -> user.getBills().size()).toList());
+        assertTrue(page.getItems().stream().flatMap(user -> user.getBills().stream())
+                .allMatch(bill -> bill.getTransactions() == null));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -2,11 +2,22 @@ package com.example.financery.service.impl;
 
 import com.example.financery.dto.UserDtoRequest;
 import com.example.financery.dto.UserDtoResponse;
+import com.example.financery.dto.UserPageDto;
+import com.example.financery.dto.UserSummaryDto;
+import com.example.financery.exception.InvalidInputException;
 import com.example.financery.exception.NotFoundException;
+import com.example.financery.mapper.TransactionMapper;
 import com.example.financery.mapper.UserMapper;
 import com.example.financery.model.User;
+import com.example.financery.repository.BillRepository;
+import com.example.financery.repository.DailyRollupRepository;
+import com.example.financery.repository.TransactionRepository;
 import com.example.financery.repository.UserRepository;
+import com.example.financery.utils.AutocompleteIndex;
+import com.example.financery.utils.BillBalanceIndex;
 import com.example.financery.utils.InMemoryCache;
+import com.example.financery.utils.TagSuggestionIndex;
+import com.example.financery.utils.TransactionColumnStore;
 import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +27,9 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -32,12 +46,36 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private TransactionMapper transactionMapper;
+
     @Mock
     private InMemoryCache cache;
 
+    @Mock
+    private TransactionColumnStore columnStore;
+
+    @Mock
+    private TagSuggestionIndex suggestionIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @Mock
+    private BillBalanceIndex billBalanceIndex;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -51,19 +89,19 @@ class UserServiceImplTest {
         user.setId(1L);
         user.setName("Test User");
         user.setEmail("test@example.com");
-        user.setBalance(0.0);
+        user.setBalance(0L);
         user.setBills(new ArrayList<>());
 
         userDtoRequest = new UserDtoRequest();
         userDtoRequest.setName("Test User");
         userDtoRequest.setEmail("test@example.com");
-        userDtoRequest.setBalance(100.0); // Будет проигнорировано
+        userDtoRequest.setBalance(10_000L); // Будет проигнорировано
 
         userDtoResponse = new UserDtoResponse();
         userDtoResponse.setId(1L);
         userDtoResponse.setName("Test User");
         userDtoResponse.setEmail("test@example.com");
-        userDtoResponse.setBalance(0.0);
+        userDtoResponse.setBalance(0L);
         userDtoResponse.setBills(new ArrayList<>());
     }
 
@@ -144,7 +182,7 @@ class UserServiceImplTest {
 
         assertNotNull(result);
         assertEquals(userDtoResponse, result);
-        assertEquals(0.0, user.getBalance());
+        assertEquals(0L, user.getBalance());
         verify(userMapper).toEntity(userDtoRequest);
         verify(userRepository).save(user);
         verify(userMapper).toDto(user);
@@ -219,14 +257,14 @@ class UserServiceImplTest {
         updatedUser.setId(1L);
         updatedUser.setName("Updated User");
         updatedUser.setEmail("updated@example.com");
-        updatedUser.setBalance(0.0);
+        updatedUser.setBalance(0L);
         updatedUser.setBills(new ArrayList<>());
 
         UserDtoResponse updatedUserDtoResponse = new UserDtoResponse();
         updatedUserDtoResponse.setId(1L);
         updatedUserDtoResponse.setName("Updated User");
         updatedUserDtoResponse.setEmail("updated@example.com");
-        updatedUserDtoResponse.setBalance(0.0);
+        updatedUserDtoResponse.setBalance(0L);
         updatedUserDtoResponse.setBills(new ArrayList<>());
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
@@ -277,10 +315,31 @@ class UserServiceImplTest {
         userService.deleteUser(1L);
 
         verify(userRepository).findById(1L);
+        verify(dailyRollupRepository).deleteByUserId(1L);
         verify(userRepository).deleteById(1L);
         verify(cache).clearForUser(1L);
     }
 
+    @Test
+    void deleteUser_insideTransaction_clearsMemoryAfterCommit() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deleteUser(1L);
+            verify(cache, never()).clearForUser(anyLong());
+            verify(columnStore, never()).clearForUser(anyLong());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(cache).clearForUser(1L);
+        verify(columnStore).clearForUser(1L);
+        verify(suggestionIndex).clearForUser(1L);
+        verify(autocompleteIndex).clearForUser(1L);
+    }
+
     @Test
     void deleteUser_userNotFound_throwsNotFoundException() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -307,4 +366,33 @@ class UserServiceImplTest {
         verify(userRepository).deleteById(1L);
         verify(cache).clearForUser(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUsersPage_withoutExpand_readsOnlyProjection() {
+        UserSummaryDto first = new UserSummaryDto(1L, "Первый", "first@example.com", 0L, 2L);
+        UserSummaryDto second = new UserSummaryDto(2L, "Второй", "second@example.com", 0L, 0L);
+        when(userRepository.findSummariesAfter(5L, Pageable.ofSize(2)))
+                .thenReturn(List.of(first, second));
+
+        UserPageDto result = userService.getUsersPage("5", 1, null);
+
+        assertEquals(List.of(first), result.getItems());
+        assertEquals("1", result.getNextCursor());
+        assertNull(result.getItems().get(0).getBills());
+        verifyNoInteractions(billRepository, transactionRepository, userMapper);
+    }
+
+    @Test
+    void getUsersPage_invalidArguments_throwsInvalidInputException() {
+        assertThrows(InvalidInputException.class,
+                () -> userService.getUsersPage(null, 0, null));
+        assertThrows(InvalidInputException.class,
+                () -> userService.getUsersPage("abc", 10, null));
+        InvalidInputException exception = assertThrows(InvalidInputException.class,
+                () -> userService.getUsersPage(null, 10, "tags"));
+
+        assertEquals("Неизвестное значение expand: tags, используй bills или bills.transactions",
+                exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
+}
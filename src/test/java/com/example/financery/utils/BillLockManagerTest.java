@@ -0,0 +1,171 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.BillLockStatsDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillLockManagerTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void begin() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static void complete() {
+        List<TransactionSynchronization> synchronizations =
+                TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    void lock_sameBill_waitsUntilHolderCompletes() throws Exception {
+        BillLockManager manager = new BillLockManager("striped", 16, 5000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            begin();
+            manager.lock(1L);
+
+            CountDownLatch acquired = new CountDownLatch(1);
+            Future<?> waiter = executor.submit(() -> {
+                begin();
+                manager.lock(1L);
+                acquired.countDown();
+                complete();
+                return null;
+            });
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+            complete();
+            assertTrue(acquired.await(5, TimeUnit.SECONDS));
+            waiter.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BillLockStatsDto stats = manager.getStats();
+        assertEquals(2, stats.getAcquisitions());
+        assertEquals(1, stats.getContended());
+        assertTrue(stats.getMaxWaitMs() >= 150);
+    }
+
+    @Test
+    void lock_differentStripes_doNotBlockEachOther() throws Exception {
+        BillLockManager manager = new BillLockManager("striped", 2, 50);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            begin();
+            manager.lock(1L);
+            // Среди следующих счетов есть попадающие во вторую блокировку
+            Long free = null;
+            for (long billId = 2; billId < 100 && free == null; billId++) {
+                long candidate = billId;
+                free = executor.submit(() -> tryLock(manager, candidate))
+                        .get(5, TimeUnit.SECONDS);
+            }
+            assertNotNull(free);
+        } finally {
+            complete();
+            executor.shutdownNow();
+        }
+    }
+
+    private static Long tryLock(BillLockManager manager, long billId) {
+        begin();
+        try {
+            manager.lock(billId);
+            return billId;
+        } catch (CannotAcquireLockException e) {
+            return null;
+        } finally {
+            complete();
+        }
+    }
+
+    @Test
+    void lock_timeoutExpired_throwsCannotAcquireLock() throws Exception {
+        BillLockManager manager = new BillLockManager("striped", 16, 50);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            begin();
+            manager.lock(1L);
+
+            Future<Long> waiter = executor.submit(() -> tryLock(manager, 1L));
+            assertNull(waiter.get(5, TimeUnit.SECONDS));
+        } finally {
+            complete();
+            executor.shutdownNow();
+        }
+        assertEquals(1, manager.getStats().getAcquisitions());
+    }
+
+    @Test
+    void lockAll_overlappingSetsInDifferentOrder_doNotDeadlock() throws Exception {
+        BillLockManager manager = new BillLockManager("striped", 64, 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> writers = List.of(
+                    executor.submit(() -> lockAllRepeatedly(manager, List.of(1L, 2L, 3L))),
+                    executor.submit(() -> lockAllRepeatedly(manager, List.of(3L, 2L, 1L))));
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Void lockAllRepeatedly(BillLockManager manager, List<Long> billIds) {
+        for (int i = 0; i < 1000; i++) {
+            begin();
+            manager.lockAll(billIds);
+            complete();
+        }
+        return null;
+    }
+
+    @Test
+    void lock_atomicMode_takesNoProcessLocks() {
+        BillLockManager manager = new BillLockManager("atomic", 16, 5000);
+
+        manager.lock(1L);
+        manager.lockAll(List.of(1L, 2L));
+
+        assertFalse(manager.isStriped());
+        assertEquals("atomic", manager.getStats().getMode());
+        assertEquals(0, manager.getStats().getAcquisitions());
+    }
+
+    @Test
+    void lock_outsideTransaction_throws() {
+        BillLockManager manager = new BillLockManager("striped", 16, 5000);
+
+        assertThrows(IllegalStateException.class, () -> manager.lock(1L));
+    }
+
+    @Test
+    void constructor_unknownMode_throws() {
+        assertThrows(IllegalStateException.class,
+                () -> new BillLockManager("optimistic", 16, 5000));
+    }
+}
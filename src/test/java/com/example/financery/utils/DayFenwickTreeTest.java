@@ -0,0 +1,96 @@
+package com.example.financery.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayFenwickTreeTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void sumThrough_matchesNaivePrefixSums() {
+        Random random = new Random(7);
+        Map<LocalDate, Long> deltas = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            deltas.merge(START.plusDays(random.nextInt(500)),
+                    (long) random.nextInt(20_000) - 10_000, Long::sum);
+        }
+        DayFenwickTree tree = DayFenwickTree.of(deltas);
+
+        for (int day = -5; day < 510; day++) {
+            LocalDate through = START.plusDays(day);
+            long expected = deltas.entrySet().stream()
+                    .filter(entry -> !entry.getKey().isAfter(through))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            assertEquals(expected, tree.sumThrough(through), "День " + through);
+        }
+        assertEquals(tree.sumThrough(START.plusDays(499)), tree.total());
+    }
+
+    @Test
+    void add_backDatedAndFarOutsideRange_growsAndKeepsSums() {
+        DayFenwickTree tree = DayFenwickTree.of(Map.of(START, 1_000L));
+
+        tree.add(START.minusDays(10), 500L);
+        tree.add(START.minusYears(3), 200L);
+        tree.add(START.plusYears(4), -300L);
+
+        assertEquals(0, tree.sumThrough(START.minusYears(3).minusDays(1)));
+        assertEquals(200, tree.sumThrough(START.minusYears(3)));
+        assertEquals(700, tree.sumThrough(START.minusDays(1)));
+        assertEquals(1_700, tree.sumThrough(START));
+        assertEquals(1_400, tree.sumThrough(START.plusYears(10)));
+        assertEquals(1_400, tree.total());
+    }
+
+    @Test
+    void add_toEmptyTree_startsRange() {
+        DayFenwickTree tree = DayFenwickTree.of(Map.of());
+
+        assertEquals(0, tree.sumThrough(START));
+        tree.add(START, -250L);
+
+        assertEquals(0, tree.sumThrough(START.minusDays(1)));
+        assertEquals(-250, tree.sumThrough(START));
+    }
+
+    @Test
+    void add_consecutiveNewDays_doublesWindowAndKeepsSums() {
+        DayFenwickTree tree = DayFenwickTree.of(Map.of(START, 1L));
+        assertEquals(64, tree.capacity());
+
+        for (int day = 1; day <= 365; day++) {
+            tree.add(START.plusDays(day), day);
+        }
+        tree.add(START.minusDays(100), 1_000L);
+
+        assertEquals(1_024, tree.capacity());
+        assertEquals(1_000, tree.sumThrough(START.minusDays(1)));
+        assertEquals(1_001 + 100 * 101 / 2, tree.sumThrough(START.plusDays(100)));
+        assertEquals(1_001 + 365 * 366 / 2, tree.total());
+    }
+
+    @Test
+    void of_farApartDates_keepsWindowBoundedAndSumsExact() {
+        DayFenwickTree tree = DayFenwickTree.of(Map.of(
+                LocalDate.MIN, 100L, START, 1_000L, LocalDate.MAX, -50L));
+
+        tree.add(LocalDate.of(1, 1, 1), 7L);
+        tree.add(START, 1L);
+
+        assertTrue(tree.capacity() <= DayFenwickTree.MAX_CAPACITY);
+        assertEquals(100, tree.sumThrough(LocalDate.MIN));
+        assertEquals(107, tree.sumThrough(LocalDate.of(1, 1, 1)));
+        assertEquals(1_108, tree.sumThrough(START));
+        assertEquals(1_108, tree.sumThrough(LocalDate.MAX.minusDays(1)));
+        assertEquals(1_058, tree.sumThrough(LocalDate.MAX));
+        assertEquals(1_058, tree.total());
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.CacheStatsDto;
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryCacheTest {
+
+    private static TransactionDtoResponse transaction(long id, String name) {
+        TransactionDtoResponse transaction = new TransactionDtoResponse();
+        transaction.setId(id);
+        transaction.setName(name);
+        transaction.setDescription("Описание");
+        transaction.setDate(LocalDate.of(2025, 1, 1));
+        transaction.setTags(new ArrayList<>());
+        transaction.setUserId(1L);
+        transaction.setBillId(1L);
+        return transaction;
+    }
+
+    private static List<TransactionDtoResponse> transactions(int count) {
+        List<TransactionDtoResponse> transactions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            transactions.add(transaction(i, "Транзакция " + i));
+        }
+        return transactions;
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedUserWhenWeightExceeded() {
+        long userWeight = TransactionWeigher.weigh(transactions(10));
+        InMemoryCache cache = new InMemoryCache(userWeight * 2, 1, 1000);
+
+        cache.put(1L, transactions(10));
+        cache.put(2L, transactions(10));
+        cache.get(1L);
+        cache.put(3L, transactions(10));
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        CacheStatsDto stats = cache.getStats();
+        assertEquals(2, stats.getUsers());
+        assertEquals(2 * userWeight, stats.getWeightBytes());
+        assertEquals(1, stats.getEvictions());
+    }
+
+    @Test
+    void put_heavyUserEvictsSeveralLightUsers() {
+        long lightWeight = TransactionWeigher.weigh(transactions(1));
+        InMemoryCache cache = new InMemoryCache(lightWeight * 4, 1, 1000);
+
+        for (long userId = 1; userId <= 4; userId++) {
+            cache.put(userId, transactions(1));
+        }
+        cache.put(5L, transactions(3));
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(5L));
+        assertTrue(cache.getStats().getWeightBytes() <= cache.getStats().getMaxWeightBytes());
+    }
+
+    @Test
+    void put_userHeavierThanSegmentShare_isCachedAndEvictsOtherSegments() {
+        long lightWeight = TransactionWeigher.weigh(transactions(1));
+        long heavyWeight = TransactionWeigher.weigh(transactions(20));
+        InMemoryCache cache = new InMemoryCache(heavyWeight + 2 * lightWeight, 16, 1000);
+
+        for (long userId = 1; userId <= 4; userId++) {
+            cache.put(userId, transactions(1));
+        }
+        cache.put(100L, transactions(20));
+
+        assertNotNull(cache.get(100L));
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertNotNull(cache.get(4L));
+        CacheStatsDto stats = cache.getStats();
+        assertEquals(heavyWeight + 2 * lightWeight, stats.getWeightBytes());
+        assertEquals(2, stats.getEvictions());
+    }
+
+    @Test
+    void put_entryLargerThanBudget_isNotCached() {
+        InMemoryCache cache = new InMemoryCache(100, 1, 1000);
+
+        cache.put(1L, transactions(10));
+
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.getStats().getWeightBytes());
+    }
+
+    @Test
+    void updateAndRemoveTransaction_keepWeightInSync() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 4, 1000);
+        cache.put(1L, transactions(3));
+
+        cache.updateTransaction(1L, transaction(2, "Новое длинное название транзакции"));
+        cache.updateTransaction(1L, transaction(4, "Новая"));
+        cache.removeTransaction(1L, 1L);
+
+        List<TransactionDtoResponse> cached = cache.get(1L);
+        assertEquals(3, cached.size());
+        assertEquals(TransactionWeigher.weigh(cached), cache.getStats().getWeightBytes());
+
+        cache.clearForUser(1L);
+        assertEquals(0, cache.getStats().getWeightBytes());
+    }
+
+    @Test
+    void updateTransactions_batch_keepsOrderAndWeightInSync() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+        cache.put(1L, transactions(3));
+        List<TransactionDtoResponse> before = cache.get(1L);
+        TransactionDtoResponse earliest = transaction(5, "Ранняя");
+        earliest.setDate(LocalDate.of(2024, 12, 31));
+
+        cache.updateTransactions(1L, List.of(
+                transaction(4, "Новая"), earliest, transaction(2, "Новое длинное название")));
+
+        List<TransactionDtoResponse> cached = cache.get(1L);
+        assertEquals(List.of(5L, 1L, 2L, 3L, 4L),
+                cached.stream().map(TransactionDtoResponse::getId).toList());
+        assertEquals("Новое длинное название", cached.get(2).getName());
+        assertEquals(3, before.size());
+        assertEquals(TransactionWeigher.weigh(cached), cache.getStats().getWeightBytes());
+    }
+
+    @Test
+    void getOrLoad_concurrentMisses_loadOnce() throws Exception {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 4, 5000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<TransactionDtoResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.getOrLoad(1L, () -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    try {
+                        releaseLoader.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return transactions(2);
+                })));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            for (Future<List<TransactionDtoResponse>> result : results) {
+                assertEquals(2, result.get(5, TimeUnit.SECONDS).size());
+            }
+            assertEquals(1, loads.get());
+            assertNotNull(cache.get(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrLoad_loaderFails_waitersGetSameException() throws Exception {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 4, 5000);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> leader = executor.submit(() -> cache.getOrLoad(1L, () -> {
+                loaderStarted.countDown();
+                try {
+                    releaseLoader.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalArgumentException("Ошибка базы данных");
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<?> waiter = executor.submit(() -> cache.getOrLoad(1L, () -> transactions(1)));
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            Exception leaderError = assertThrows(Exception.class,
+                    () -> leader.get(5, TimeUnit.SECONDS));
+            Exception waiterError = assertThrows(Exception.class,
+                    () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, leaderError.getCause());
+            assertInstanceOf(IllegalArgumentException.class, waiterError.getCause());
+            assertNull(cache.get(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrLoad_waiterTimesOut() throws Exception {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 4, 50);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> cache.getOrLoad(1L, () -> {
+                loaderStarted.countDown();
+                try {
+                    releaseLoader.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return transactions(1);
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            assertThrows(IllegalStateException.class,
+                    () -> cache.getOrLoad(1L, () -> transactions(1)));
+        } finally {
+            releaseLoader.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrLoad_writeDuringLoad_resultNotCached() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+
+        List<TransactionDtoResponse> result = cache.getOrLoad(1L, () -> {
+            cache.removeTransaction(1L, 1L);
+            return transactions(1);
+        });
+
+        assertEquals(1, result.size());
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void updateTransaction_keepsDateThenIdOrder() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+        cache.put(1L, transactions(3));
+
+        TransactionDtoResponse moved = transaction(1, "Перенесённая");
+        moved.setDate(LocalDate.of(2025, 2, 1));
+        cache.updateTransaction(1L, moved);
+        TransactionDtoResponse earliest = transaction(7, "Самая ранняя");
+        earliest.setDate(LocalDate.of(2024, 12, 31));
+        cache.updateTransaction(1L, earliest);
+
+        List<Long> ids = cache.get(1L).stream().map(TransactionDtoResponse::getId).toList();
+        assertEquals(List.of(7L, 2L, 3L, 1L), ids);
+        assertThrows(UnsupportedOperationException.class,
+                () -> cache.get(1L).add(transaction(8, "Чужая")));
+    }
+
+    @Test
+    void get_returnedSnapshotIsNotAffectedByLaterWrites() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+        cache.put(1L, transactions(100));
+
+        List<TransactionDtoResponse> before = cache.get(1L);
+        cache.removeTransaction(1L, 50L);
+        cache.updateTransaction(1L, transaction(101, "Новая"));
+        List<TransactionDtoResponse> after = cache.get(1L);
+
+        assertEquals(100, before.size());
+        assertEquals(50L, before.get(49).getId());
+        assertEquals(100, after.size());
+        assertEquals(51L, after.get(49).getId());
+        assertEquals(101L, after.get(99).getId());
+        List<Long> ids = after.stream().map(TransactionDtoResponse::getId).toList();
+        assertFalse(ids.contains(50L));
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Test
+    void renameTag_updatesSharedTagOfAllTransactions() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+        List<TransactionDtoResponse> transactions = transactions(3);
+        for (TransactionDtoResponse transaction : transactions) {
+            transaction.setTags(new ArrayList<>(List.of(tag(5, "Еда"))));
+        }
+        cache.put(1L, transactions);
+        TransactionDtoResponse added = transaction(4, "Новая");
+        added.setTags(new ArrayList<>(List.of(tag(5, "Еда"))));
+        cache.updateTransaction(1L, added);
+        List<TransactionDtoResponse> before = cache.get(1L);
+        long weightBefore = cache.getStats().getWeightBytes();
+
+        cache.renameTag(1L, 5L, "Продукты");
+
+        List<TransactionDtoResponse> cached = cache.get(1L);
+        TagDtoResponse shared = cached.get(0).getTags().get(0);
+        for (TransactionDtoResponse transaction : cached) {
+            assertSame(shared, transaction.getTags().get(0));
+        }
+        assertEquals("Продукты", shared.getTitle());
+        // Снимок, выданный до переименования, не меняется
+        for (TransactionDtoResponse transaction : before) {
+            assertEquals("Еда", transaction.getTags().get(0).getTitle());
+        }
+        // Вес меняется на разницу названий один раз, а не на каждую транзакцию с тегом
+        assertEquals(weightBefore + 2L * ("Продукты".length() - "Еда".length()),
+                cache.getStats().getWeightBytes());
+    }
+
+    @Test
+    void updateTransaction_newTagTitle_renamesTagInOtherTransactions() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+        List<TransactionDtoResponse> transactions = transactions(2);
+        for (TransactionDtoResponse transaction : transactions) {
+            transaction.setTags(new ArrayList<>(List.of(tag(5, "Еда"))));
+        }
+        cache.put(1L, transactions);
+        List<TransactionDtoResponse> before = cache.get(1L);
+        TransactionDtoResponse added = transaction(3, "Новая");
+        added.setTags(new ArrayList<>(List.of(tag(5, "Продукты"))));
+
+        cache.updateTransaction(1L, added);
+
+        for (TransactionDtoResponse transaction : cache.get(1L)) {
+            assertEquals("Продукты", transaction.getTags().get(0).getTitle());
+        }
+        assertEquals("Еда", before.get(0).getTags().get(0).getTitle());
+    }
+
+    @Test
+    void removeTag_stripsTagFromAllTransactionsAndResyncsWeight() {
+        InMemoryCache cache = new InMemoryCache(1_000_000, 1, 1000);
+        List<TransactionDtoResponse> transactions = transactions(3);
+        for (TransactionDtoResponse transaction : transactions) {
+            transaction.setTags(new ArrayList<>(List.of(tag(5, "Еда"), tag(6, "Дом"))));
+        }
+        cache.put(1L, transactions);
+        List<TransactionDtoResponse> before = cache.get(1L);
+        List<TagDtoResponse> tagsBefore = before.get(0).getTags();
+
+        cache.removeTag(1L, 5L);
+
+        for (TransactionDtoResponse transaction : cache.get(1L)) {
+            assertEquals(List.of(6L),
+                    transaction.getTags().stream().map(TagDtoResponse::getId).toList());
+        }
+        assertEquals(2, tagsBefore.size());
+        assertEquals(List.of(5L, 6L),
+                before.get(0).getTags().stream().map(TagDtoResponse::getId).toList());
+        assertEquals(TransactionWeigher.weigh(cache.get(1L)), cache.getStats().getWeightBytes());
+    }
+
+    private static TagDtoResponse tag(long id, String title) {
+        TagDtoResponse tag = new TagDtoResponse();
+        tag.setId(id);
+        tag.setTitle(title);
+        tag.setUserId(1L);
+        return tag;
+    }
+}
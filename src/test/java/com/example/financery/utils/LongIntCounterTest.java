@@ -0,0 +1,34 @@
+package com.example.financery.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntCounterTest {
+
+    @Test
+    void add_matchesHashMapUnderRandomIncrementsAndRemovals() {
+        Random random = new Random(7);
+        LongIntCounter counter = new LongIntCounter();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(300);
+            int delta = expected.containsKey(key) && random.nextBoolean()
+                    ? -expected.get(key) : 1 + random.nextInt(3);
+            counter.add(key, delta);
+            expected.merge(key, delta, Integer::sum);
+            expected.remove(key, 0);
+        }
+
+        assertEquals(expected.size(), counter.size());
+        expected.forEach((key, count) -> assertEquals(count, counter.get(key)));
+        Map<Long, Integer> visited = new HashMap<>();
+        counter.forEach(visited::put);
+        assertEquals(expected, visited);
+        assertEquals(0, counter.get(1_000));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.BillDtoResponse;
+import com.example.financery.dto.TransactionDtoRequest;
+import com.example.financery.model.MoneyConverter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    @Test
+    void toCents_roundsHalfUpByDecimalRepresentation() {
+        assertEquals(101L, Money.toCents(1.005));
+        assertEquals(10L, Money.toCents(0.1));
+        assertEquals(-250L, Money.toCents(-2.5));
+        assertEquals(100_000_000L, Money.toCents(1_000_000));
+    }
+
+    @Test
+    void sumOfCents_isExact() {
+        long sum = 0;
+        for (int i = 0; i < 1000; i++) {
+            sum += Money.toCents(0.1);
+        }
+        assertEquals(new BigDecimal("100.00"), Money.toDecimal(sum));
+    }
+
+    @Test
+    void json_keepsDecimalAmounts() throws Exception {
+        TransactionDtoRequest request = objectMapper.readValue(
+                "{\"amount\": 10.5, \"userId\": 1, \"billId\": 1}", TransactionDtoRequest.class);
+        assertEquals(1050L, request.getAmount());
+
+        BillDtoResponse bill = new BillDtoResponse();
+        bill.setBalance(123_456L);
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(bill));
+        assertEquals(new BigDecimal("1234.56"), json.get("balance").decimalValue());
+    }
+
+    @Test
+    void json_amountOutOfRange_isRejected() {
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue(
+                "{\"amount\": 1e20}", TransactionDtoRequest.class));
+    }
+
+    @Test
+    void converter_storesRublesWithTwoDecimals() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(new BigDecimal("10.05"), converter.convertToDatabaseColumn(1005L));
+        assertEquals(1005L, converter.convertToEntityAttribute(new BigDecimal("10.05")));
+        assertEquals(1005L, converter.convertToEntityAttribute(new BigDecimal("10.049")));
+    }
+}
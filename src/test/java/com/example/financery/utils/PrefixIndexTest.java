@@ -0,0 +1,54 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.AutocompleteItemDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    private static List<String> texts(List<AutocompleteItemDto> items) {
+        return items.stream().map(AutocompleteItemDto::getText).toList();
+    }
+
+    @Test
+    void search_matchesPrefixIgnoringCaseInAlphabeticalOrder() {
+        PrefixIndex index = PrefixIndex.of(
+                Map.of(1L, "Продукты", 2L, "Транспорт"),
+                Map.of("продукты на неделю", 3L, "Проезд", 1L, "Такси", 2L));
+
+        List<AutocompleteItemDto> items = index.search("ПРО", 10);
+
+        assertEquals(List.of("Продукты", "продукты на неделю", "Проезд"), texts(items));
+        assertEquals(AutocompleteItemDto.TAG, items.get(0).getType());
+        assertEquals(AutocompleteItemDto.TRANSACTION, items.get(1).getType());
+        assertEquals(List.of("Продукты"), texts(index.search("про", 1)));
+        assertTrue(index.search("я", 10).isEmpty());
+    }
+
+    @Test
+    void writes_keepCountsAndOrder() {
+        PrefixIndex index = PrefixIndex.of(Map.of(1L, "Еда"), Map.of("Такси", 2L));
+
+        index.removeName("Такси");
+        index.addName("Такси домой");
+        index.addName("Такси в аэропорт");
+        index.addTag(1L, "Ежедневное");
+        index.addTag(2L, "Такси");
+
+        assertEquals(List.of("Такси", "Такси", "Такси в аэропорт", "Такси домой"),
+                texts(index.search("так", 10)));
+        assertEquals(List.of("Ежедневное"), texts(index.search("е", 10)));
+
+        index.removeName("Такси");
+        index.removeTag(2L);
+        index.removeTag(1L);
+
+        assertEquals(List.of("Такси в аэропорт", "Такси домой"), texts(index.search("т", 10)));
+        assertTrue(index.search("е", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+}
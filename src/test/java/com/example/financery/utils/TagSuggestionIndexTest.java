@@ -0,0 +1,106 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TagSuggestionDto;
+import com.example.financery.dto.TransactionDtoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagSuggestionIndexTest {
+
+    private static final long FOOD = 1;
+    private static final long SHOP = 2;
+    private static final long TAXI = 3;
+
+    private static List<TagUsage> history() {
+        return List.of(
+                new TagUsage(1, "Продукты в Магните", FOOD, "Еда"),
+                new TagUsage(1, "Продукты в Магните", SHOP, "Магазин"),
+                new TagUsage(2, "Продукты на рынке", FOOD, "Еда"),
+                new TagUsage(3, "Такси домой", TAXI, "Такси"));
+    }
+
+    private static TransactionDtoResponse transaction(long id, String name, long... tagIds) {
+        TransactionDtoResponse transaction = new TransactionDtoResponse();
+        transaction.setId(id);
+        transaction.setName(name);
+        List<TagDtoResponse> tags = new ArrayList<>();
+        for (long tagId : tagIds) {
+            TagDtoResponse tag = new TagDtoResponse();
+            tag.setId(tagId);
+            tag.setTitle("Тег " + tagId);
+            tags.add(tag);
+        }
+        transaction.setTags(tags);
+        return transaction;
+    }
+
+    private static List<Long> ids(List<TagSuggestionDto> suggestions) {
+        return suggestions.stream().map(TagSuggestionDto::getId).toList();
+    }
+
+    @Test
+    void suggest_ranksByNameTokensAndCoOccurrence() {
+        TagSuggestionIndex index = new TagSuggestionIndex(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<TagSuggestionDto> byName = index.suggest(1L, "продукты", List.of(), 5, () -> {
+            loads.incrementAndGet();
+            return history();
+        });
+        List<TagSuggestionDto> byChosen = index.suggest(1L, null, List.of(FOOD), 5, List::of);
+        List<TagSuggestionDto> popular = index.suggest(1L, "кино", List.of(), 5, List::of);
+
+        assertEquals(List.of(FOOD, SHOP), ids(byName));
+        assertEquals(1.0, byName.get(0).getScore());
+        assertEquals("Еда", byName.get(0).getTitle());
+        assertEquals(List.of(SHOP), ids(byChosen));
+        assertEquals(List.of(FOOD, SHOP, TAXI), ids(popular));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void writes_updateLoadedStatisticsIncrementally() {
+        TagSuggestionIndex index = new TagSuggestionIndex(10);
+        index.suggest(1L, null, List.of(), 5, TagSuggestionIndexTest::history);
+
+        index.updateTransaction(1L, transaction(4, "Такси в аэропорт", TAXI, SHOP));
+        index.updateTransaction(1L, transaction(1, "Продукты в Магните", FOOD));
+        index.removeTransaction(1L, 2L);
+
+        assertEquals(List.of(FOOD), ids(index.suggest(1L, "продукты", List.of(), 5, List::of)));
+        assertEquals(List.of(SHOP), ids(index.suggest(1L, null, List.of(TAXI), 5, List::of)));
+
+        index.removeTag(1L, SHOP);
+        index.renameTag(1L, TAXI, "Поездки");
+
+        List<TagSuggestionDto> taxi = index.suggest(1L, "такси", List.of(), 5, List::of);
+        assertEquals(List.of(TAXI), ids(taxi));
+        assertEquals("Поездки", taxi.get(0).getTitle());
+        // С такси больше ничего не встречалось, поэтому подсказываются частые теги
+        assertEquals(List.of(FOOD), ids(index.suggest(1L, null, List.of(TAXI), 5, List::of)));
+    }
+
+    @Test
+    void suggest_writeDuringLoad_resultNotStored() {
+        TagSuggestionIndex index = new TagSuggestionIndex(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        index.suggest(1L, "такси", List.of(), 5, () -> {
+            loads.incrementAndGet();
+            index.removeTransaction(1L, 3L);
+            return history();
+        });
+        index.suggest(1L, "такси", List.of(), 5, () -> {
+            loads.incrementAndGet();
+            return history();
+        });
+
+        assertEquals(2, loads.get());
+    }
+}
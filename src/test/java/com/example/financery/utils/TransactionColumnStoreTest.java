@@ -0,0 +1,79 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.TransactionDtoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionColumnStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 1);
+
+    private static TransactionDtoResponse transaction(long id, long amount) {
+        TransactionDtoResponse transaction = new TransactionDtoResponse();
+        transaction.setId(id);
+        transaction.setAmount(amount);
+        transaction.setDate(DAY);
+        transaction.setTags(new ArrayList<>());
+        transaction.setUserId(1L);
+        transaction.setBillId(1L);
+        return transaction;
+    }
+
+    @Test
+    void getOrLoad_enabled_keepsColumnsCurrentOnWrites() {
+        TransactionColumnStore store = new TransactionColumnStore(true, 10, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        store.getOrLoad(1L, () -> {
+            loads.incrementAndGet();
+            return List.of(transaction(1, 100));
+        });
+        store.updateTransaction(1L, transaction(2, 200));
+        store.removeTransaction(1L, 1L);
+        TransactionColumns columns = store.getOrLoad(1L, List::of);
+
+        assertEquals(1, loads.get());
+        assertEquals(200, columns.totals(DAY, DAY).getExpense());
+
+        store.clearForUser(1L);
+        assertEquals(0, store.getOrLoad(1L, List::of).size());
+    }
+
+    @Test
+    void getOrLoadForTagFilter_analyticsDisabled_keepsColumnsCurrentOnWrites() {
+        TransactionColumnStore store = new TransactionColumnStore(false, 10, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        store.getOrLoadForTagFilter(1L, () -> {
+            loads.incrementAndGet();
+            return List.of(transaction(1, 100));
+        });
+        store.updateTransaction(1L, transaction(2, 200));
+        store.updateTransaction(1L, transaction(1, 150));
+        TransactionColumns columns = store.getOrLoadForTagFilter(1L, List::of);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, columns.size());
+        assertEquals(350, columns.totals(DAY, DAY).getExpense());
+    }
+
+    @Test
+    void getOrLoad_disabledOrWriteDuringLoad_resultNotStored() {
+        TransactionColumnStore disabled = new TransactionColumnStore(false, 10, 10);
+        disabled.getOrLoad(1L, () -> List.of(transaction(1, 100)));
+        assertEquals(0, disabled.getOrLoad(1L, List::of).size());
+
+        TransactionColumnStore store = new TransactionColumnStore(true, 10, 10);
+        store.getOrLoad(1L, () -> {
+            store.removeTransaction(1L, 1L);
+            return List.of(transaction(1, 100));
+        });
+        assertEquals(0, store.getOrLoad(1L, List::of).size());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.BalancePointDto;
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionSummaryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Сравнение аналитики по колоночному представлению с обходом списка DTO стримами
+ * и стоимость записи в представление: добавления транзакции за последний день
+ * и изменения уже существующей.
+ *
+ * <p>Не входит в тесты сборки, запускается вручную через {@link #main}
+ * из IDE или командой
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.financery.utils.TransactionColumnsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionColumnsBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Param({"1000", "100000"})
+    private int transactions;
+
+    private List<TransactionDtoResponse> dtos;
+    private TransactionColumns columns;
+    private LocalDate from;
+    private LocalDate to;
+    private TransactionColumns written;
+    private long nextId;
+    private int nextUpdate;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<TagDtoResponse> tags = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            TagDtoResponse tag = new TagDtoResponse();
+            tag.setId(id);
+            tag.setTitle("Тег " + id);
+            tags.add(tag);
+        }
+        dtos = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            TransactionDtoResponse transaction = new TransactionDtoResponse();
+            transaction.setId(i + 1);
+            transaction.setName("Транзакция " + i);
+            transaction.setType(random.nextInt(4) == 0);
+            transaction.setAmount(1 + random.nextInt(100_000));
+            transaction.setDate(START.plusDays(random.nextInt(730)));
+            transaction.setBillId(1 + random.nextInt(5));
+            transaction.setTags(List.of(tags.get(random.nextInt(tags.size())),
+                    tags.get(random.nextInt(tags.size()))));
+            dtos.add(transaction);
+        }
+        dtos.sort(UserTransactions.ORDER);
+        columns = TransactionColumns.of(dtos);
+        from = START.plusDays(180);
+        to = START.plusDays(545);
+        written = columns;
+        nextId = transactions + 1;
+    }
+
+    @Benchmark
+    public TransactionColumns upsertLatest() {
+        TransactionDtoResponse transaction = copyOf(dtos.get(dtos.size() - 1));
+        transaction.setId(nextId++);
+        written = written.withUpsert(transaction);
+        return written;
+    }
+
+    @Benchmark
+    public TransactionColumns upsertExisting() {
+        TransactionDtoResponse transaction = copyOf(dtos.get(nextUpdate));
+        nextUpdate = (nextUpdate + 1) % dtos.size();
+        transaction.setAmount(transaction.getAmount() + 1);
+        written = written.withUpsert(transaction);
+        return written;
+    }
+
+    @Benchmark
+    public TransactionSummaryDto totalsColumns() {
+        return columns.totals(from, to);
+    }
+
+    @Benchmark
+    public TransactionSummaryDto totalsStream() {
+        List<TransactionDtoResponse> period = dtos.stream()
+                .filter(t -> !t.getDate().isBefore(from) && !t.getDate().isAfter(to))
+                .toList();
+        long income = period.stream().filter(TransactionDtoResponse::isType)
+                .mapToLong(TransactionDtoResponse::getAmount).sum();
+        long expense = period.stream().filter(t -> !t.isType())
+                .mapToLong(TransactionDtoResponse::getAmount).sum();
+        return new TransactionSummaryDto(from.toString(), from.toString(),
+                income, expense, period.size());
+    }
+
+    @Benchmark
+    public List<TransactionSummaryDto> tagTotalsColumns() {
+        return columns.tagTotals(from, to);
+    }
+
+    @Benchmark
+    public List<TransactionSummaryDto> tagTotalsStream() {
+        Map<TagDtoResponse, List<TransactionDtoResponse>> byTag = dtos.stream()
+                .filter(t -> !t.getDate().isBefore(from) && !t.getDate().isAfter(to))
+                .flatMap(t -> t.getTags().stream().map(tag -> Map.entry(tag, t)))
+                .collect(Collectors.groupingBy(Map.Entry::getKey,
+                        () -> new TreeMap<>((a, b) -> Long.compare(a.getId(), b.getId())),
+                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        List<TransactionSummaryDto> totals = new ArrayList<>(byTag.size());
+        byTag.forEach((tag, rows) -> totals.add(new TransactionSummaryDto(
+                String.valueOf(tag.getId()), tag.getTitle(),
+                rows.stream().filter(TransactionDtoResponse::isType)
+                        .mapToLong(TransactionDtoResponse::getAmount).sum(),
+                rows.stream().filter(t -> !t.isType())
+                        .mapToLong(TransactionDtoResponse::getAmount).sum(),
+                rows.size())));
+        return totals;
+    }
+
+    @Benchmark
+    public List<BalancePointDto> runningBalanceColumns() {
+        return columns.runningBalance(from, to, null);
+    }
+
+    @Benchmark
+    public List<BalancePointDto> runningBalanceStream() {
+        long opening = dtos.stream()
+                .filter(t -> t.getDate().isBefore(from))
+                .mapToLong(t -> t.isType() ? t.getAmount() : -t.getAmount())
+                .sum();
+        Map<LocalDate, Long> perDay = dtos.stream()
+                .filter(t -> !t.getDate().isBefore(from) && !t.getDate().isAfter(to))
+                .collect(Collectors.groupingBy(TransactionDtoResponse::getDate, TreeMap::new,
+                        Collectors.summingLong(t -> t.isType() ? t.getAmount() : -t.getAmount())));
+        List<BalancePointDto> points = new ArrayList<>(perDay.size());
+        long balance = opening;
+        for (Map.Entry<LocalDate, Long> day : perDay.entrySet()) {
+            balance += day.getValue();
+            points.add(new BalancePointDto(day.getKey(), balance));
+        }
+        return points;
+    }
+
+    private static TransactionDtoResponse copyOf(TransactionDtoResponse source) {
+        TransactionDtoResponse copy = new TransactionDtoResponse();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setType(source.isType());
+        copy.setAmount(source.getAmount());
+        copy.setDate(source.getDate());
+        copy.setBillId(source.getBillId());
+        copy.setTags(source.getTags());
+        return copy;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionColumnsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
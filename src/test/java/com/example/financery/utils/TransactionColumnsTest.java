@@ -0,0 +1,216 @@
+package com.example.financery.utils;
+
+import com.example.financery.dto.BalancePointDto;
+import com.example.financery.dto.TagDtoResponse;
+import com.example.financery.dto.TransactionDtoResponse;
+import com.example.financery.dto.TransactionSummaryDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionColumnsTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private static TagDtoResponse tag(long id) {
+        TagDtoResponse tag = new TagDtoResponse();
+        tag.setId(id);
+        tag.setTitle("Тег " + id);
+        tag.setUserId(1L);
+        return tag;
+    }
+
+    private static TransactionDtoResponse transaction(
+            long id, int day, boolean income, long amount, long billId, long... tagIds) {
+        TransactionDtoResponse transaction = new TransactionDtoResponse();
+        transaction.setId(id);
+        transaction.setName("Транзакция " + id);
+        transaction.setType(income);
+        transaction.setAmount(amount);
+        transaction.setDate(START.plusDays(day));
+        transaction.setUserId(1L);
+        transaction.setBillId(billId);
+        List<TagDtoResponse> tags = new ArrayList<>();
+        for (long tagId : tagIds) {
+            tags.add(tag(tagId));
+        }
+        transaction.setTags(tags);
+        return transaction;
+    }
+
+    private static TransactionColumns sample() {
+        // Порядок на входе не важен, строки сортируются по дню и id
+        return TransactionColumns.of(List.of(
+                transaction(4, 3, false, 400, 2, 10),
+                transaction(1, 0, true, 10_000, 1),
+                transaction(3, 2, false, 300, 1, 10, 20),
+                transaction(2, 2, false, 200, 1, 20)));
+    }
+
+    @Test
+    void totalsAndTagTotals_respectPeriodBounds() {
+        TransactionColumns columns = sample();
+
+        TransactionSummaryDto totals = columns.totals(START.plusDays(1), START.plusDays(2));
+        List<TransactionSummaryDto> tags = columns.tagTotals(START, START.plusDays(2));
+
+        assertEquals(new TransactionSummaryDto("2025-01-02", "2025-01-02", 0, 500, 2), totals);
+        assertEquals(List.of(
+                new TransactionSummaryDto("10", "Тег 10", 0, 300, 1),
+                new TransactionSummaryDto("20", "Тег 20", 0, 500, 2)), tags);
+        assertEquals(0, columns.totals(START.plusDays(5), START.plusDays(9)).getCount());
+    }
+
+    @Test
+    void runningBalance_startsFromHistoryBeforePeriod() {
+        TransactionColumns columns = sample();
+
+        assertEquals(List.of(
+                new BalancePointDto(START.plusDays(2), 9_500),
+                new BalancePointDto(START.plusDays(3), 9_100)),
+                columns.runningBalance(START.plusDays(1), START.plusDays(3), null));
+        assertEquals(List.of(new BalancePointDto(START.plusDays(3), -400)),
+                columns.runningBalance(START, START.plusDays(3), 2L));
+    }
+
+    @Test
+    void withUpsertAndWithRemoved_keepOrderAndLeaveOriginalIntact() {
+        TransactionColumns columns = sample();
+
+        TransactionColumns moved = columns
+                .withUpsert(transaction(1, 5, true, 5_000, 1, 30))
+                .withUpsert(transaction(5, 1, false, 100, 1))
+                .withRemoved(3);
+
+        assertEquals(4, columns.size());
+        assertEquals(4, moved.size());
+        assertSame(moved, moved.withRemoved(99));
+        assertEquals(List.of(
+                new BalancePointDto(START.plusDays(1), -100),
+                new BalancePointDto(START.plusDays(2), -300),
+                new BalancePointDto(START.plusDays(3), -700),
+                new BalancePointDto(START.plusDays(5), 4_300)),
+                moved.runningBalance(START, START.plusDays(9), null));
+        assertEquals(List.of("10", "20", "30"), moved.tagTotals(START, START.plusDays(9))
+                .stream().map(TransactionSummaryDto::getKey).toList());
+        assertEquals(10_000, columns.totals(START, START).getIncome());
+    }
+
+    @Test
+    void withUpsert_onOlderVersion_doesNotOverwriteRowsOfNewer() {
+        TransactionColumns columns = sample();
+
+        TransactionColumns first = columns.withUpsert(transaction(5, 4, false, 50, 1, 10));
+        TransactionColumns second = columns.withUpsert(transaction(6, 4, false, 70, 1, 20));
+        TransactionColumns next = first.withUpsert(transaction(7, 1, true, 1, 1));
+
+        assertEquals(900, columns.totals(START, START.plusDays(9)).getExpense());
+        assertEquals(950, first.totals(START, START.plusDays(9)).getExpense());
+        assertEquals(970, second.totals(START, START.plusDays(9)).getExpense());
+        assertEquals(List.of(3L, 4L, 5L), ids(next.findByTags(
+                START, START.plusDays(9), List.of(10L), List.of(), List.of(), null, 10)));
+        assertEquals(List.of(2L, 3L, 6L), ids(second.findByTags(
+                START, START.plusDays(9), List.of(20L), List.of(), List.of(), null, 10)));
+    }
+
+    @Test
+    void withUpsert_repeatedUpdates_keepTotalsAndTagRowsCurrent() {
+        TransactionColumns columns = sample();
+
+        for (int i = 1; i <= 200; i++) {
+            columns = columns.withUpsert(transaction(3, i % 5, false, i, 1, i % 2 == 0 ? 10 : 20));
+        }
+
+        assertEquals(4, columns.size());
+        assertEquals(800, columns.totals(START, START.plusDays(9)).getExpense());
+        assertEquals(List.of(
+                new TransactionSummaryDto("10", "Тег 10", 0, 600, 2),
+                new TransactionSummaryDto("20", "Тег 20", 0, 200, 1)),
+                columns.tagTotals(START, START.plusDays(9)));
+        assertEquals(List.of(1L, 3L, 2L, 4L), ids(columns.findByTags(
+                START, START.plusDays(9), List.of(), List.of(), List.of(), null, 10)));
+    }
+
+    @Test
+    void withUpserts_batch_matchesSingleUpserts() {
+        TransactionColumns columns = sample();
+        List<TransactionDtoResponse> batch = List.of(
+                transaction(6, 9, false, 60, 1, 20),
+                transaction(5, 1, false, 50, 2, 10),
+                transaction(2, 4, true, 20, 1, 30));
+
+        TransactionColumns batched = columns.withUpserts(batch);
+        TransactionColumns single = columns;
+        for (TransactionDtoResponse transaction : batch) {
+            single = single.withUpsert(transaction);
+        }
+
+        assertEquals(6, batched.size());
+        assertEquals(single.runningBalance(START, START.plusDays(9), null),
+                batched.runningBalance(START, START.plusDays(9), null));
+        assertEquals(single.tagTotals(START, START.plusDays(9)),
+                batched.tagTotals(START, START.plusDays(9)));
+        assertEquals(List.of(5L, 3L, 4L), ids(batched.findByTags(
+                START, START.plusDays(9), List.of(10L), List.of(), List.of(), null, 10)));
+        assertEquals(4, columns.size());
+    }
+
+    @Test
+    void withTagTitle_renamesOnlyInCopy() {
+        TransactionColumns columns = sample();
+
+        TransactionColumns renamed = columns.withTagTitle(10, "Продукты");
+
+        assertEquals("Продукты", renamed.tagTotals(START, START.plusDays(3)).get(0).getName());
+        assertEquals("Тег 10", columns.tagTotals(START, START.plusDays(3)).get(0).getName());
+        assertSame(columns, columns.withTagTitle(99, "Нет такого"));
+    }
+
+    @Test
+    void withoutTag_dropsTagFromTotalsOnlyInCopy() {
+        TransactionColumns columns = sample();
+
+        TransactionColumns stripped = columns.withoutTag(10);
+
+        List<TransactionSummaryDto> tags = stripped.tagTotals(START, START.plusDays(3));
+        assertEquals(List.of("20"), tags.stream().map(TransactionSummaryDto::getKey).toList());
+        assertEquals(2, columns.tagTotals(START, START.plusDays(3)).size());
+        assertEquals(columns.totals(START, START.plusDays(3)),
+                stripped.totals(START, START.plusDays(3)));
+    }
+
+    @Test
+    void findByTags_combinesTagsAndContinuesAfterCursor() {
+        TransactionColumns columns = TransactionColumns.of(List.of(
+                transaction(1, 0, false, 100, 1, 10, 20),
+                transaction(2, 1, false, 100, 1, 10),
+                transaction(3, 1, false, 100, 1, 10, 30),
+                transaction(4, 2, false, 100, 1, 20),
+                transaction(5, 5, false, 100, 1, 10, 20)));
+        LocalDate to = START.plusDays(4);
+
+        List<Long> allAndNot = ids(columns.findByTags(
+                START, to, List.of(10L), List.of(), List.of(30L), null, 10));
+        List<Long> anyOf = ids(columns.findByTags(
+                START, to, List.of(), List.of(20L, 30L), List.of(), null, 10));
+        List<TransactionCursor> firstPage = columns.findByTags(
+                START, to, List.of(10L), List.of(), List.of(), null, 2);
+        List<Long> secondPage = ids(columns.findByTags(
+                START, to, List.of(10L), List.of(), List.of(), firstPage.get(1), 2));
+
+        assertEquals(List.of(1L, 2L), allAndNot);
+        assertEquals(List.of(1L, 3L, 4L), anyOf);
+        assertEquals(List.of(1L, 2L), ids(firstPage));
+        assertEquals(List.of(3L), secondPage);
+        assertEquals(List.of(), ids(columns.findByTags(
+                START, to, List.of(99L), List.of(), List.of(), null, 10)));
+    }
+
+    private static List<Long> ids(List<TransactionCursor> keys) {
+        return keys.stream().map(TransactionCursor::id).toList();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.financery.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedLruStoreTest {
+
+    @Test
+    void getOrLoad_overLimit_evictsLeastRecentlyUsed() throws InterruptedException {
+        VersionedLruStore<String> store = new VersionedLruStore<>(1);
+
+        store.getOrLoad(1L, () -> "first");
+        Thread.sleep(1);
+        store.getOrLoad(2L, () -> "second");
+
+        assertNull(store.get(1L));
+        assertEquals("second", store.get(2L));
+        assertEquals(1, store.size());
+        assertEquals(1, store.evictions());
+    }
+
+    @Test
+    void getOrLoad_storedValueReusedAndUpdatedByWrites() {
+        VersionedLruStore<String> store = new VersionedLruStore<>(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        store.getOrLoad(1L, () -> "v" + loads.incrementAndGet());
+        store.update(1L, value -> value + "+write");
+        store.update(2L, value -> fail("Отсутствующее значение не должно меняться"));
+
+        assertEquals("v1+write", store.getOrLoad(1L, () -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+        assertNull(store.get(2L));
+    }
+
+    @Test
+    void getOrLoad_writeDuringLoad_resultNotStored() {
+        VersionedLruStore<String> store = new VersionedLruStore<>(10);
+
+        String loaded = store.getOrLoad(1L, () -> {
+            store.update(1L, value -> value + "+write");
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertNull(store.get(1L));
+    }
+}